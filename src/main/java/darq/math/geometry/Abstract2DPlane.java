@@ -2,6 +2,7 @@ package darq.math.geometry;
 
 import darq.math.Utils;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -12,12 +13,53 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
 import java.util.stream.Collector;
+import java.util.stream.IntStream;
 
 /**
  *
  * @author Craig.Webster
  */
 public abstract class Abstract2DPlane {
+	/**
+	 * How the orientation and containment predicates decide their results.
+	 */
+	public enum PredicateMode {
+		/**
+		 * Plain <code>double</code> arithmetic,
+		 * values within <code>Const.EPSILON</code> of each other are equal.
+		 */
+		EPSILON,
+		/**
+		 * Adaptive precision arithmetic, see <code>Predicates</code>.
+		 * Results are exact for any finite input, Points are only colinear when exactly colinear.
+		 */
+		ROBUST
+	}
+
+	/**
+	 * The number of Points classified together by one task,
+	 * when classifying Points in bulk.
+	 */
+	public static final int BULK_CHUNK = 4096;
+
+	private PredicateMode predicateMode = PredicateMode.EPSILON;
+
+	public PredicateMode getPredicateMode() {
+		return predicateMode;
+	}
+
+	/**
+	 * Sets how <code>compare</code>, <code>collidesAt</code>, <code>inCircle</code>,
+	 * and <code>contains</code> for Segments and Polygons decide their results.
+	 * As convexity is decided by <code>compare</code>, it follows the same mode.
+	 * Distances, angles and separation vectors are unaffected.
+	 *
+	 * @param predicateMode
+	 */
+	public void setPredicateMode(PredicateMode predicateMode) {
+		this.predicateMode = predicateMode;
+	}
+
 	/**
 	 * Returns the length of the line drawn from the origin, to the given point.
 	 * The line is drawn from (0, 0) to (yD, xD).
@@ -148,8 +190,42 @@ public abstract class Abstract2DPlane {
 	 * and 1 if  p is to the right of s.
 	 */
 	public int compare(Point p, Segment s) {
+		if (predicateMode == PredicateMode.ROBUST) {
+			return (int) Math.signum(Predicates.orient(s.pS.y, s.pS.x, s.pE.y, s.pE.x, p.y, p.x));
+		}
 		return Utils.sign((s.pE.y - s.pS.y) * (p.x - s.pS.x) - (s.pE.x - s.pS.x) * (p.y - s.pS.y));
 	}
+
+	/**
+	 * Calculates if Point d is inside the circle through Points a, b and c.
+	 * The order of a, b and c does not matter.
+	 *
+	 * @param a
+	 * @param b
+	 * @param c
+	 * @param d
+	 * @return -1 if d is outside the circle,
+	 * 0 if d is on the circle, or a, b and c are colinear,
+	 * and 1 if d is inside the circle.
+	 */
+	public int inCircle(Point a, Point b, Point c, Point d) {
+		// The determinant is positive inside when c is to the left of a to b.
+		int orientation = -compare(c, new Segment(a, b));
+		if (predicateMode == PredicateMode.ROBUST) {
+			return orientation * (int) Math.signum(Predicates.inCircle(a.y, a.x, b.y, b.x, c.y, c.x, d.y, d.x));
+		}
+
+		double adx = a.x - d.x;
+		double ady = a.y - d.y;
+		double bdx = b.x - d.x;
+		double bdy = b.y - d.y;
+		double cdx = c.x - d.x;
+		double cdy = c.y - d.y;
+		double det = (adx * adx + ady * ady) * (bdx * cdy - cdx * bdy)
+				+ (bdx * bdx + bdy * bdy) * (cdx * ady - adx * cdy)
+				+ (cdx * cdx + cdy * cdy) * (adx * bdy - bdx * ady);
+		return orientation * Utils.sign(det);
+	}
 	
 	/**
 	 * Calculates where the given segments intersect.
@@ -205,7 +281,13 @@ public abstract class Abstract2DPlane {
 		// If the denominator is 0, u1 and u2 are undefined, lines are parallel.
 		// Else intersection at u1 percent between s1.pS and s1.pE, similar for u2.
 		
-		double denom = ((s2.pE.y - s2.pS.y) * (s1.pE.x - s1.pS.x)) - ((s2.pE.x - s2.pS.x) * (s1.pE.y - s1.pS.y));
+		double denom;
+		if (predicateMode == PredicateMode.ROBUST) {
+			// Exactly 0 only when exactly parallel.
+			denom = Predicates.cross(s2.pS.y, s2.pS.x, s2.pE.y, s2.pE.x, s1.pS.y, s1.pS.x, s1.pE.y, s1.pE.x);
+		} else {
+			denom = ((s2.pE.y - s2.pS.y) * (s1.pE.x - s1.pS.x)) - ((s2.pE.x - s2.pS.x) * (s1.pE.y - s1.pS.y));
+		}
 		
 		if (denom == 0) {
 			return null;
@@ -250,6 +332,11 @@ public abstract class Abstract2DPlane {
 	 * @return true if Point p is on Segment s, false otherwise.
 	 */
 	public boolean contains(Segment s, Point p) {
+		if (predicateMode == PredicateMode.ROBUST) {
+			return compare(p, s) == 0 &&
+					Math.min(s.pS.y, s.pE.y) <= p.y && p.y <= Math.max(s.pS.y, s.pE.y) &&
+					Math.min(s.pS.x, s.pE.x) <= p.x && p.x <= Math.max(s.pS.x, s.pE.x);
+		}
 		return Utils.equals((p.y - s.pS.y) / (s.pE.y - s.pS.y), (p.x - s.pS.x) / (s.pE.x - s.pS.x)) &&
 				Utils.sign(s.pS.y - p.y) * Utils.sign(s.pS.y - s.pE.y) >= 0 && Utils.sign(s.pE.y - p.y) * Utils.sign(s.pE.y - s.pS.y) >= 0;
 	}
@@ -282,6 +369,14 @@ public abstract class Abstract2DPlane {
 	 * and 1 of point is internal to polygon.
 	 */
 	public int contains(Polygon polygon, Point point) {
+		// Points outside of the bounding box can not be in the Polygon.
+		if (!polygon.boundingBox.contains(point)) {
+			return -1;
+		}
+		if (predicateMode == PredicateMode.ROBUST) {
+			return containsRobust(polygon, point);
+		}
+		
 		Collection<Segment> segments = new ArrayList<Segment>(polygon.segments.size());
 		for (Segment segment : polygon.segments) {
 			int result = compare(segment.pE, new Segment(point, segment.pS));
@@ -326,7 +421,120 @@ public abstract class Abstract2DPlane {
 			return 1;
 		}
 	}
-	
+
+	/**
+	 * Exact version of <code>contains(Polygon, Point)</code>.
+	 * The ray cast straight up crosses each Segment that spans the x of the Point,
+	 * including its left end and excluding its right end,
+	 * and is above the Point.
+	 */
+	private int containsRobust(Polygon polygon, Point point) {
+		int count = 0;
+		for (Segment segment : polygon.segments) {
+			if (contains(segment, point)) {
+				return 0;
+			}
+			if ((segment.pS.x > point.x) != (segment.pE.x > point.x)) {
+				// Orientation of the Point relative to the Segment drawn left to right.
+				double orientation = Predicates.orient(segment.pS.y, segment.pS.x, segment.pE.y, segment.pE.x, point.y, point.x);
+				if (segment.pS.x > segment.pE.x) {
+					orientation = -orientation;
+				}
+				if (orientation > 0) {
+					count++;
+				}
+			}
+		}
+		return (count % 2 == 0) ? -1 : 1;
+	}
+
+	/**
+	 * Indexes the given Polygon for repeated <code>contains</code> queries.
+	 * Building the index costs about as much as a few calls to
+	 * <code>contains(Polygon, Point)</code>,
+	 * each query afterwards takes logarithmic time in the number of Segments.
+	 *
+	 * The given Polygon must be simple, no two of its Segments may cross.
+	 *
+	 * @param polygon
+	 * @return The indexed Polygon.
+	 */
+	public PreparedPolygon prepare(Polygon polygon) {
+		return new PreparedPolygon(this, polygon);
+	}
+
+	/**
+	 * Calculates if the given prepared Polygon contains the given Point.
+	 * Returns the same values as <code>contains(Polygon, Point)</code>.
+	 *
+	 * @param polygon
+	 * @param point
+	 * @return -1 if point is external to polygon,
+	 * 0 if point is on one of segments in polygon,
+	 * and 1 of point is internal to polygon.
+	 * @throws IllegalArgumentException If the given Polygon was prepared for a different plane.
+	 */
+	public int contains(PreparedPolygon polygon, Point point) {
+		if (polygon.plane != this) {
+			throw new IllegalArgumentException("Polygon " + polygon.polygon + " was prepared for a different plane.");
+		}
+		return polygon.contains(point.y, point.x);
+	}
+
+	/**
+	 * Classifies every given Point against the given Polygon,
+	 * see <code>contains(PreparedPolygon, double[], byte[])</code>.
+	 * The Polygon is prepared once for the whole array.
+	 *
+	 * @param polygon
+	 * @param points
+	 * @param results
+	 */
+	public void contains(Polygon polygon, double[] points, byte[] results) {
+		contains(prepare(polygon), points, results);
+	}
+
+	/**
+	 * Classifies every given Point against the given prepared Polygon.
+	 * Points are stored interleaved, Point <code>i</code> is
+	 * <code>(points[2 * i], points[2 * i + 1])</code>,
+	 * and its result is written to <code>results[i]</code>,
+	 * using the same values as <code>contains(Polygon, Point)</code>.
+	 *
+	 * Nothing is allocated per Point.
+	 * Arrays of more than <code>BULK_CHUNK</code> Points are split into chunks,
+	 * which are classified in parallel.
+	 *
+	 * @param polygon
+	 * @param points
+	 * @param results
+	 * @throws IllegalArgumentException If the given Polygon was prepared for a different plane,
+	 * the Points array has an odd length,
+	 * or the results array is shorter than the number of Points.
+	 */
+	public void contains(PreparedPolygon polygon, double[] points, byte[] results) {
+		if (polygon.plane != this) {
+			throw new IllegalArgumentException("Polygon " + polygon.polygon + " was prepared for a different plane.");
+		}
+		if (points.length % 2 != 0) {
+			throw new IllegalArgumentException("Points array has odd length " + points.length + ".");
+		}
+		final int count = points.length / 2;
+		if (results.length < count) {
+			throw new IllegalArgumentException("Results array of length " + results.length + " can not hold " + count + " results.");
+		}
+
+		if (count <= BULK_CHUNK) {
+			polygon.contains(points, results, 0, count);
+			return;
+		}
+		int chunks = (count + BULK_CHUNK - 1) / BULK_CHUNK;
+		IntStream.range(0, chunks).parallel().forEach(chunk -> {
+			int from = chunk * BULK_CHUNK;
+			polygon.contains(points, results, from, Math.min(from + BULK_CHUNK, count));
+		});
+	}
+
 	/**
 	 * Calculates if the given Segments overlap.
 	 * To overlap, Segments must be completely collinear,
@@ -704,6 +912,8 @@ public abstract class Abstract2DPlane {
 	 * will cause the Polygons to no longer collide.
 	 * 
 	 * This is an implementation of the Separating Axis Theorem.
+	 * Polygons whose bounding boxes or bounding circles do not overlap,
+	 * are rejected before any axis is tested.
 	 * 
 	 * @param p1
 	 * @param p2
@@ -711,9 +921,613 @@ public abstract class Abstract2DPlane {
 	 * that if applied to the second argument,
 	 * will cause the Polygons to no longer collide,
 	 * or null if the Polygons are not colliding.
-	 * @throws IllegalArgumentException If either given Polygon is not convex.
+	 * @throws IllegalArgumentException If either given Polygon is not convex,
+	 * and their bounds overlap.
 	 */
 	public Segment collides(Polygon p1, Polygon p2) {
+		Separation separation = separate(p1, p2);
+		if (separation.separated) {
+			return null;
+		}
+		
+		return separationVector(separation);
+	}
+	
+	/**
+	 * Computes the separation vector between two Shapes,
+	 * in the same form as <code>collides(Polygon, Polygon)</code>.
+	 */
+	protected interface CollisionKernel {
+		public Segment collides(Shape s1, Shape s2);
+	}
+	
+	/**
+	 * The kernel for each pair of Shape types,
+	 * indexed by the ordinal of the first Shape's type, then the second's.
+	 */
+	private final CollisionKernel[][] kernels = createKernels();
+	
+	/**
+	 * Builds the double dispatch table of collision kernels.
+	 * Pairs without a closed form solution convert both Shapes to Polygons,
+	 * and use <code>collides(Polygon, Polygon)</code>.
+	 * 
+	 * @return The kernels, indexed by the ordinals of the Shape types.
+	 */
+	private CollisionKernel[][] createKernels() {
+		int count = Shape.Type.values().length;
+		CollisionKernel[][] table = new CollisionKernel[count][count];
+		
+		for (Shape.Type t1 : Shape.Type.values()) {
+			for (Shape.Type t2 : Shape.Type.values()) {
+				if (t1 == Shape.Type.CIRCLE && t2 == Shape.Type.CIRCLE) {
+					table[t1.ordinal()][t2.ordinal()] = (s1, s2) -> collides((Circle) s1, (Circle) s2);
+				} else if (t1 == Shape.Type.CIRCLE) {
+					// The separation pushes the circle, reverse it to push the second Shape.
+					table[t1.ordinal()][t2.ordinal()] = (s1, s2) -> reverse(separateCircle((Circle) s1, toPolygon(s2)));
+				} else if (t2 == Shape.Type.CIRCLE) {
+					table[t1.ordinal()][t2.ordinal()] = (s1, s2) -> separateCircle((Circle) s2, toPolygon(s1));
+				} else {
+					table[t1.ordinal()][t2.ordinal()] = (s1, s2) -> collides(toPolygon(s1), toPolygon(s2));
+				}
+			}
+		}
+		table[Shape.Type.BOX.ordinal()][Shape.Type.BOX.ordinal()] = (s1, s2) -> collides((AxisAlignedBoundingBox) s1, (AxisAlignedBoundingBox) s2);
+		table[Shape.Type.HEXAGON.ordinal()][Shape.Type.HEXAGON.ordinal()] = (s1, s2) -> collides((RegularHexagon) s1, (RegularHexagon) s2);
+		table[Shape.Type.CIRCLE.ordinal()][Shape.Type.BOX.ordinal()] = (s1, s2) -> reverse(separateCircle((Circle) s1, (AxisAlignedBoundingBox) s2));
+		table[Shape.Type.BOX.ordinal()][Shape.Type.CIRCLE.ordinal()] = (s1, s2) -> separateCircle((Circle) s2, (AxisAlignedBoundingBox) s1);
+		table[Shape.Type.CIRCLE.ordinal()][Shape.Type.HEXAGON.ordinal()] = (s1, s2) -> reverse(separateCircle((Circle) s1, (RegularHexagon) s2));
+		table[Shape.Type.HEXAGON.ordinal()][Shape.Type.CIRCLE.ordinal()] = (s1, s2) -> separateCircle((Circle) s2, (RegularHexagon) s1);
+		
+		return table;
+	}
+	
+	/**
+	 * Determines if the given Shapes are colliding.
+	 * Returns null if the given Shapes are not colliding,
+	 * otherwise, returns a Segment representing the smallest possible vector,
+	 * that if applied to the second argument,
+	 * will cause the Shapes to no longer collide.
+	 * 
+	 * Dispatches to a closed form kernel for the types of the given Shapes,
+	 * circles, boxes and regular hexagons never build a list of vertices
+	 * when tested against their own type, or circles against boxes and regular hexagons.
+	 * 
+	 * @param s1
+	 * @param s2
+	 * @return A Segment representing the smallest possible vector,
+	 * that if applied to the second argument,
+	 * will cause the Shapes to no longer collide,
+	 * or null if the Shapes are not colliding.
+	 * @throws IllegalArgumentException If either given Shape is a Polygon that is not convex,
+	 * and their bounds overlap.
+	 */
+	public Segment collides(Shape s1, Shape s2) {
+		return kernels[s1.getShapeType().ordinal()][s2.getShapeType().ordinal()].collides(s1, s2);
+	}
+	
+	/**
+	 * Determines if the given circles are colliding.
+	 * 
+	 * @param c1
+	 * @param c2
+	 * @return The smallest vector to apply to the second circle,
+	 * or null if the circles are not colliding.
+	 */
+	public Segment collides(Circle c1, Circle c2) {
+		double yD = c2.centre.y - c1.centre.y;
+		double xD = c2.centre.x - c1.centre.x;
+		double between = Math.sqrt(yD * yD + xD * xD);
+		double depth = c1.radius + c2.radius - between;
+		if (Utils.lt(depth, 0)) {
+			return null;
+		}
+		
+		if (between == 0) {
+			// Concentric, any direction will do.
+			return new Segment(new Point(0, 0), new Point(depth, 0));
+		}
+		double ratio = depth / between;
+		return new Segment(new Point(0, 0), new Point(yD * ratio, xD * ratio));
+	}
+	
+	/**
+	 * Determines if the given boxes are colliding.
+	 * 
+	 * @param b1
+	 * @param b2
+	 * @return The smallest vector to apply to the second box,
+	 * or null if the boxes are not colliding.
+	 */
+	public Segment collides(AxisAlignedBoundingBox b1, AxisAlignedBoundingBox b2) {
+		// Distances the second box must move in each direction to clear the first.
+		double plusY = b1.yE - b2.yS;
+		double minusY = b2.yE - b1.yS;
+		double plusX = b1.xE - b2.xS;
+		double minusX = b2.xE - b1.xS;
+		if (Utils.lt(plusY, 0) || Utils.lt(minusY, 0) || Utils.lt(plusX, 0) || Utils.lt(minusX, 0)) {
+			return null;
+		}
+		
+		// Ties are broken in the same order as the edges of toPolygon().
+		double depthX = minusX <= plusX ? -minusX : plusX;
+		double depthY = plusY <= minusY ? plusY : -minusY;
+		if (distance(depthY, 0) < distance(0, depthX)) {
+			return new Segment(new Point(0, 0), new Point(depthY, 0));
+		} else {
+			return new Segment(new Point(0, 0), new Point(0, depthX));
+		}
+	}
+	
+	/**
+	 * Determines if the given regular hexagons are colliding.
+	 * Hexagons share an orientation, so only the three (3) normals of their edges
+	 * need to be tested, and the projection of a hexagon onto any of them
+	 * is simply its edge radius either side of its centre.
+	 * 
+	 * @param h1
+	 * @param h2
+	 * @return The smallest vector to apply to the second hexagon,
+	 * or null if the hexagons are not colliding.
+	 */
+	public Segment collides(RegularHexagon h1, RegularHexagon h2) {
+		double yD = h2.centre.y - h1.centre.y;
+		double xD = h2.centre.x - h1.centre.x;
+		double radii = h1.hexagon.RADIUS_EDGE + h2.hexagon.RADIUS_EDGE;
+		
+		double bestDepth = 0;
+		double bestLength = Double.POSITIVE_INFINITY;
+		int best = -1;
+		for (int i = 0; i < HEXAGON_NORMAL_YS.length; i++) {
+			double along = yD * HEXAGON_NORMAL_YS[i] + xD * HEXAGON_NORMAL_XS[i];
+			double depth = radii - Math.abs(along);
+			if (Utils.lt(depth, 0)) {
+				return null;
+			}
+			
+			double length = Math.max(depth, 0) * distance(HEXAGON_NORMAL_YS[i], HEXAGON_NORMAL_XS[i]);
+			if (length < bestLength) {
+				bestLength = length;
+				bestDepth = Math.max(depth, 0) * (along >= 0 ? 1 : -1);
+				best = i;
+			}
+		}
+		
+		return new Segment(new Point(0, 0), new Point(HEXAGON_NORMAL_YS[best] * bestDepth, HEXAGON_NORMAL_XS[best] * bestDepth));
+	}
+	
+	/**
+	 * Unit normals of the edges of a <code>RegularHexagon</code>,
+	 * the top edge, the top right edge, and the bottom right edge.
+	 */
+	private static final double[] HEXAGON_NORMAL_YS = {1, 0.5, -0.5};
+	private static final double[] HEXAGON_NORMAL_XS = {0, Math.sqrt(3) / 2, Math.sqrt(3) / 2};
+	
+	/**
+	 * Determines if the given circle and Polygon are colliding.
+	 * Finds the Point on the edges of the Polygon closest to the centre of the circle,
+	 * the circle is pushed away from that Point,
+	 * or towards and past it if the centre is inside the Polygon.
+	 * 
+	 * @param circle
+	 * @param polygon
+	 * @return The smallest vector to apply to the circle,
+	 * or null if the circle and Polygon are not colliding.
+	 * @throws IllegalArgumentException If the given Polygon is not convex,
+	 * and the bounds overlap.
+	 */
+	private Segment separateCircle(Circle circle, Polygon polygon) {
+		if (!circle.overlaps(polygon.boundingCircle) || !polygon.boundingBox.overlaps(circle.getBoundingBox())) {
+			return null;
+		}
+		
+		if (!isConvex(polygon)) {
+			throw new IllegalArgumentException("Polygon " + polygon + " is not convex.");
+		}
+		
+		Point centre = circle.centre;
+		double closestY = Double.NaN;
+		double closestX = Double.NaN;
+		Segment closestSegm = null;
+		double closestSquared = Double.POSITIVE_INFINITY;
+		for (Segment segm : polygon.segments) {
+			double yD = segm.pE.y - segm.pS.y;
+			double xD = segm.pE.x - segm.pS.x;
+			double squared = yD * yD + xD * xD;
+			double u = squared == 0 ? 0 : ((centre.y - segm.pS.y) * yD + (centre.x - segm.pS.x) * xD) / squared;
+			u = Math.max(0, Math.min(1, u));
+			double y = segm.pS.y + u * yD;
+			double x = segm.pS.x + u * xD;
+			double distSquared = (centre.y - y) * (centre.y - y) + (centre.x - x) * (centre.x - x);
+			if (distSquared < closestSquared) {
+				closestSquared = distSquared;
+				closestY = y;
+				closestX = x;
+				closestSegm = segm;
+			}
+		}
+		
+		double between = Math.sqrt(closestSquared);
+		boolean inside = contains(polygon, centre) > 0;
+		if (!inside && Utils.gt(between, circle.radius)) {
+			return null;
+		}
+		
+		double dirY;
+		double dirX;
+		double depth;
+		if (Utils.equals(between, 0)) {
+			// Centre on an edge, push out along the edge normal,
+			// away from the middle of the Polygon.
+			dirY = -(closestSegm.pE.x - closestSegm.pS.x);
+			dirX = closestSegm.pE.y - closestSegm.pS.y;
+			if (dirY * (centre.y - polygon.boundingCircle.centre.y) + dirX * (centre.x - polygon.boundingCircle.centre.x) < 0) {
+				dirY = -dirY;
+				dirX = -dirX;
+			}
+			depth = circle.radius;
+		} else if (inside) {
+			dirY = closestY - centre.y;
+			dirX = closestX - centre.x;
+			depth = circle.radius + between;
+		} else {
+			dirY = centre.y - closestY;
+			dirX = centre.x - closestX;
+			depth = Math.max(circle.radius - between, 0);
+		}
+		
+		double ratio = depth / Math.sqrt(dirY * dirY + dirX * dirX);
+		return new Segment(new Point(0, 0), new Point(dirY * ratio, dirX * ratio));
+	}
+	
+	/**
+	 * Determines if the given circle and box are colliding,
+	 * with the same results as <code>separateCircle(Circle, Polygon)</code> for the box as a Polygon,
+	 * working directly on the centre, the radius and the bounds.
+	 * 
+	 * @param circle
+	 * @param box
+	 * @return The smallest vector to apply to the circle,
+	 * or null if the circle and box are not colliding.
+	 */
+	private Segment separateCircle(Circle circle, AxisAlignedBoundingBox box) {
+		double y = circle.centre.y;
+		double x = circle.centre.x;
+		double closestY = Math.max(box.yS, Math.min(box.yE, y));
+		double closestX = Math.max(box.xS, Math.min(box.xE, x));
+		double dirY = y - closestY;
+		double dirX = x - closestX;
+		double between = Math.sqrt(dirY * dirY + dirX * dirX);
+		if (!Utils.equals(between, 0)) {
+			// Outside, pushed away from the closest Point.
+			if (Utils.gt(between, circle.radius)) {
+				return null;
+			}
+			double ratio = Math.max(circle.radius - between, 0) / between;
+			return new Segment(new Point(0, 0), new Point(dirY * ratio, dirX * ratio));
+		}
+		
+		// Inside, or on an edge, pushed out through the nearest edge,
+		// ties broken in the same order as the edges of toPolygon().
+		double[] insides = {x - box.xS, box.yE - y, box.xE - x, y - box.yS};
+		int nearest = 0;
+		for (int i = 1; i < 4; i++) {
+			if (insides[i] < insides[nearest]) {
+				nearest = i;
+			}
+		}
+		double depth = circle.radius + Math.max(insides[nearest], 0);
+		return new Segment(new Point(0, 0), new Point(BOX_NORMAL_YS[nearest] * depth, BOX_NORMAL_XS[nearest] * depth));
+	}
+	
+	/**
+	 * Outward unit normals of the edges of an <code>AxisAlignedBoundingBox</code>,
+	 * in the order of the edges of its <code>toPolygon()</code>.
+	 */
+	private static final double[] BOX_NORMAL_YS = {0, 1, 0, -1};
+	private static final double[] BOX_NORMAL_XS = {-1, 0, 1, 0};
+	
+	/**
+	 * Determines if the given circle and regular hexagon are colliding,
+	 * with the same results as <code>separateCircle(Circle, Polygon)</code> for the hexagon as a Polygon,
+	 * working directly on the centres and radii.
+	 * 
+	 * @param circle
+	 * @param hexagon
+	 * @return The smallest vector to apply to the circle,
+	 * or null if the circle and hexagon are not colliding.
+	 */
+	private Segment separateCircle(Circle circle, RegularHexagon hexagon) {
+		double yD = circle.centre.y - hexagon.centre.y;
+		double xD = circle.centre.x - hexagon.centre.x;
+		double edge = hexagon.hexagon.RADIUS_EDGE;
+		double vert = hexagon.hexagon.RADIUS_VERT;
+		
+		// Distance inside each edge, in the order of the edges of toPolygon(),
+		// the last three edges facing opposite the first three.
+		int nearest = 0;
+		double nearestInside = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < 6; i++) {
+			double sign = (i < 3) ? 1 : -1;
+			double inside = edge - sign * (yD * HEXAGON_NORMAL_YS[i % 3] + xD * HEXAGON_NORMAL_XS[i % 3]);
+			if (inside < nearestInside) {
+				nearestInside = inside;
+				nearest = i;
+			}
+		}
+		
+		if (Utils.lt(nearestInside, 0)) {
+			// Outside, find the closest Point within the quadrant of the centre,
+			// on the half of the top edge, or on the top right edge.
+			double ay = Math.abs(yD);
+			double ax = Math.abs(xD);
+			double topY = edge;
+			double topX = Math.min(ax, vert / 2);
+			double u = ((ay - edge) * -edge + (ax - vert / 2) * (vert / 2)) / (edge * edge + vert * vert / 4);
+			u = Math.max(0, Math.min(1, u));
+			double sideY = edge - u * edge;
+			double sideX = vert / 2 + u * vert / 2;
+			double topSquared = (ay - topY) * (ay - topY) + (ax - topX) * (ax - topX);
+			double sideSquared = (ay - sideY) * (ay - sideY) + (ax - sideX) * (ax - sideX);
+			double dirY = (topSquared <= sideSquared) ? ay - topY : ay - sideY;
+			double dirX = (topSquared <= sideSquared) ? ax - topX : ax - sideX;
+			double between = Math.sqrt(Math.min(topSquared, sideSquared));
+			if (!Utils.equals(between, 0)) {
+				if (Utils.gt(between, circle.radius)) {
+					return null;
+				}
+				double ratio = Math.max(circle.radius - between, 0) / between;
+				return new Segment(new Point(0, 0), new Point(Math.copySign(dirY * ratio, yD), Math.copySign(dirX * ratio, xD)));
+			}
+		}
+		
+		// Inside, or on an edge, pushed out through the nearest edge.
+		double sign = (nearest < 3) ? 1 : -1;
+		double depth = circle.radius + Math.max(nearestInside, 0);
+		return new Segment(new Point(0, 0), new Point(sign * HEXAGON_NORMAL_YS[nearest % 3] * depth, sign * HEXAGON_NORMAL_XS[nearest % 3] * depth));
+	}
+	
+	/**
+	 * Returns the given Shape as a Polygon.
+	 * 
+	 * @param shape
+	 * @return The Polygon with the same vertices as the given Shape.
+	 * @throws IllegalArgumentException If the given Shape has no vertices.
+	 */
+	private Polygon toPolygon(Shape shape) {
+		switch (shape.getShapeType()) {
+			case POLYGON:
+				return (Polygon) shape;
+			case BOX:
+				return ((AxisAlignedBoundingBox) shape).toPolygon();
+			case HEXAGON:
+				return ((RegularHexagon) shape).toPolygon();
+			default:
+				throw new IllegalArgumentException("Shape " + shape + " has no vertices.");
+		}
+	}
+	
+	/**
+	 * Reverses a separation vector,
+	 * so that it applies to the other Shape.
+	 * 
+	 * @param separation
+	 * @return The reversed separation vector, or null if given null.
+	 */
+	private Segment reverse(Segment separation) {
+		if (separation == null) {
+			return null;
+		}
+		return new Segment(separation.pS, new Point(-separation.pE.y, -separation.pE.x));
+	}
+	
+	/**
+	 * Determines if the given Polygons are colliding,
+	 * and where they are in contact.
+	 * Returns null if the given Polygons are not colliding,
+	 * otherwise, returns a ContactManifold holding the same separation vector
+	 * as <code>collides(Polygon, Polygon)</code>,
+	 * along with up to two (2) contact Points and their depths.
+	 * 
+	 * The Polygon that owns the axis of least penetration is the reference,
+	 * its edge facing the other Polygon is the reference edge.
+	 * The edge of the other Polygon facing most directly against it,
+	 * is the incident edge.
+	 * The incident edge is clipped to the sides of the reference edge,
+	 * and the clipped Points behind the reference edge are the contacts.
+	 * For example:
+	 *            ________
+	 *           |        |
+	 *  ------R--1--------2--R-------
+	 *  |        |________|         |
+	 *  |                           |
+	 * 
+	 * R-R is the reference edge, 1 and 2 are the contact Points.
+	 * 
+	 * The depth of each contact is the distance it must travel,
+	 * along the normal of the reference edge, to reach the reference edge.
+	 * 
+	 * @param p1
+	 * @param p2
+	 * @return The separation vector and contact Points of the Polygons,
+	 * or null if the Polygons are not colliding.
+	 * @throws IllegalArgumentException If either given Polygon is not convex,
+	 * and their bounds overlap.
+	 */
+	public ContactManifold getContacts(Polygon p1, Polygon p2) {
+		Separation separation = separate(p1, p2);
+		if (separation.separated) {
+			return null;
+		}
+		
+		Segment distNorm = separation.norm;
+		double normY = distNorm.pE.y - distNorm.pS.y;
+		double normX = distNorm.pE.x - distNorm.pS.x;
+		Segment vector = separationVector(separation);
+		
+		// The direction in which the second Polygon is pushed out of the first.
+		double dirY = -separation.mult * normY;
+		double dirX = -separation.mult * normX;
+		
+		Polygon reference;
+		Polygon incident;
+		int referenceWinding;
+		int incidentWinding;
+		int referenceEdge;
+		if (separation.edge < p1.segments.size()) {
+			reference = p1;
+			incident = p2;
+			referenceWinding = separation.winding1;
+			incidentWinding = separation.winding2;
+			referenceEdge = separation.edge;
+		} else {
+			reference = p2;
+			incident = p1;
+			referenceWinding = separation.winding2;
+			incidentWinding = separation.winding1;
+			referenceEdge = separation.edge - p1.segments.size();
+			// The reference edge faces the first Polygon.
+			dirY = -dirY;
+			dirX = -dirX;
+		}
+		
+		// Parallel edges share an axis,
+		// only the one facing the other Polygon is the reference edge.
+		Segment refSegm = reference.segments.get(referenceEdge);
+		if (facing(refSegm, referenceWinding, dirY, dirX) <= 0) {
+			refSegm = mostFacing(reference, referenceWinding, dirY, dirX);
+		}
+		Segment incSegm = mostFacing(incident, incidentWinding, -dirY, -dirX);
+		
+		// Clip the incident edge to the sides of the reference edge.
+		double tanY = refSegm.pE.y - refSegm.pS.y;
+		double tanX = refSegm.pE.x - refSegm.pS.x;
+		Point[] clipped = {incSegm.pS, incSegm.pE};
+		clipped = clip(clipped, tanY, tanX, tanY * refSegm.pS.y + tanX * refSegm.pS.x);
+		clipped = clip(clipped, -tanY, -tanX, -(tanY * refSegm.pE.y + tanX * refSegm.pE.x));
+		
+		// Keep the Points behind the reference edge.
+		double refNormY = -tanX * referenceWinding;
+		double refNormX = tanY * referenceWinding;
+		double refNormLength = distance(refNormY, refNormX);
+		double inverse = 1 / (refNormY * refNormY + refNormX * refNormX);
+		List<Point> points = new ArrayList<Point>(2);
+		List<Double> depths = new ArrayList<Double>(2);
+		for (Point point : clipped) {
+			double u = ((point.y - refSegm.pS.y) * refNormY + (point.x - refSegm.pS.x) * refNormX) * inverse;
+			if (Utils.lte(u, 0)) {
+				points.add(point);
+				depths.add(Math.max(-u, 0) * refNormLength);
+			}
+		}
+		
+		return new ContactManifold(vector, points, depths);
+	}
+	
+	/**
+	 * Returns how directly the outward normal of the given Segment,
+	 * an edge of a Polygon with the given winding,
+	 * faces in the direction of the given deltas.
+	 * 
+	 * @param segment
+	 * @param winding
+	 * @param yD
+	 * @param xD
+	 * @return The cosine of the angle between the outward normal and the deltas,
+	 * scaled by the length of the deltas.
+	 */
+	private double facing(Segment segment, int winding, double yD, double xD) {
+		double normY = -(segment.pE.x - segment.pS.x) * winding;
+		double normX = (segment.pE.y - segment.pS.y) * winding;
+		double length = Math.sqrt(normY * normY + normX * normX);
+		if (length == 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return (normY * yD + normX * xD) / length;
+	}
+	
+	/**
+	 * Returns the edge of the given Polygon,
+	 * whose outward normal faces most directly in the direction of the given deltas.
+	 * 
+	 * @param polygon
+	 * @param winding
+	 * @param yD
+	 * @param xD
+	 * @return The edge facing most directly in the direction of the given deltas.
+	 */
+	private Segment mostFacing(Polygon polygon, int winding, double yD, double xD) {
+		Segment best = null;
+		double bestFacing = Double.NEGATIVE_INFINITY;
+		for (Segment segment : polygon.segments) {
+			double facing = facing(segment, winding, yD, xD);
+			if (best == null || facing > bestFacing) {
+				best = segment;
+				bestFacing = facing;
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Clips the given Points to the half-plane
+	 * <code>point.y * yD + point.x * xD &gt;= offset</code>.
+	 * Where the line between the Points crosses the boundary,
+	 * the Point outside of the half-plane is replaced with the crossing Point.
+	 * 
+	 * @param points Up to two (2) Points.
+	 * @param yD
+	 * @param xD
+	 * @param offset
+	 * @return The Points inside of the half-plane.
+	 */
+	private Point[] clip(Point[] points, double yD, double xD, double offset) {
+		if (points.length < 2) {
+			if (points.length == 1 && Utils.lt(points[0].y * yD + points[0].x * xD, offset)) {
+				return new Point[0];
+			}
+			return points;
+		}
+		
+		double d1 = points[0].y * yD + points[0].x * xD - offset;
+		double d2 = points[1].y * yD + points[1].x * xD - offset;
+		
+		if (Utils.gte(d1, 0) && Utils.gte(d2, 0)) {
+			return points;
+		}
+		if (Utils.lt(d1, 0) && Utils.lt(d2, 0)) {
+			return new Point[0];
+		}
+		
+		// One Point on each side, replace the outside Point with the crossing.
+		double u = d1 / (d1 - d2);
+		Point crossing = getPointAlongSegment(new Segment(points[0], points[1]), u);
+		if (Utils.lt(d1, 0)) {
+			return new Point[] {crossing, points[1]};
+		} else {
+			return new Point[] {points[0], crossing};
+		}
+	}
+	
+	/**
+	 * Runs the Separating Axis Theorem over the edges of the given Polygons.
+	 * Stops at the first axis that separates the Polygons,
+	 * otherwise finds the axis requiring the smallest vector to separate them.
+	 * 
+	 * @param p1
+	 * @param p2
+	 * @return The Separation describing the result,
+	 * the separating axis is null if the bounds of the Polygons do not overlap.
+	 * @throws IllegalArgumentException If either given Polygon is not convex,
+	 * and their bounds overlap.
+	 */
+	Separation separate(Polygon p1, Polygon p2) {
+		if (!boundsOverlap(p1, p2)) {
+			Separation separation = new Separation();
+			separation.separated = true;
+			return separation;
+		}
+		
 		if (!isConvex(p1)) {
 			throw new IllegalArgumentException("Polygon " + p1 + " is not convex.");
 		}
@@ -725,10 +1539,10 @@ public abstract class Abstract2DPlane {
 		segments.addAll(p1.segments);
 		segments.addAll(p2.segments);
 		
+		Separation separation = new Separation();
 		double dist = Double.NEGATIVE_INFINITY;
-		Segment distNorm = null;
-		int distMult = 0;
-		for (Segment segm : segments) {
+		for (int i = 0; i < segments.size(); i++) {
+			Segment segm = segments.get(i);
 			double yD = segm.pE.y - segm.pS.y;
 			double xD = segm.pE.x - segm.pS.x;
 			Segment norm = new Segment(segm.pS, new Point(segm.pS.y - xD, segm.pS.x + yD));
@@ -758,12 +1572,27 @@ public abstract class Abstract2DPlane {
 					max2 = u;
 				}
 			}
-						
+			
 			double dist1 = min1 - max2;
 			double dist2 = min2 - max1;
 			
 			if (Utils.gt(dist1, 0) || Utils.gt(dist2, 0)) {
-				return null;
+				separation.separated = true;
+				separation.norm = norm;
+				separation.edge = i;
+				return separation;
+			}
+			
+			// The normal points out of its Polygon,
+			// when the Polygon projects behind its own edge.
+			if (i < p1.segments.size()) {
+				if (separation.winding1 == 0 && min1 != max1) {
+					separation.winding1 = -min1 >= max1 ? 1 : -1;
+				}
+			} else {
+				if (separation.winding2 == 0 && min2 != max2) {
+					separation.winding2 = -min2 >= max2 ? 1 : -1;
+				}
 			}
 			
 			double normalLength = distance(norm.pS, norm.pE);
@@ -772,17 +1601,298 @@ public abstract class Abstract2DPlane {
 			
 			if (dist1 <= 0 && dist1 > dist) {
 				dist = dist1;
-				distNorm = norm;
-				distMult = 1;
+				separation.norm = norm;
+				separation.edge = i;
+				separation.mult = 1;
 			}
 			if (dist2 <= 0 && dist2 > dist) {
 				dist = dist2;
-				distNorm = norm;
-				distMult = -1;
+				separation.norm = norm;
+				separation.edge = i;
+				separation.mult = -1;
+			}
+		}
+		separation.dist = dist;
+		
+		return separation;
+	}
+	
+	/**
+	 * Determines if the bounding boxes and bounding circles of the given Polygons overlap.
+	 * Polygons whose bounds do not overlap can not collide.
+	 * 
+	 * @param p1
+	 * @param p2
+	 * @return true if both the bounding boxes and bounding circles overlap.
+	 */
+	boolean boundsOverlap(Polygon p1, Polygon p2) {
+		return p1.boundingBox.overlaps(p2.boundingBox) && p1.boundingCircle.overlaps(p2.boundingCircle);
+	}
+	
+	/**
+	 * Returns the smallest vector separating colliding Polygons,
+	 * as returned by <code>collides(Polygon, Polygon)</code>.
+	 * 
+	 * @param separation The result of <code>separate(Polygon, Polygon)</code>,
+	 * for Polygons that are not separated.
+	 * @return A Segment from the origin representing the separation vector.
+	 */
+	Segment separationVector(Separation separation) {
+		Segment distNorm = separation.norm;
+		return new Segment(new Point(0, 0), getDeltaInDirection(distNorm.pE.y - distNorm.pS.y, distNorm.pE.x - distNorm.pS.x, separation.dist * separation.mult));
+	}
+	
+	/**
+	 * Determines if the axis defined by the given normal separates the given Polygons.
+	 * Uses the same tolerance as <code>separate(Polygon, Polygon)</code>.
+	 * 
+	 * @param p1
+	 * @param p2
+	 * @param normY
+	 * @param normX
+	 * @return true if the projections of the Polygons onto the normal do not overlap.
+	 */
+	boolean separates(Polygon p1, Polygon p2, double normY, double normX) {
+		double inverse = 1 / (normY * normY + normX * normX);
+		
+		double min1 = Double.POSITIVE_INFINITY;
+		double max1 = Double.NEGATIVE_INFINITY;
+		for (Point point : p1.points) {
+			double u = (point.y * normY + point.x * normX) * inverse;
+			min1 = Math.min(min1, u);
+			max1 = Math.max(max1, u);
+		}
+		
+		double min2 = Double.POSITIVE_INFINITY;
+		double max2 = Double.NEGATIVE_INFINITY;
+		for (Point point : p2.points) {
+			double u = (point.y * normY + point.x * normX) * inverse;
+			min2 = Math.min(min2, u);
+			max2 = Math.max(max2, u);
+		}
+		
+		return Utils.gt(min1 - max2, 0) || Utils.gt(min2 - max1, 0);
+	}
+	
+	/**
+	 * The result of <code>separate(Polygon, Polygon)</code>.
+	 */
+	static class Separation {
+		/**
+		 * true if an axis separates the Polygons.
+		 */
+		boolean separated;
+		/**
+		 * The separating axis if the Polygons are separated,
+		 * otherwise the axis requiring the smallest vector to separate them.
+		 */
+		Segment norm;
+		/**
+		 * The index of the edge defining <code>norm</code>,
+		 * the edges of the first Polygon are followed by those of the second.
+		 */
+		int edge;
+		/**
+		 * The signed length of the smallest separating vector, always &lt;= 0.
+		 */
+		double dist;
+		/**
+		 * 1 if the second Polygon must move against the normal,
+		 * -1 if it must move along the normal.
+		 */
+		int mult;
+		/**
+		 * 1 if the normals of the first Polygon's edges point outwards,
+		 * -1 if they point inwards, 0 if not calculated.
+		 */
+		int winding1;
+		/**
+		 * As <code>winding1</code>, for the second Polygon.
+		 */
+		int winding2;
+	}
+	
+	/**
+	 * Determines which Polygons in the given PolygonBatch collide with the given Polygon.
+	 * Equivalent to calling <code>collides(probe, polygon)</code>
+	 * for every Polygon in the batch,
+	 * but works directly on the flat arrays and cached normals of the batch.
+	 * 
+	 * @param probe
+	 * @param batch
+	 * @return The hits, and separation vectors to apply to the hit Polygons.
+	 * @throws IllegalArgumentException If the probe Polygon is not convex,
+	 * or if the batch was created for a different plane.
+	 */
+	public PolygonBatch.Collisions collides(Polygon probe, PolygonBatch batch) {
+		return collides(probe, batch, new PolygonBatch.Collisions(batch.size()));
+	}
+	
+	/**
+	 * Determines which Polygons in the given PolygonBatch collide with the given Polygon.
+	 * The results are written into, and returned as, <code>collisions</code>,
+	 * any previous results held by it are cleared.
+	 * 
+	 * @param probe
+	 * @param batch
+	 * @param collisions
+	 * @return The given Collisions, holding the hits,
+	 * and separation vectors to apply to the hit Polygons.
+	 * @throws IllegalArgumentException If the probe Polygon is not convex,
+	 * or if the batch was created for a different plane.
+	 */
+	public PolygonBatch.Collisions collides(Polygon probe, PolygonBatch batch, PolygonBatch.Collisions collisions) {
+		if (batch.plane != this) {
+			throw new IllegalArgumentException("PolygonBatch was created for a different plane.");
+		}
+		if (!isConvex(probe)) {
+			throw new IllegalArgumentException("Polygon " + probe + " is not convex.");
+		}
+		
+		// Flatten the probe, and project it onto its own normals once.
+		int probeCount = probe.points.size();
+		double[] pYs = new double[probeCount];
+		double[] pXs = new double[probeCount];
+		for (int v = 0; v < probeCount; v++) {
+			Point point = probe.points.get(v);
+			pYs[v] = point.y;
+			pXs[v] = point.x;
+		}
+		double[] pNormYs = new double[probeCount];
+		double[] pNormXs = new double[probeCount];
+		double[] pNormLengths = new double[probeCount];
+		double[] pMins = new double[probeCount];
+		double[] pMaxs = new double[probeCount];
+		for (int e = 0; e < probeCount; e++) {
+			int next = (e + 1) % probeCount;
+			double normY = -(pXs[next] - pXs[e]);
+			double normX = pYs[next] - pYs[e];
+			pNormYs[e] = normY;
+			pNormXs[e] = normX;
+			pNormLengths[e] = distance(normY, normX);
+			
+			double inverse = 1 / (normY * normY + normX * normX);
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int v = 0; v < probeCount; v++) {
+				double u = ((pYs[v] - pYs[e]) * normY + (pXs[v] - pXs[e]) * normX) * inverse;
+				min = Math.min(min, u);
+				max = Math.max(max, u);
+			}
+			pMins[e] = min;
+			pMaxs[e] = max;
+		}
+		
+		AxisAlignedBoundingBox probeBox = probe.boundingBox;
+		
+		collisions.reset(batch.size);
+		for (int i = 0; i < batch.size; i++) {
+			// Reject clear misses on bounding boxes.
+			if (Utils.gt(batch.boxYSs[i], probeBox.yE) || Utils.gt(probeBox.yS, batch.boxYEs[i]) || Utils.gt(batch.boxXSs[i], probeBox.xE) || Utils.gt(probeBox.xS, batch.boxXEs[i])) {
+				continue;
+			}
+			
+			int start = batch.offsets[i];
+			int end = batch.offsets[i + 1];
+			int axisCount = probeCount + (end - start);
+			
+			boolean separated = false;
+			double dist = Double.NEGATIVE_INFINITY;
+			double distNormY = 0;
+			double distNormX = 0;
+			double distNormLength = 1;
+			int distMult = 0;
+			for (int a = 0; a < axisCount; a++) {
+				double originY;
+				double originX;
+				double normY;
+				double normX;
+				double normLength;
+				double min1;
+				double max1;
+				double min2;
+				double max2;
+				if (a < probeCount) {
+					// Axis from the probe, project the batch Polygon.
+					originY = pYs[a];
+					originX = pXs[a];
+					normY = pNormYs[a];
+					normX = pNormXs[a];
+					normLength = pNormLengths[a];
+					min1 = pMins[a];
+					max1 = pMaxs[a];
+					
+					double inverse = 1 / (normY * normY + normX * normX);
+					min2 = Double.POSITIVE_INFINITY;
+					max2 = Double.NEGATIVE_INFINITY;
+					for (int v = start; v < end; v++) {
+						double u = ((batch.ys[v] - originY) * normY + (batch.xs[v] - originX) * normX) * inverse;
+						min2 = Math.min(min2, u);
+						max2 = Math.max(max2, u);
+					}
+				} else {
+					// Axis from the batch Polygon, project the probe.
+					int e = start + (a - probeCount);
+					originY = batch.ys[e];
+					originX = batch.xs[e];
+					normY = batch.normYs[e];
+					normX = batch.normXs[e];
+					normLength = batch.normLengths[e];
+					min2 = batch.ownMins[e];
+					max2 = batch.ownMaxs[e];
+					
+					double inverse = 1 / (normY * normY + normX * normX);
+					min1 = Double.POSITIVE_INFINITY;
+					max1 = Double.NEGATIVE_INFINITY;
+					for (int v = 0; v < probeCount; v++) {
+						double u = ((pYs[v] - originY) * normY + (pXs[v] - originX) * normX) * inverse;
+						min1 = Math.min(min1, u);
+						max1 = Math.max(max1, u);
+					}
+				}
+				
+				if (normLength == 0) {
+					// Degenerate edge, there is no axis to test.
+					continue;
+				}
+				
+				double dist1 = min1 - max2;
+				double dist2 = min2 - max1;
+				
+				if (Utils.gt(dist1, 0) || Utils.gt(dist2, 0)) {
+					separated = true;
+					break;
+				}
+				
+				dist1 = dist1 * normLength;
+				dist2 = dist2 * normLength;
+				
+				boolean closer = false;
+				if (dist1 <= 0 && dist1 > dist) {
+					dist = dist1;
+					distMult = 1;
+					closer = true;
+				}
+				if (dist2 <= 0 && dist2 > dist) {
+					dist = dist2;
+					distMult = -1;
+					closer = true;
+				}
+				if (closer) {
+					distNormY = normY;
+					distNormX = normX;
+					distNormLength = normLength;
+				}
+			}
+			
+			if (!separated) {
+				// Equivalent to getDeltaInDirection(distNorm, dist * distMult).
+				double ratio = distMult == 0 ? 0 : dist * distMult / distNormLength;
+				collisions.set(i, distNormY * ratio, distNormX * ratio);
 			}
 		}
 		
-		return new Segment(new Point(0, 0), getDeltaInDirection(distNorm.pE.y - distNorm.pS.y, distNorm.pE.x - distNorm.pS.x, dist * distMult));
+		return collisions;
 	}
 	
 	/**
@@ -792,7 +1902,7 @@ public abstract class Abstract2DPlane {
 	 * @param polygon
 	 * @return true if the given Polygon is convex, false otherwise.
 	 */
-	private boolean isConvex(Polygon polygon) {
+	boolean isConvex(Polygon polygon) {
 		boolean clockwise = true;
 		
 		List<Point> points = new ArrayList<Point>(polygon.points.size() + 2);
@@ -818,4 +1928,237 @@ public abstract class Abstract2DPlane {
 		
 		return true;
 	}
+
+	/**
+	 * The largest magnitude of a Coord component accepted by the integer lattice methods,
+	 * <code>compare(Coord, Coord, Coord)</code>, <code>collidesAt(Coord, Coord, Coord, Coord)</code>,
+	 * <code>contains(Coord[], Coord)</code> and <code>collides(Coord[], Coord[])</code>.
+	 * Within this limit every intermediate product fits in a <code>long</code>,
+	 * so those methods are exact, and give the same result on every platform.
+	 * Components are not checked against the limit.
+	 */
+	public static final int COORD_LIMIT = 1 << 29;
+
+	/**
+	 * Calculates where the given Coord is,
+	 * relative to the line from Coord s to Coord e.
+	 * The exact integer version of <code>compare(Point, Segment)</code>.
+	 *
+	 * @param p
+	 * @param s
+	 * @param e
+	 * @return -1 if p is to the left of s to e,
+	 * 0 if p, s and e are colinear,
+	 * and 1 if p is to the right of s to e.
+	 */
+	public int compare(Coord p, Coord s, Coord e) {
+		return Long.signum(cross(s.y, s.x, e.y, e.x, p.y, p.x));
+	}
+
+	/**
+	 * Calculates where the Segment from s1S to s1E,
+	 * and the Segment from s2S to s2E intersect.
+	 * The exact integer version of <code>collidesAt(Segment, Segment)</code>.
+	 *
+	 * Each <code>u</code> is returned as a fraction,
+	 * the <code>u</code> of the first Segment is <code>result[0] / result[2]</code>,
+	 * the <code>u</code> of the second Segment is <code>result[1] / result[2]</code>.
+	 * The denominator is always positive,
+	 * so <code>u</code> may be compared to 0 and 1 without dividing.
+	 *
+	 * @param s1S
+	 * @param s1E
+	 * @param s2S
+	 * @param s2E
+	 * @return An array of three (3) long values,
+	 * the numerator of each <code>u</code> followed by their shared denominator,
+	 * or <code>null</code> if the given Segments are parallel.
+	 */
+	public long[] collidesAt(Coord s1S, Coord s1E, Coord s2S, Coord s2E) {
+		long s1YD = (long) s1E.y - s1S.y;
+		long s1XD = (long) s1E.x - s1S.x;
+		long s2YD = (long) s2E.y - s2S.y;
+		long s2XD = (long) s2E.x - s2S.x;
+
+		long denom = (s2YD * s1XD) - (s2XD * s1YD);
+		if (denom == 0) {
+			return null;
+		}
+
+		long startYD = (long) s1S.y - s2S.y;
+		long startXD = (long) s1S.x - s2S.x;
+		long numer1 = (s2XD * startYD) - (s2YD * startXD);
+		long numer2 = (s1XD * startYD) - (s1YD * startXD);
+		if (denom < 0) {
+			return new long[] {-numer1, -numer2, -denom};
+		}
+		return new long[] {numer1, numer2, denom};
+	}
+
+	/**
+	 * Calculates if the Polygon with the given vertices contains the given Coord.
+	 * The exact integer version of <code>contains(Polygon, Point)</code>.
+	 *
+	 * @param polygon The vertices of the Polygon, in order.
+	 * @param point
+	 * @return -1 if point is external to polygon,
+	 * 0 if point is on one of segments in polygon,
+	 * and 1 of point is internal to polygon.
+	 */
+	public int contains(Coord[] polygon, Coord point) {
+		// Cast a ray straight up, counting the edges above the point
+		// that include their left end and exclude their right end.
+		int count = 0;
+		for (int i = 0; i < polygon.length; i++) {
+			Coord s = polygon[i];
+			Coord e = polygon[(i + 1) % polygon.length];
+			long orientation = cross(s.y, s.x, e.y, e.x, point.y, point.x);
+			if (orientation == 0 &&
+					Math.min(s.y, e.y) <= point.y && point.y <= Math.max(s.y, e.y) &&
+					Math.min(s.x, e.x) <= point.x && point.x <= Math.max(s.x, e.x)) {
+				return 0;
+			}
+			if ((s.x > point.x) != (e.x > point.x)) {
+				// Right of the edge drawn left to right is below it.
+				if ((s.x < e.x) ? orientation > 0 : orientation < 0) {
+					count++;
+				}
+			}
+		}
+		return (count % 2 == 0) ? -1 : 1;
+	}
+
+	/**
+	 * Determines if the convex Polygons with the given vertices are colliding.
+	 * The integer version of <code>collides(Polygon, Polygon)</code>.
+	 *
+	 * Projections onto every axis are exact,
+	 * so whether the Polygons collide is decided without tolerance.
+	 * Touching Polygons collide, with a zero length vector.
+	 * Only the depth along each axis, used to pick the smallest vector,
+	 * and the vector itself are calculated with <code>double</code> arithmetic.
+	 *
+	 * @param p1 The vertices of the first Polygon, in order.
+	 * @param p2 The vertices of the second Polygon, in order.
+	 * @return A Segment representing the smallest possible vector,
+	 * that if applied to the second argument,
+	 * will cause the Polygons to no longer collide,
+	 * or null if the Polygons are not colliding.
+	 * @throws IllegalArgumentException If either given Polygon is not convex,
+	 * and their bounds overlap.
+	 */
+	public Segment collides(Coord[] p1, Coord[] p2) {
+		if (!boundsOverlap(p1, p2)) {
+			return null;
+		}
+		if (!isConvex(p1)) {
+			throw new IllegalArgumentException("Polygon " + Arrays.toString(p1) + " is not convex.");
+		}
+		if (!isConvex(p2)) {
+			throw new IllegalArgumentException("Polygon " + Arrays.toString(p2) + " is not convex.");
+		}
+
+		double dist = Double.NEGATIVE_INFINITY;
+		long distNormY = 0;
+		long distNormX = 0;
+		int distMult = 0;
+		int edges = p1.length + p2.length;
+		for (int i = 0; i < edges; i++) {
+			Coord[] owner = (i < p1.length) ? p1 : p2;
+			int index = (i < p1.length) ? i : i - p1.length;
+			Coord s = owner[index];
+			Coord e = owner[(index + 1) % owner.length];
+			// Same normal as used by collides(Polygon, Polygon).
+			long normY = -((long) e.x - s.x);
+			long normX = (long) e.y - s.y;
+
+			long min1 = Long.MAX_VALUE;
+			long max1 = Long.MIN_VALUE;
+			for (Coord point : p1) {
+				long u = point.y * normY + point.x * normX;
+				min1 = Math.min(min1, u);
+				max1 = Math.max(max1, u);
+			}
+			long min2 = Long.MAX_VALUE;
+			long max2 = Long.MIN_VALUE;
+			for (Coord point : p2) {
+				long u = point.y * normY + point.x * normX;
+				min2 = Math.min(min2, u);
+				max2 = Math.max(max2, u);
+			}
+
+			long dist1 = min1 - max2;
+			long dist2 = min2 - max1;
+			if (dist1 > 0 || dist2 > 0) {
+				return null;
+			}
+
+			// Projections are scaled by the squared length of the normal.
+			double scale = distance(normY, normX) / (normY * normY + normX * normX);
+			if (dist1 * scale > dist) {
+				dist = dist1 * scale;
+				distNormY = normY;
+				distNormX = normX;
+				distMult = 1;
+			}
+			if (dist2 * scale > dist) {
+				dist = dist2 * scale;
+				distNormY = normY;
+				distNormX = normX;
+				distMult = -1;
+			}
+		}
+
+		return new Segment(new Point(0, 0), getDeltaInDirection(distNormY, distNormX, dist * distMult));
+	}
+
+	/**
+	 * Determines if the bounding boxes of the Polygons with the given vertices overlap.
+	 */
+	private boolean boundsOverlap(Coord[] p1, Coord[] p2) {
+		int yS1 = Integer.MAX_VALUE, xS1 = Integer.MAX_VALUE, yE1 = Integer.MIN_VALUE, xE1 = Integer.MIN_VALUE;
+		for (Coord point : p1) {
+			yS1 = Math.min(yS1, point.y);
+			xS1 = Math.min(xS1, point.x);
+			yE1 = Math.max(yE1, point.y);
+			xE1 = Math.max(xE1, point.x);
+		}
+		int yS2 = Integer.MAX_VALUE, xS2 = Integer.MAX_VALUE, yE2 = Integer.MIN_VALUE, xE2 = Integer.MIN_VALUE;
+		for (Coord point : p2) {
+			yS2 = Math.min(yS2, point.y);
+			xS2 = Math.min(xS2, point.x);
+			yE2 = Math.max(yE2, point.y);
+			xE2 = Math.max(xE2, point.x);
+		}
+		return yS1 <= yE2 && yS2 <= yE1 && xS1 <= xE2 && xS2 <= xE1;
+	}
+
+	/**
+	 * Determines if the Polygon with the given vertices is convex.
+	 * Colinear vertices are allowed, every turn must otherwise be in the same direction.
+	 */
+	private boolean isConvex(Coord[] polygon) {
+		int turn = 0;
+		for (int i = 0; i < polygon.length; i++) {
+			Coord p1 = polygon[i];
+			Coord p2 = polygon[(i + 1) % polygon.length];
+			Coord p3 = polygon[(i + 2) % polygon.length];
+			int result = Long.signum(cross(p1.y, p1.x, p2.y, p2.x, p3.y, p3.x));
+			if (result != 0) {
+				if (turn != 0 && turn != result) {
+					return false;
+				}
+				turn = result;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns <code>(by - ay) * (cx - ax) - (bx - ax) * (cy - ay)</code>,
+	 * exact for components within <code>COORD_LIMIT</code>.
+	 */
+	private static long cross(long ay, long ax, long by, long bx, long cy, long cx) {
+		return (by - ay) * (cx - ax) - (bx - ax) * (cy - ay);
+	}
 }
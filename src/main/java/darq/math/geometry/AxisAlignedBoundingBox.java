@@ -1,10 +1,12 @@
 package darq.math.geometry;
 
+import darq.math.Utils;
+
 /**
  *
  * @author Craig.Webster
  */
-public class AxisAlignedBoundingBox {
+public class AxisAlignedBoundingBox implements Shape {
 	public final double yS;
 	public final double xS;
 	public final double yE;
@@ -16,4 +18,75 @@ public class AxisAlignedBoundingBox {
 		this.yE = yE;
 		this.xE = xE;
 	}
+
+	/**
+	 * Determines if this box and the given box overlap.
+	 * Boxes that only touch along an edge or at a corner overlap.
+	 *
+	 * @param other
+	 * @return true if the boxes share at least one Point, false otherwise.
+	 */
+	public boolean overlaps(AxisAlignedBoundingBox other) {
+		return Utils.lte(yS, other.yE) && Utils.lte(other.yS, yE) && Utils.lte(xS, other.xE) && Utils.lte(other.xS, xE);
+	}
+
+	/**
+	 * Determines if this box completely contains the given box.
+	 *
+	 * @param other
+	 * @return true if every Point in the given box is in this box, false otherwise.
+	 */
+	public boolean contains(AxisAlignedBoundingBox other) {
+		return Utils.lte(yS, other.yS) && Utils.lte(other.yE, yE) && Utils.lte(xS, other.xS) && Utils.lte(other.xE, xE);
+	}
+
+	/**
+	 * Determines if this box contains the given Point.
+	 * Points on the edge of the box are contained.
+	 *
+	 * @param y
+	 * @param x
+	 * @return true if the Point is in this box, false otherwise.
+	 */
+	public boolean contains(double y, double x) {
+		return Utils.lte(yS, y) && Utils.lte(y, yE) && Utils.lte(xS, x) && Utils.lte(x, xE);
+	}
+
+	public boolean contains(Point point) {
+		return contains(point.y, point.x);
+	}
+
+	/**
+	 * Returns the smallest box containing both this box and the given box.
+	 *
+	 * @param other
+	 * @return The smallest box containing both boxes.
+	 */
+	public AxisAlignedBoundingBox union(AxisAlignedBoundingBox other) {
+		return new AxisAlignedBoundingBox(Math.min(yS, other.yS), Math.min(xS, other.xS), Math.max(yE, other.yE), Math.max(xE, other.xE));
+	}
+
+	/**
+	 * Returns the Polygon with the same corners as this box.
+	 *
+	 * @return The Polygon with the same corners as this box.
+	 */
+	public Polygon toPolygon() {
+		return new Polygon(
+				new Point(yS, xS),
+				new Point(yE, xS),
+				new Point(yE, xE),
+				new Point(yS, xE)
+		);
+	}
+
+	@Override
+	public Type getShapeType() {
+		return Type.BOX;
+	}
+
+	@Override
+	public String toString() {
+		return "AxisAlignedBoundingBox{yS=" + yS + ", xS=" + xS + ", yE=" + yE + ", xE=" + xE + '}';
+	}
 }
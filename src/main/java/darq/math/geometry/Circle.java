@@ -0,0 +1,106 @@
+package darq.math.geometry;
+
+import darq.math.Utils;
+
+/**
+ * A circle, defined by its centre and radius.
+ * The radius is a euclidean distance,
+ * regardless of the plane the circle is used on.
+ *
+ * @author Craig.Webster
+ */
+public class Circle implements Shape {
+	public final Point centre;
+	public final double radius;
+
+	public Circle(Point centre, double radius) {
+		this.centre = centre;
+		this.radius = radius;
+	}
+
+	/**
+	 * Determines if this circle and the given circle overlap.
+	 * Circles that only touch overlap.
+	 *
+	 * @param other
+	 * @return true if the circles share at least one Point, false otherwise.
+	 */
+	public boolean overlaps(Circle other) {
+		return Utils.lte(distance(centre, other.centre), radius + other.radius);
+	}
+
+	/**
+	 * Determines if this circle completely contains the given circle.
+	 *
+	 * @param other
+	 * @return true if every Point in the given circle is in this circle, false otherwise.
+	 */
+	public boolean contains(Circle other) {
+		return Utils.lte(distance(centre, other.centre) + other.radius, radius);
+	}
+
+	/**
+	 * Determines if this circle contains the given Point.
+	 * Points on the edge of the circle are contained.
+	 *
+	 * @param y
+	 * @param x
+	 * @return true if the Point is in this circle, false otherwise.
+	 */
+	public boolean contains(double y, double x) {
+		double yD = y - centre.y;
+		double xD = x - centre.x;
+		return Utils.lte(Math.sqrt(yD * yD + xD * xD), radius);
+	}
+
+	public boolean contains(Point point) {
+		return contains(point.y, point.x);
+	}
+
+	/**
+	 * Returns the smallest circle containing both this circle and the given circle.
+	 *
+	 * @param other
+	 * @return The smallest circle containing both circles.
+	 */
+	public Circle union(Circle other) {
+		if (contains(other)) {
+			return this;
+		}
+		if (other.contains(this)) {
+			return other;
+		}
+
+		// The union spans from the far side of one circle to the far side of the other.
+		double between = distance(centre, other.centre);
+		double radiusU = (between + radius + other.radius) / 2;
+		double ratio = (radiusU - radius) / between;
+		Point centreU = new Point(centre.y + (other.centre.y - centre.y) * ratio, centre.x + (other.centre.x - centre.x) * ratio);
+		return new Circle(centreU, radiusU);
+	}
+
+	/**
+	 * Returns the box bounding this circle.
+	 *
+	 * @return The box bounding this circle.
+	 */
+	public AxisAlignedBoundingBox getBoundingBox() {
+		return new AxisAlignedBoundingBox(centre.y - radius, centre.x - radius, centre.y + radius, centre.x + radius);
+	}
+
+	@Override
+	public Type getShapeType() {
+		return Type.CIRCLE;
+	}
+
+	private static double distance(Point p1, Point p2) {
+		double yD = p2.y - p1.y;
+		double xD = p2.x - p1.x;
+		return Math.sqrt(yD * yD + xD * xD);
+	}
+
+	@Override
+	public String toString() {
+		return "Circle{centre=" + centre + ", radius=" + radius + '}';
+	}
+}
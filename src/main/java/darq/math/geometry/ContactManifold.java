@@ -0,0 +1,54 @@
+package darq.math.geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The contact between two colliding Polygons,
+ * as returned by <code>Abstract2DPlane.getContacts(Polygon, Polygon)</code>.
+ *
+ * @author Craig.Webster
+ */
+public class ContactManifold {
+	/**
+	 * The smallest possible vector, that if applied to the second Polygon,
+	 * will cause the Polygons to no longer collide.
+	 * Identical to the result of <code>Abstract2DPlane.collides(Polygon, Polygon)</code>.
+	 */
+	public final Segment separation;
+	/**
+	 * Up to two (2) contact Points, on the incident edge.
+	 */
+	public final List<Point> points;
+	private final double[] depths;
+
+	public ContactManifold(Segment separation, List<Point> points, List<Double> depths) {
+		this.separation = separation;
+		this.points = Collections.unmodifiableList(new ArrayList<Point>(points));
+		this.depths = new double[depths.size()];
+		for (int i = 0; i < this.depths.length; i++) {
+			this.depths[i] = depths.get(i);
+		}
+	}
+
+	/**
+	 * Returns the depth of the contact Point at the given index,
+	 * the distance it is behind the reference edge.
+	 *
+	 * @param index
+	 * @return The depth of the contact Point at the given index.
+	 */
+	public double getDepth(int index) {
+		return depths[index];
+	}
+
+	@Override
+	public String toString() {
+		List<Double> list = new ArrayList<Double>(depths.length);
+		for (double depth : depths) {
+			list.add(depth);
+		}
+		return "ContactManifold{separation=" + separation + ", points=" + points + ", depths=" + list + '}';
+	}
+}
@@ -21,6 +21,42 @@ public class Coord {
 		return new Point(y, x);
 	}
 
+	/**
+	 * Returns this Coord packed into a single <code>long</code>,
+	 * see <code>pack(int, int)</code>.
+	 *
+	 * @return This Coord packed into a single <code>long</code>.
+	 */
+	public long pack() {
+		return pack(y, x);
+	}
+
+	/**
+	 * Packs the given components into a single <code>long</code>,
+	 * y in the high 32 bits and x in the low 32 bits.
+	 * Packed Coords are equal only if both components are equal,
+	 * and may be stored in primitive arrays and collections without allocating a Coord.
+	 *
+	 * @param y
+	 * @param x
+	 * @return The packed Coord.
+	 */
+	public static long pack(int y, int x) {
+		return ((long) y << 32) | (x & 0xffffffffL);
+	}
+
+	public static int unpackY(long packed) {
+		return (int) (packed >> 32);
+	}
+
+	public static int unpackX(long packed) {
+		return (int) packed;
+	}
+
+	public static Coord unpack(long packed) {
+		return new Coord(unpackY(packed), unpackX(packed));
+	}
+
 	@Override
 	public int hashCode() {
 		int hash = 5;
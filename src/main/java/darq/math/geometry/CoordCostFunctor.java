@@ -0,0 +1,11 @@
+package darq.math.geometry;
+
+/**
+ * Returns the cost of entering a hex.
+ * Costs must be positive, a cost of 0 or less marks the hex as impassable.
+ *
+ * @author Craig.Webster
+ */
+public interface CoordCostFunctor {
+	public int cost(int y, int x);
+}
@@ -0,0 +1,323 @@
+package darq.math.geometry;
+
+import darq.math.util.LongMinHeap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * The distance from every hex in a hexagonal region to the nearest of a set of source hexes,
+ * and the flow field derived from it, giving each hex the hexant of its next step towards a source.
+ * Many agents heading for the same sources can share one field instead of each searching for a path.
+ *
+ * The region is every hex within a radius of its centre,
+ * and both arrays are dense, indexed by spiral position around the centre,
+ * as defined in the documentation of <code>Hexagonal2DPlane</code>.
+ *
+ * A field may be computed again, with other sources or passability, without reallocating.
+ *
+ * @author Craig.Webster
+ */
+public class HexDistanceField {
+	/**
+	 * The distance of hexes that can not reach a source.
+	 */
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+	/**
+	 * The flow of sources and hexes that can not reach a source.
+	 */
+	public static final byte NO_HEXANT = -1;
+
+	public final Hexagonal2DPlane plane;
+	public final Coord centre;
+	public final int radius;
+
+	private final int[] distances;
+	private final byte[] flow;
+
+	/**
+	 * Creates a field with every hex unreachable.
+	 *
+	 * @param plane
+	 * @param centre The centre of the region.
+	 * @param radius The radius of the region.
+	 * @throws IllegalArgumentException If the radius is negative.
+	 */
+	public HexDistanceField(Hexagonal2DPlane plane, Coord centre, int radius) {
+		if (radius < 0) {
+			throw new IllegalArgumentException("Radius " + radius + " is negative.");
+		}
+		this.plane = plane;
+		this.centre = centre;
+		this.radius = radius;
+		this.distances = new int[Hexagonal2DPlane.spiralOffset(radius + 1)];
+		this.flow = new byte[distances.length];
+		Arrays.fill(distances, UNREACHABLE);
+		Arrays.fill(flow, NO_HEXANT);
+	}
+
+	/**
+	 * Computes the number of steps from every hex to the nearest source,
+	 * stepping only onto hexes that pass the check.
+	 * Sources are not checked.
+	 *
+	 * The field is filled breadth first, one wavefront of equal distance at a time.
+	 * Wavefronts of more than <code>Abstract2DPlane.BULK_CHUNK</code> hexes are split into chunks,
+	 * which are expanded in parallel, so the check must then be thread safe.
+	 * It is called at most once per hex.
+	 *
+	 * @param sources The packed Coords of the sources, see <code>Coord.pack(int, int)</code>.
+	 * @param check Returns true if a hex is passable.
+	 * @throws IllegalArgumentException If a source is outside the region.
+	 */
+	public void compute(long[] sources, CoordCheckFunctor check) {
+		Arrays.fill(distances, UNREACHABLE);
+		AtomicIntegerArray claimed = new AtomicIntegerArray((distances.length + 31) >>> 5);
+
+		int[] frontier = new int[sources.length];
+		int count = 0;
+		for (long source : sources) {
+			int index = index(source);
+			if (claim(claimed, index)) {
+				distances[index] = 0;
+				frontier[count++] = index;
+			}
+		}
+		frontier = Arrays.copyOf(frontier, count);
+
+		for (int distance = 1; frontier.length > 0; distance++) {
+			final int[] current = frontier;
+			final int next = distance;
+			int chunks = (current.length + Abstract2DPlane.BULK_CHUNK - 1) / Abstract2DPlane.BULK_CHUNK;
+			IntStream stream = IntStream.range(0, chunks);
+			if (chunks > 1) {
+				stream = stream.parallel();
+			}
+			int[][] expanded = stream.mapToObj(chunk -> {
+				int from = chunk * Abstract2DPlane.BULK_CHUNK;
+				return expand(current, from, Math.min(from + Abstract2DPlane.BULK_CHUNK, current.length), next, claimed, check);
+			}).toArray(int[][]::new);
+
+			count = 0;
+			for (int[] part : expanded) {
+				count += part.length;
+			}
+			frontier = new int[count];
+			count = 0;
+			for (int[] part : expanded) {
+				System.arraycopy(part, 0, frontier, count, part.length);
+				count += part.length;
+			}
+		}
+
+		// Each hex flows to the first neighbour one step nearer a source.
+		int chunks = (distances.length + Abstract2DPlane.BULK_CHUNK - 1) / Abstract2DPlane.BULK_CHUNK;
+		IntStream.range(0, chunks).parallel().forEach(chunk -> {
+			int from = chunk * Abstract2DPlane.BULK_CHUNK;
+			int to = Math.min(from + Abstract2DPlane.BULK_CHUNK, distances.length);
+			for (int index = from; index < to; index++) {
+				flow[index] = downhill(index);
+			}
+		});
+	}
+
+	/**
+	 * Computes the lowest cost from every hex to the nearest source,
+	 * each step costing the cost of the hex stepped onto, sources included.
+	 * Hexes with a cost of 0 or less are impassable, and unreachable unless they are sources.
+	 *
+	 * Costs are settled in order with a heap (Dijkstra's algorithm), which is sequential.
+	 * The cost function is called at most once per hex.
+	 *
+	 * @param sources The packed Coords of the sources, see <code>Coord.pack(int, int)</code>.
+	 * @param cost Returns the cost of entering a hex, 0 or less if impassable.
+	 * @throws IllegalArgumentException If a source is outside the region.
+	 */
+	public void computeByCost(long[] sources, CoordCostFunctor cost) {
+		Arrays.fill(distances, UNREACHABLE);
+		Arrays.fill(flow, NO_HEXANT);
+		BitSet settled = new BitSet(distances.length);
+		LongMinHeap heap = new LongMinHeap();
+		for (long source : sources) {
+			int index = index(source);
+			distances[index] = 0;
+			heap.add(0, index);
+		}
+
+		while (!heap.isEmpty()) {
+			long total = heap.peekPriority();
+			int index = (int) heap.poll();
+			if (settled.get(index) || total > distances[index]) {
+				continue;
+			}
+			settled.set(index);
+			long delta = plane.getCoordBySpiral(index);
+			int y = centre.y + Coord.unpackY(delta);
+			int x = centre.x + Coord.unpackX(delta);
+			int entryCost = cost.cost(y, x);
+			if (entryCost <= 0) {
+				if (total > 0) {
+					// Reached, but impassable.
+					distances[index] = UNREACHABLE;
+					flow[index] = NO_HEXANT;
+				}
+				continue;
+			}
+
+			for (int hexant = 0; hexant < 6; hexant++) {
+				Coord step = plane.getHexantStart(hexant);
+				int nextY = y + step.y;
+				int nextX = x + step.x;
+				if (plane.distance(nextY - centre.y, nextX - centre.x) > radius) {
+					continue;
+				}
+				int next = plane.getSpiralPosition(nextY - centre.y, nextX - centre.x);
+				if (settled.get(next) || total + entryCost >= distances[next]) {
+					continue;
+				}
+				distances[next] = (int) (total + entryCost);
+				// The neighbour flows back the way it was reached.
+				flow[next] = (byte) ((hexant + 3) % 6);
+				heap.add(total + entryCost, next);
+			}
+		}
+	}
+
+	/**
+	 * Returns the distance from the given hex to the nearest source.
+	 *
+	 * @param y
+	 * @param x
+	 * @return The distance to the nearest source, or UNREACHABLE if there is none, or the hex is outside the region.
+	 */
+	public int getDistance(int y, int x) {
+		int index = getIndex(y, x);
+		return (index < 0) ? UNREACHABLE : distances[index];
+	}
+
+	/**
+	 * Returns the hexant of the next step from the given hex towards the nearest source,
+	 * see <code>Hexagonal2DPlane.getHexantStart(int)</code>.
+	 *
+	 * @param y
+	 * @param x
+	 * @return The hexant of the next step, or NO_HEXANT for a source, a hex that can not reach a source,
+	 * or a hex outside the region.
+	 */
+	public int getHexant(int y, int x) {
+		int index = getIndex(y, x);
+		return (index < 0) ? NO_HEXANT : flow[index];
+	}
+
+	/**
+	 * Returns the spiral position of the given hex around the centre.
+	 *
+	 * @param y
+	 * @param x
+	 * @return The spiral position of the given hex, or -1 if it is outside the region.
+	 */
+	public int getIndex(int y, int x) {
+		if (plane.distance(y - centre.y, x - centre.x) > radius) {
+			return -1;
+		}
+		return plane.getSpiralPosition(y - centre.y, x - centre.x);
+	}
+
+	/**
+	 * Returns the distances by spiral position.
+	 * The array is the field's own, and must not be modified.
+	 *
+	 * @return The distances by spiral position.
+	 */
+	public int[] getDistances() {
+		return distances;
+	}
+
+	/**
+	 * Returns the hexants of the next steps by spiral position.
+	 * The array is the field's own, and must not be modified.
+	 *
+	 * @return The hexants of the next steps by spiral position.
+	 */
+	public byte[] getFlow() {
+		return flow;
+	}
+
+	private int index(long source) {
+		int index = getIndex(Coord.unpackY(source), Coord.unpackX(source));
+		if (index < 0) {
+			throw new IllegalArgumentException("Source " + Coord.unpack(source) + " is outside the region.");
+		}
+		return index;
+	}
+
+	/**
+	 * Claims a hex for the wavefront that reaches it first.
+	 */
+	private static boolean claim(AtomicIntegerArray claimed, int index) {
+		int word = index >>> 5;
+		int bit = 1 << (index & 31);
+		while (true) {
+			int old = claimed.get(word);
+			if ((old & bit) != 0) {
+				return false;
+			}
+			if (claimed.compareAndSet(word, old, old | bit)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Expands part of a wavefront, returning the spiral positions of the passable hexes it claimed.
+	 */
+	private int[] expand(int[] frontier, int from, int to, int distance, AtomicIntegerArray claimed, CoordCheckFunctor check) {
+		int[] reached = new int[Math.max((to - from) * 2, 6)];
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			long delta = plane.getCoordBySpiral(frontier[i]);
+			int y = Coord.unpackY(delta);
+			int x = Coord.unpackX(delta);
+			for (int hexant = 0; hexant < 6; hexant++) {
+				Coord step = plane.getHexantStart(hexant);
+				int nextY = y + step.y;
+				int nextX = x + step.x;
+				if (plane.distance(nextY, nextX) > radius) {
+					continue;
+				}
+				int next = plane.getSpiralPosition(nextY, nextX);
+				if (!claim(claimed, next) || !check.check(centre.y + nextY, centre.x + nextX)) {
+					continue;
+				}
+				distances[next] = distance;
+				if (count == reached.length) {
+					reached = Arrays.copyOf(reached, count * 2);
+				}
+				reached[count++] = next;
+			}
+		}
+		return Arrays.copyOf(reached, count);
+	}
+
+	/**
+	 * Returns the first hexant towards a neighbour one step nearer a source.
+	 */
+	private byte downhill(int index) {
+		int distance = distances[index];
+		if (distance == 0 || distance == UNREACHABLE) {
+			return NO_HEXANT;
+		}
+		long delta = plane.getCoordBySpiral(index);
+		int y = Coord.unpackY(delta);
+		int x = Coord.unpackX(delta);
+		for (int hexant = 0; hexant < 6; hexant++) {
+			Coord step = plane.getHexantStart(hexant);
+			if (plane.distance(y + step.y, x + step.x) <= radius
+					&& distances[plane.getSpiralPosition(y + step.y, x + step.x)] == distance - 1) {
+				return (byte) hexant;
+			}
+		}
+		return NO_HEXANT;
+	}
+}
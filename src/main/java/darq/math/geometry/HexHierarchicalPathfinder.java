@@ -0,0 +1,642 @@
+package darq.math.geometry;
+
+import darq.math.util.LongIntMap;
+import darq.math.util.LongMinHeap;
+import darq.math.util.LongQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds paths across a large hexagonal map using a cached cluster abstraction (HPA*).
+ *
+ * The map is every hex within a radius of its centre.
+ * It is tiled by hexagonal clusters of a smaller radius,
+ * the cluster with lattice position <code>(a, b)</code> being centred
+ * <code>a * (R, 2R + 1) + b * (-R - 1, R)</code> from the centre of the map.
+ * Each run of passable hexes along the border between two clusters gets one entrance,
+ * a pair of adjacent hexes one either side, in the middle of the run.
+ * The distances between the entrances of a cluster, staying inside the cluster,
+ * are computed the first time the cluster is searched and then cached.
+ *
+ * A query searches the graph of entrances with A*, then refines each step into hexes,
+ * so the search grows with the number of clusters crossed rather than the number of hexes.
+ * Paths are close to, but not always, the shortest.
+ *
+ * When the passability of a hex changes, call <code>invalidate(int, int)</code>,
+ * which discards the cached entrances and distances of its cluster and the neighbouring clusters only.
+ * A pathfinder is not thread safe.
+ *
+ * @author Craig.Webster
+ */
+public class HexHierarchicalPathfinder {
+	/**
+	 * Lattice offsets of the six neighbouring clusters.
+	 * A cluster owns the borders in the first three directions,
+	 * the border in direction <code>d + 3</code> is owned by that neighbour, in direction <code>d</code>.
+	 */
+	private static final int[][] neighbours = {
+		{ 1,  0},
+		{ 0,  1},
+		{ 1, -1},
+		{-1,  0},
+		{ 0, -1},
+		{-1,  1},
+	};
+
+	/**
+	 * No hex across the border.
+	 * This packs a y of <code>Integer.MIN_VALUE</code>, which is never inside a map.
+	 */
+	private static final long NONE = Long.MIN_VALUE;
+
+	public final Hexagonal2DPlane plane;
+	public final Coord centre;
+	public final int mapRadius;
+	public final int clusterRadius;
+	private final CoordCheckFunctor check;
+
+	private final LongIntMap clusterIndexes = new LongIntMap();
+	private final List<Cluster> clusters = new ArrayList<Cluster>();
+	private int builds;
+
+	/**
+	 * Breadth first search state within one cluster, by spiral position around its centre:
+	 * the steps from the start (-1 if not reached, -2 if impassable),
+	 * and the hexant of the step into each hex.
+	 */
+	private final int[] steps;
+	private final int[] directions;
+	private final LongQueue queue = new LongQueue();
+
+	/**
+	 * A* state over the entrances, as in <code>HexPathfinder</code>.
+	 */
+	private final LongMinHeap open = new LongMinHeap();
+	private final LongIntMap nodes = new LongIntMap();
+	private int[] costs = new int[16];
+	private long[] previous = new long[16];
+	private boolean[] closed = new boolean[16];
+	private int count;
+
+	/**
+	 * @param plane
+	 * @param centre The centre of the map.
+	 * @param mapRadius The radius of the map.
+	 * @param clusterRadius The radius of each cluster.
+	 * @param check Returns true if a hex is passable.
+	 * @throws IllegalArgumentException If the map radius is negative, or the cluster radius is less than 1.
+	 */
+	public HexHierarchicalPathfinder(Hexagonal2DPlane plane, Coord centre, int mapRadius, int clusterRadius, CoordCheckFunctor check) {
+		if (mapRadius < 0) {
+			throw new IllegalArgumentException("Map radius " + mapRadius + " is negative.");
+		}
+		if (clusterRadius < 1) {
+			throw new IllegalArgumentException("Cluster radius " + clusterRadius + " is less than 1.");
+		}
+		this.plane = plane;
+		this.centre = centre;
+		this.mapRadius = mapRadius;
+		this.clusterRadius = clusterRadius;
+		this.check = check;
+		this.steps = new int[Hexagonal2DPlane.spiralOffset(clusterRadius + 1)];
+		this.directions = new int[steps.length];
+	}
+
+	/**
+	 * Finds a path from one hex to another, stepping only onto passable hexes inside the map.
+	 * The start hex is not checked.
+	 *
+	 * @param from
+	 * @param to
+	 * @return The path as pairs of y and x, from the start hex to the end hex inclusive,
+	 * or null if there is no path.
+	 * @throws IllegalArgumentException If either hex is outside the map.
+	 */
+	public int[] findPath(Coord from, Coord to) {
+		if (!inMap(from.y, from.x) || !inMap(to.y, to.x)) {
+			throw new IllegalArgumentException("Path from " + from + " to " + to + " leaves the map.");
+		}
+		if (from.equals(to)) {
+			return new int[] {from.y, from.x};
+		}
+		if (!check.check(to.y, to.x)) {
+			return null;
+		}
+
+		long start = from.pack();
+		long goal = to.pack();
+		Cluster startCluster = clusterOf(from.y, from.x);
+		Cluster goalCluster = clusterOf(to.y, to.x);
+		ensureGraph(startCluster);
+		ensureGraph(goalCluster);
+		// Steps from the start and end hexes to every hex of their clusters.
+		search(goalCluster, to.y, to.x);
+		int[] goalSteps = steps.clone();
+		search(startCluster, from.y, from.x);
+		int[] startSteps = steps.clone();
+
+		clear();
+		node(start);
+		costs[0] = 0;
+		previous[0] = start;
+		open.add(priority(0, heuristic(start, to)), start);
+		while (!open.isEmpty()) {
+			long cell = open.poll();
+			int node = nodes.get(cell, -1);
+			if (closed[node]) {
+				continue;
+			}
+			closed[node] = true;
+			if (cell == goal) {
+				return refine(waypoints(start, goal));
+			}
+
+			int total = costs[node];
+			Cluster cluster = clusterOf(Coord.unpackY(cell), Coord.unpackX(cell));
+			ensureGraph(cluster);
+			int size = cluster.nodes.length;
+			int i = indexOf(cluster.nodes, cell);
+			if (i >= 0) {
+				for (int j = 0; j < size; j++) {
+					relax(cell, total, cluster.nodes[j], cluster.distances[i * size + j], to);
+				}
+				if (cluster == goalCluster) {
+					relax(cell, total, goal, goalSteps[index(cluster, cell)], to);
+				}
+			} else {
+				// The start hex, or a hex next to it, searched directly.
+				int[] cellSteps = startSteps;
+				if (cell != start) {
+					search(cluster, Coord.unpackY(cell), Coord.unpackX(cell));
+					cellSteps = steps;
+				}
+				for (int j = 0; j < size; j++) {
+					relax(cell, total, cluster.nodes[j], cellSteps[index(cluster, cluster.nodes[j])], to);
+				}
+				if (cluster == goalCluster) {
+					relax(cell, total, goal, cellSteps[index(cluster, goal)], to);
+				}
+			}
+			if (cell == start) {
+				// The start hex is not checked, so it may have no entrance of its own.
+				int startY = Coord.unpackY(start);
+				int startX = Coord.unpackX(start);
+				for (int hexant = 0; hexant < 6; hexant++) {
+					Coord step = plane.getHexantStart(hexant);
+					if (!contains(cluster, startY + step.y, startX + step.x) && passable(startY + step.y, startX + step.x)) {
+						relax(cell, total, Coord.pack(startY + step.y, startX + step.x), 1, to);
+					}
+				}
+			}
+			for (int e = 0; e < cluster.entrances.length; e += 2) {
+				if (cluster.entrances[e] == cell) {
+					relax(cell, total, cluster.entrances[e + 1], 1, to);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Discards the cached entrances and distances around the given hex,
+	 * after its passability has changed.
+	 *
+	 * @param y
+	 * @param x
+	 */
+	public void invalidate(int y, int x) {
+		if (!inMap(y, x)) {
+			return;
+		}
+		Cluster cluster = clusterOf(y, x);
+		cluster.dirty();
+		for (int[] neighbour : neighbours) {
+			int index = clusterIndexes.get(Coord.pack(cluster.a + neighbour[0], cluster.b + neighbour[1]), -1);
+			if (index >= 0) {
+				clusters.get(index).dirty();
+			}
+		}
+	}
+
+	/**
+	 * Discards all cached entrances and distances.
+	 */
+	public void invalidate() {
+		for (Cluster cluster : clusters) {
+			cluster.dirty();
+		}
+	}
+
+	/**
+	 * Returns the number of times the entrances and distances of a cluster have been computed.
+	 *
+	 * @return The number of times the entrances and distances of a cluster have been computed.
+	 */
+	public int getClusterBuilds() {
+		return builds;
+	}
+
+	/**
+	 * Returns the centre of the cluster containing the given hex.
+	 *
+	 * @param y
+	 * @param x
+	 * @return The centre of the cluster containing the given hex.
+	 */
+	public Coord getClusterCentre(int y, int x) {
+		Cluster cluster = clusterOf(y, x);
+		return new Coord(cluster.centreY, cluster.centreX);
+	}
+
+	private boolean inMap(int y, int x) {
+		return plane.distance(y - centre.y, x - centre.x) <= mapRadius;
+	}
+
+	private boolean passable(int y, int x) {
+		return inMap(y, x) && check.check(y, x);
+	}
+
+	private boolean contains(Cluster cluster, int y, int x) {
+		return plane.distance(y - cluster.centreY, x - cluster.centreX) <= clusterRadius;
+	}
+
+	private int index(Cluster cluster, long cell) {
+		return plane.getSpiralPosition(Coord.unpackY(cell) - cluster.centreY, Coord.unpackX(cell) - cluster.centreX);
+	}
+
+	/**
+	 * Returns the cluster containing the given hex.
+	 * The lattice position is found by inverting the lattice vectors,
+	 * and the containing cluster is one of the four around the rounded down position.
+	 */
+	private Cluster clusterOf(int y, int x) {
+		long radius = clusterRadius;
+		long yD = y - centre.y;
+		long xD = x - centre.x;
+		long determinant = 3 * radius * radius + 3 * radius + 1;
+		int a = (int) Math.floorDiv(radius * yD + (radius + 1) * xD, determinant);
+		int b = (int) Math.floorDiv(-(2 * radius + 1) * yD + radius * xD, determinant);
+		for (int aD = 0; aD < 2; aD++) {
+			for (int bD = 0; bD < 2; bD++) {
+				Cluster cluster = cluster(a + aD, b + bD);
+				if (contains(cluster, y, x)) {
+					return cluster;
+				}
+			}
+		}
+		throw new IllegalStateException("No cluster contains " + y + ", " + x + ".");
+	}
+
+	private Cluster cluster(int a, int b) {
+		long key = Coord.pack(a, b);
+		int index = clusterIndexes.get(key, -1);
+		if (index < 0) {
+			index = clusters.size();
+			clusters.add(new Cluster(a, b,
+					centre.y + a * clusterRadius - b * (clusterRadius + 1),
+					centre.x + a * (2 * clusterRadius + 1) + b * clusterRadius));
+			clusterIndexes.put(key, index);
+		}
+		return clusters.get(index);
+	}
+
+	private Cluster neighbour(Cluster cluster, int direction) {
+		return cluster(cluster.a + neighbours[direction][0], cluster.b + neighbours[direction][1]);
+	}
+
+	private void ensureBorders(Cluster cluster) {
+		if (cluster.bordersDirty) {
+			for (int d = 0; d < 3; d++) {
+				cluster.borders[d] = traceBorder(cluster, neighbour(cluster, d));
+			}
+			cluster.bordersDirty = false;
+		}
+	}
+
+	/**
+	 * Computes the entrances of the cluster and the distances between them, if not cached.
+	 */
+	private void ensureGraph(Cluster cluster) {
+		ensureBorders(cluster);
+		for (int d = 3; d < 6; d++) {
+			ensureBorders(neighbour(cluster, d));
+		}
+		if (!cluster.graphDirty) {
+			return;
+		}
+
+		// Entrances on owned borders, then on the neighbours' borders, swapped.
+		int length = 0;
+		for (int d = 0; d < 6; d++) {
+			length += (d < 3) ? cluster.borders[d].length : neighbour(cluster, d).borders[d - 3].length;
+		}
+		long[] entrances = new long[length];
+		long[] inside = new long[length / 2];
+		int size = 0;
+		int e = 0;
+		for (int d = 0; d < 6; d++) {
+			long[] border = (d < 3) ? cluster.borders[d] : neighbour(cluster, d).borders[d - 3];
+			int swap = (d < 3) ? 0 : 1;
+			for (int i = 0; i < border.length; i += 2) {
+				entrances[e] = border[i + swap];
+				entrances[e + 1] = border[i + 1 - swap];
+				if (indexOf(inside, size, entrances[e]) < 0) {
+					inside[size++] = entrances[e];
+				}
+				e += 2;
+			}
+		}
+		cluster.entrances = entrances;
+		cluster.nodes = Arrays.copyOf(inside, size);
+
+		cluster.distances = new int[size * size];
+		for (int i = 0; i < size; i++) {
+			search(cluster, Coord.unpackY(cluster.nodes[i]), Coord.unpackX(cluster.nodes[i]));
+			for (int j = 0; j < size; j++) {
+				cluster.distances[i * size + j] = steps[index(cluster, cluster.nodes[j])];
+			}
+		}
+		cluster.graphDirty = false;
+		builds++;
+	}
+
+	/**
+	 * Finds the entrances between a cluster and a neighbouring cluster,
+	 * walking around the outer ring of the cluster, in circle position order.
+	 * A run continues while each hex has a passable neighbour across the border
+	 * next to (or the same as) the previous hex's, so both sides of a run are connected.
+	 *
+	 * @return Pairs of packed Coords, the hex inside the cluster then the hex inside the neighbour.
+	 */
+	private long[] traceBorder(Cluster cluster, Cluster neighbour) {
+		int ringSize = 6 * clusterRadius;
+		long[] outside = new long[ringSize];
+		long[] entrances = new long[4];
+		int count = 0;
+
+		// Start from a hex with no way across, so no run wraps around.
+		int first = 0;
+		while (first < ringSize && across(cluster, neighbour, first, 0, false) != NONE) {
+			first++;
+		}
+
+		int runStart = -1;
+		long last = 0;
+		for (int i = 1; i <= ringSize; i++) {
+			int position = (first + i) % ringSize;
+			long next = (i < ringSize) ? across(cluster, neighbour, position, last, runStart >= 0) : NONE;
+			boolean joined = next != NONE && runStart >= 0 && plane.distance(Coord.unpackY(next) - Coord.unpackY(last), Coord.unpackX(next) - Coord.unpackX(last)) <= 1;
+			if (runStart >= 0 && !joined) {
+				// End the run with an entrance at its middle.
+				int middle = (runStart + i - 1) / 2;
+				if (count == entrances.length) {
+					entrances = Arrays.copyOf(entrances, count * 2);
+				}
+				entrances[count++] = ringCell(cluster, (first + middle) % ringSize);
+				entrances[count++] = outside[middle];
+				runStart = -1;
+			}
+			if (next != NONE && runStart < 0) {
+				runStart = i;
+			}
+			if (next != NONE) {
+				outside[i] = next;
+				last = next;
+			}
+		}
+		return Arrays.copyOf(entrances, count);
+	}
+
+	/**
+	 * Returns the packed Coord of a passable hex in the neighbour next to the given ring hex,
+	 * preferring one next to the previous hex across if continuing a run,
+	 * or NONE if there is none.
+	 */
+	private long across(Cluster cluster, Cluster neighbour, int position, long last, boolean continuing) {
+		long cell = ringCell(cluster, position);
+		int y = Coord.unpackY(cell);
+		int x = Coord.unpackX(cell);
+		if (!passable(y, x)) {
+			return NONE;
+		}
+		long found = NONE;
+		for (int hexant = 0; hexant < 6; hexant++) {
+			Coord step = plane.getHexantStart(hexant);
+			int nextY = y + step.y;
+			int nextX = x + step.x;
+			if (!contains(neighbour, nextY, nextX) || !passable(nextY, nextX)) {
+				continue;
+			}
+			long next = Coord.pack(nextY, nextX);
+			if (!continuing || plane.distance(nextY - Coord.unpackY(last), nextX - Coord.unpackX(last)) <= 1) {
+				return next;
+			}
+			if (found == NONE) {
+				found = next;
+			}
+		}
+		return found;
+	}
+
+	private long ringCell(Cluster cluster, int position) {
+		int hexant = position / clusterRadius;
+		int step = position % clusterRadius;
+		Coord start = plane.getHexantStart(hexant);
+		Coord forward = plane.getHexantForward(hexant);
+		return Coord.pack(
+				cluster.centreY + start.y * clusterRadius + forward.y * step,
+				cluster.centreX + start.x * clusterRadius + forward.x * step);
+	}
+
+	/**
+	 * Breadth first search from the given hex, staying inside the cluster and the map,
+	 * filling in the steps and directions.
+	 */
+	private void search(Cluster cluster, int y, int x) {
+		Arrays.fill(steps, -1);
+		queue.clear();
+		int start = plane.getSpiralPosition(y - cluster.centreY, x - cluster.centreX);
+		steps[start] = 0;
+		directions[start] = -1;
+		queue.add(Coord.pack(y, x));
+		while (!queue.isEmpty()) {
+			long cell = queue.poll();
+			int cellY = Coord.unpackY(cell);
+			int cellX = Coord.unpackX(cell);
+			int total = steps[index(cluster, cell)];
+			for (int hexant = 0; hexant < 6; hexant++) {
+				Coord step = plane.getHexantStart(hexant);
+				int nextY = cellY + step.y;
+				int nextX = cellX + step.x;
+				if (!contains(cluster, nextY, nextX)) {
+					continue;
+				}
+				int index = plane.getSpiralPosition(nextY - cluster.centreY, nextX - cluster.centreX);
+				if (steps[index] != -1) {
+					continue;
+				}
+				if (!passable(nextY, nextX)) {
+					steps[index] = -2;
+					continue;
+				}
+				steps[index] = total + 1;
+				directions[index] = hexant;
+				queue.add(Coord.pack(nextY, nextX));
+			}
+		}
+	}
+
+	private void clear() {
+		open.clear();
+		nodes.clear();
+		count = 0;
+	}
+
+	private int node(long cell) {
+		if (count == costs.length) {
+			costs = Arrays.copyOf(costs, count * 2);
+			previous = Arrays.copyOf(previous, count * 2);
+			closed = Arrays.copyOf(closed, count * 2);
+		}
+		costs[count] = Integer.MAX_VALUE;
+		closed[count] = false;
+		nodes.put(cell, count);
+		return count++;
+	}
+
+	private void relax(long from, int total, long to, int cost, Coord goal) {
+		if (cost <= 0) {
+			// Unreachable, or the same hex.
+			return;
+		}
+		int node = nodes.get(to, -1);
+		if (node < 0) {
+			node = node(to);
+		}
+		if (closed[node] || total + cost >= costs[node]) {
+			return;
+		}
+		costs[node] = total + cost;
+		previous[node] = from;
+		open.add(priority(total + cost, total + cost + heuristic(to, goal)), to);
+	}
+
+	private int heuristic(long cell, Coord goal) {
+		return (int) plane.distance(goal.y - Coord.unpackY(cell), goal.x - Coord.unpackX(cell));
+	}
+
+	private static long priority(int total, int estimate) {
+		return ((long) estimate << 32) - total;
+	}
+
+	/**
+	 * Follows the previous entrances back from the end hex.
+	 */
+	private long[] waypoints(long start, long goal) {
+		int length = 1;
+		for (long cell = goal; cell != start; cell = previous[nodes.get(cell, -1)]) {
+			length++;
+		}
+		long[] waypoints = new long[length];
+		long cell = goal;
+		for (int i = length - 1; i >= 0; i--) {
+			waypoints[i] = cell;
+			cell = previous[nodes.get(cell, -1)];
+		}
+		return waypoints;
+	}
+
+	/**
+	 * Expands each step between entrances into hexes.
+	 * Steps between clusters are already adjacent,
+	 * steps inside a cluster follow the breadth first search back from the end.
+	 */
+	private int[] refine(long[] waypoints) {
+		int[] path = new int[16];
+		int length = 0;
+		path[length++] = Coord.unpackY(waypoints[0]);
+		path[length++] = Coord.unpackX(waypoints[0]);
+		for (int w = 1; w < waypoints.length; w++) {
+			int fromY = Coord.unpackY(waypoints[w - 1]);
+			int fromX = Coord.unpackX(waypoints[w - 1]);
+			int toY = Coord.unpackY(waypoints[w]);
+			int toX = Coord.unpackX(waypoints[w]);
+			Cluster cluster = clusterOf(fromY, fromX);
+			int segment = 1;
+			if (cluster == clusterOf(toY, toX)) {
+				search(cluster, fromY, fromX);
+				segment = steps[index(cluster, waypoints[w])];
+			}
+			if (length + segment * 2 > path.length) {
+				path = Arrays.copyOf(path, Math.max(path.length * 2, length + segment * 2));
+			}
+			// Fill the segment in backwards, from the end hex.
+			int y = toY;
+			int x = toX;
+			for (int s = segment - 1; s >= 0; s--) {
+				path[length + s * 2] = y;
+				path[length + s * 2 + 1] = x;
+				if (s > 0) {
+					Coord step = plane.getHexantStart(directions[plane.getSpiralPosition(y - cluster.centreY, x - cluster.centreX)]);
+					y -= step.y;
+					x -= step.x;
+				}
+			}
+			length += segment * 2;
+		}
+		return Arrays.copyOf(path, length);
+	}
+
+	private static int indexOf(long[] values, long value) {
+		return indexOf(values, values.length, value);
+	}
+
+	private static int indexOf(long[] values, int length, long value) {
+		for (int i = 0; i < length; i++) {
+			if (values[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The cached abstraction of one cluster.
+	 */
+	private static class Cluster {
+		final int a;
+		final int b;
+		final int centreY;
+		final int centreX;
+
+		boolean bordersDirty = true;
+		boolean graphDirty = true;
+		/**
+		 * Entrances on the owned borders, see <code>traceBorder</code>.
+		 */
+		final long[][] borders = new long[3][];
+		/**
+		 * All entrances of the cluster, as pairs of the hex inside then the hex outside.
+		 */
+		long[] entrances;
+		/**
+		 * The distinct hexes inside the cluster with entrances,
+		 * and the steps between each pair of them, -1 if unreachable.
+		 */
+		long[] nodes;
+		int[] distances;
+
+		Cluster(int a, int b, int centreY, int centreX) {
+			this.a = a;
+			this.b = b;
+			this.centreY = centreY;
+			this.centreX = centreX;
+		}
+
+		void dirty() {
+			bordersDirty = true;
+			graphDirty = true;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package darq.math.geometry;
+
+/**
+ * Per hex storage for every hex within a radius of a centre hex,
+ * kept in a dense primitive array indexed by spiral position around the centre,
+ * as defined in the documentation of <code>Hexagonal2DPlane</code>.
+ * Getting and setting a hex is constant time, and allocates nothing.
+ *
+ * Subclasses hold the values, see <code>IntHexMap</code>, <code>FloatHexMap</code>,
+ * <code>LongHexMap</code> and <code>ObjectHexMap</code>.
+ *
+ * @author Craig.Webster
+ */
+public abstract class HexMap {
+	public final Hexagonal2DPlane plane;
+	public final Coord centre;
+	public final int radius;
+
+	/**
+	 * @param plane
+	 * @param centre The centre of the map.
+	 * @param radius The radius of the map.
+	 * @throws IllegalArgumentException If the radius is negative.
+	 */
+	protected HexMap(Hexagonal2DPlane plane, Coord centre, int radius) {
+		if (radius < 0) {
+			throw new IllegalArgumentException("Radius " + radius + " is negative.");
+		}
+		this.plane = plane;
+		this.centre = centre;
+		this.radius = radius;
+	}
+
+	/**
+	 * Returns the number of hexes in the map, <code>3R(R + 1) + 1</code>.
+	 *
+	 * @return The number of hexes in the map.
+	 */
+	public int size() {
+		return Hexagonal2DPlane.spiralOffset(radius + 1);
+	}
+
+	public boolean contains(int y, int x) {
+		return plane.distance(y - centre.y, x - centre.x) <= radius;
+	}
+
+	public boolean contains(Coord coord) {
+		return contains(coord.y, coord.x);
+	}
+
+	/**
+	 * Returns the index of the given hex, its spiral position around the centre.
+	 *
+	 * @param y
+	 * @param x
+	 * @return The index of the given hex, or -1 if it is outside the map.
+	 */
+	public int getIndex(int y, int x) {
+		if (!contains(y, x)) {
+			return -1;
+		}
+		return plane.getSpiralPosition(y - centre.y, x - centre.x);
+	}
+
+	public int getIndex(Coord coord) {
+		return getIndex(coord.y, coord.x);
+	}
+
+	/**
+	 * Returns the hex at the given index.
+	 *
+	 * @param index
+	 * @return The packed Coord of the hex, see <code>Coord.pack(int, int)</code>.
+	 */
+	public long getCoord(int index) {
+		long delta = plane.getCoordBySpiral(index);
+		return Coord.pack(centre.y + Coord.unpackY(delta), centre.x + Coord.unpackX(delta));
+	}
+
+	/**
+	 * Returns the index of the neighbour of the hex at the given index,
+	 * one step in the given hexant, see <code>Hexagonal2DPlane.getHexantStart(int)</code>.
+	 *
+	 * @param index
+	 * @param hexant
+	 * @return The index of the neighbour, or -1 if it is outside the map.
+	 */
+	public int getNeighbourIndex(int index, int hexant) {
+		long delta = plane.getCoordBySpiral(index);
+		Coord step = plane.getHexantStart(hexant);
+		int y = Coord.unpackY(delta) + step.y;
+		int x = Coord.unpackX(delta) + step.x;
+		if (plane.distance(y, x) > radius) {
+			return -1;
+		}
+		return plane.getSpiralPosition(y, x);
+	}
+
+	/**
+	 * Returns the index of the given hex.
+	 *
+	 * @throws IllegalArgumentException If the hex is outside the map.
+	 */
+	protected int checkedIndex(int y, int x) {
+		int index = getIndex(y, x);
+		if (index < 0) {
+			throw new IllegalArgumentException("Hex " + y + ", " + x + " is outside the map.");
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index of the neighbour of the given hex.
+	 *
+	 * @throws IllegalArgumentException If the neighbour is outside the map.
+	 */
+	protected int checkedIndex(int y, int x, int hexant) {
+		Coord step = plane.getHexantStart(hexant);
+		return checkedIndex(y + step.y, x + step.x);
+	}
+}
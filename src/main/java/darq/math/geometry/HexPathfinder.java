@@ -0,0 +1,199 @@
+package darq.math.geometry;
+
+import darq.math.util.LongIntMap;
+import darq.math.util.LongMinHeap;
+import java.util.Arrays;
+
+/**
+ * Finds shortest paths between hexes on a hexagonal plane, using A*.
+ * The hex distance is the heuristic, which is admissible because every step costs at least 1.
+ *
+ * Hexes are identified by their packed Coords, see <code>Coord.pack(int, int)</code>,
+ * and the search state is kept in a primitive heap and map, so no Coord is allocated per hex.
+ * A pathfinder may be reused for many searches, keeping its storage between them,
+ * but is not thread safe.
+ *
+ * @author Craig.Webster
+ */
+public class HexPathfinder {
+	public final Hexagonal2DPlane plane;
+
+	/**
+	 * Hexes to expand, by f (in the high bits) and then greatest g (in the low bits).
+	 */
+	private final LongMinHeap open = new LongMinHeap();
+	/**
+	 * The node index of each hex seen by the current search.
+	 */
+	private final LongIntMap nodes = new LongIntMap();
+	/**
+	 * By node index, the best known cost from the start,
+	 * the cost of entering the hex (0 or less if impassable),
+	 * the previous hex on the best known path, and whether the hex has been expanded.
+	 */
+	private int[] costs = new int[16];
+	private int[] entryCosts = new int[16];
+	private long[] parents = new long[16];
+	private boolean[] closed = new boolean[16];
+	private int count;
+	private int expanded;
+
+	public HexPathfinder(Hexagonal2DPlane plane) {
+		this.plane = plane;
+	}
+
+	/**
+	 * Finds a path with the fewest steps from one hex to another,
+	 * stepping only onto hexes that pass the check.
+	 * The start hex is not checked.
+	 *
+	 * @param from
+	 * @param to
+	 * @param maxCost The maximum number of steps.
+	 * @param check Returns true if a hex is passable.
+	 * @return The path as pairs of y and x, from the start hex to the end hex inclusive,
+	 * or null if there is no path within the maximum number of steps.
+	 */
+	public int[] findPath(Coord from, Coord to, int maxCost, CoordCheckFunctor check) {
+		return findPath(from, to, maxCost, check, null);
+	}
+
+	/**
+	 * Finds a path with the lowest cost from one hex to another,
+	 * stepping only onto hexes that pass the check.
+	 * Each step costs the cost of the hex stepped onto, or 1 if there is no cost function.
+	 * The start hex is not checked, and costs nothing.
+	 *
+	 * Each function is called at most once per hex per search.
+	 *
+	 * @param from
+	 * @param to
+	 * @param maxCost The maximum total cost.
+	 * @param check Returns true if a hex is passable.
+	 * @param cost Returns the cost of entering a hex, 0 or less if impassable. May be null.
+	 * @return The path as pairs of y and x, from the start hex to the end hex inclusive,
+	 * or null if there is no path within the maximum cost.
+	 */
+	public int[] findPath(Coord from, Coord to, int maxCost, CoordCheckFunctor check, CoordCostFunctor cost) {
+		clear();
+		long start = from.pack();
+		long goal = to.pack();
+		if (heuristic(from.y, from.x, to) > maxCost) {
+			return null;
+		}
+
+		node(start, 1);
+		costs[0] = 0;
+		parents[0] = start;
+		open.add(priority(0, heuristic(from.y, from.x, to)), start);
+		while (!open.isEmpty()) {
+			long cell = open.poll();
+			int node = nodes.get(cell, -1);
+			if (closed[node]) {
+				// A stale copy, already expanded by a cheaper path.
+				continue;
+			}
+			closed[node] = true;
+			expanded++;
+			if (cell == goal) {
+				return path(start, goal);
+			}
+
+			int total = costs[node];
+			int y = Coord.unpackY(cell);
+			int x = Coord.unpackX(cell);
+			for (int hexant = 0; hexant < 6; hexant++) {
+				Coord step = plane.getHexantStart(hexant);
+				int nextY = y + step.y;
+				int nextX = x + step.x;
+				long next = Coord.pack(nextY, nextX);
+				int nextNode = nodes.get(next, -1);
+				if (nextNode < 0) {
+					int entryCost = check.check(nextY, nextX) ? ((cost == null) ? 1 : cost.cost(nextY, nextX)) : 0;
+					nextNode = node(next, entryCost);
+				}
+				if (closed[nextNode] || entryCosts[nextNode] <= 0) {
+					continue;
+				}
+
+				int entryCost = entryCosts[nextNode];
+				int remaining = heuristic(nextY, nextX, to);
+				if (entryCost > maxCost - total || remaining > maxCost - total - entryCost) {
+					// Can not reach the end hex within the maximum cost through this hex.
+					continue;
+				}
+				int nextTotal = total + entryCost;
+				if (nextTotal < costs[nextNode]) {
+					costs[nextNode] = nextTotal;
+					parents[nextNode] = cell;
+					open.add(priority(nextTotal, nextTotal + remaining), next);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of hexes expanded by the last search.
+	 *
+	 * @return The number of hexes expanded by the last search.
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	private void clear() {
+		open.clear();
+		nodes.clear();
+		count = 0;
+		expanded = 0;
+	}
+
+	/**
+	 * Adds a node for the given hex, returning its index.
+	 */
+	private int node(long cell, int entryCost) {
+		if (count == costs.length) {
+			costs = Arrays.copyOf(costs, count * 2);
+			entryCosts = Arrays.copyOf(entryCosts, count * 2);
+			parents = Arrays.copyOf(parents, count * 2);
+			closed = Arrays.copyOf(closed, count * 2);
+		}
+		costs[count] = Integer.MAX_VALUE;
+		entryCosts[count] = entryCost;
+		closed[count] = false;
+		nodes.put(cell, count);
+		return count++;
+	}
+
+	private int heuristic(int y, int x, Coord to) {
+		return (int) plane.distance(to.y - y, to.x - x);
+	}
+
+	/**
+	 * Orders by f, then prefers the greater g, which is closer to the end hex.
+	 */
+	private static long priority(int total, int estimate) {
+		return ((long) estimate << 32) - total;
+	}
+
+	/**
+	 * Follows the parents back from the end hex.
+	 */
+	private int[] path(long start, long goal) {
+		int length = 1;
+		for (long cell = goal; cell != start; cell = parents[nodes.get(cell, -1)]) {
+			length++;
+		}
+		int[] path = new int[length * 2];
+		int index = path.length;
+		for (long cell = goal; ; cell = parents[nodes.get(cell, -1)]) {
+			path[--index] = Coord.unpackX(cell);
+			path[--index] = Coord.unpackY(cell);
+			if (cell == start) {
+				break;
+			}
+		}
+		return path;
+	}
+}
@@ -0,0 +1,278 @@
+package darq.math.geometry;
+
+import java.util.stream.IntStream;
+
+/**
+ * Converts between world (or screen) Points and the hexes of a hexagonal plane,
+ * for hexes of the size of a given Hexagon, laid out as <code>RegularHexagon</code>s,
+ * with the hex (0, 0) centred on the origin.
+ *
+ * Moving one hex in hexant 0 moves up by <code>2 * RADIUS_EDGE</code>,
+ * and moving one hex in hexant 2 moves right by <code>1.5 * RADIUS_VERT</code>
+ * and down by <code>RADIUS_EDGE</code>, so the hex <code>(y, x)</code> is centred on
+ * <code>(RADIUS_EDGE * (2y - x), 1.5 * RADIUS_VERT * x)</code>.
+ *
+ * The bulk conversions take Points and hexes interleaved in primitive arrays, allocate nothing,
+ * and split arrays of more than <code>Abstract2DPlane.BULK_CHUNK</code> into chunks,
+ * which are converted in parallel.
+ *
+ * @author Craig.Webster
+ */
+public class HexPixelConverter {
+	public final Hexagonal2DPlane plane;
+	public final Hexagon hexagon;
+
+	/**
+	 * The vertices of the hex (0, 0), in the order of <code>RegularHexagon.toPolygon()</code>,
+	 * interleaved.
+	 */
+	private final double[] vertices;
+
+	public HexPixelConverter(Hexagonal2DPlane plane, Hexagon hexagon) {
+		this.plane = plane;
+		this.hexagon = hexagon;
+		this.vertices = vertices(hexagon);
+	}
+
+	/**
+	 * Returns the centre of the given hex.
+	 *
+	 * @param coord
+	 * @return The centre of the given hex.
+	 */
+	public Point toPoint(Coord coord) {
+		return new Point(toY(coord.y, coord.x), toX(coord.x));
+	}
+
+	/**
+	 * Returns the hex containing the given Point.
+	 * Points on the border between hexes are rounded as by
+	 * <code>Hexagonal2DPlane.round(double, double, int, int)</code>,
+	 * with ROUND_DOWN and DIRECTION_CLOCKWISE.
+	 *
+	 * @param point
+	 * @return The hex containing the given Point.
+	 */
+	public Coord toCoord(Point point) {
+		return Coord.unpack(toCoordPacked(point.y, point.x));
+	}
+
+	/**
+	 * Returns the hex containing the given Point, without allocating.
+	 *
+	 * @param y
+	 * @param x
+	 * @return The packed Coord of the hex, see <code>Coord.pack(int, int)</code>.
+	 * @see #toCoord(Point)
+	 */
+	public long toCoordPacked(double y, double x) {
+		double xD = x / (1.5 * hexagon.RADIUS_VERT);
+		double yD = (y / hexagon.RADIUS_EDGE + xD) / 2;
+		return plane.roundPacked(yD, xD, Hexagonal2DPlane.ROUND_DOWN, Hexagonal2DPlane.DIRECTION_CLOCKWISE);
+	}
+
+	/**
+	 * Finds the hex containing every given Point.
+	 * Point <code>i</code> is <code>(points[2 * i], points[2 * i + 1])</code>,
+	 * and its packed Coord is written to <code>results[i]</code>.
+	 *
+	 * @param points
+	 * @param results
+	 * @throws IllegalArgumentException If points has an odd length, or results is too short.
+	 */
+	public void toCoords(double[] points, long[] results) {
+		int count = checkCount(points.length, results.length, 1);
+		int chunks = (count + Abstract2DPlane.BULK_CHUNK - 1) / Abstract2DPlane.BULK_CHUNK;
+		stream(chunks).forEach(chunk -> {
+			int from = chunk * Abstract2DPlane.BULK_CHUNK;
+			int to = Math.min(from + Abstract2DPlane.BULK_CHUNK, count);
+			for (int i = from; i < to; i++) {
+				results[i] = toCoordPacked(points[2 * i], points[2 * i + 1]);
+			}
+		});
+	}
+
+	/**
+	 * Finds the hex containing every given Point.
+	 * Point <code>i</code> is <code>(points[2 * i], points[2 * i + 1])</code>,
+	 * and its Coord is written to <code>(results[2 * i], results[2 * i + 1])</code>.
+	 *
+	 * @param points
+	 * @param results
+	 * @throws IllegalArgumentException If points has an odd length, or results is too short.
+	 */
+	public void toCoords(double[] points, int[] results) {
+		int count = checkCount(points.length, results.length, 2);
+		int chunks = (count + Abstract2DPlane.BULK_CHUNK - 1) / Abstract2DPlane.BULK_CHUNK;
+		stream(chunks).forEach(chunk -> {
+			int from = chunk * Abstract2DPlane.BULK_CHUNK;
+			int to = Math.min(from + Abstract2DPlane.BULK_CHUNK, count);
+			for (int i = from; i < to; i++) {
+				long packed = toCoordPacked(points[2 * i], points[2 * i + 1]);
+				results[2 * i] = Coord.unpackY(packed);
+				results[2 * i + 1] = Coord.unpackX(packed);
+			}
+		});
+	}
+
+	/**
+	 * Finds the centre of every given hex.
+	 * Hex <code>i</code> is <code>(coords[2 * i], coords[2 * i + 1])</code>,
+	 * and its centre is written to <code>(results[2 * i], results[2 * i + 1])</code>.
+	 *
+	 * @param coords
+	 * @param results
+	 * @throws IllegalArgumentException If coords has an odd length, or results is too short.
+	 */
+	public void toPoints(int[] coords, double[] results) {
+		int count = checkCount(coords.length, results.length, 2);
+		int chunks = (count + Abstract2DPlane.BULK_CHUNK - 1) / Abstract2DPlane.BULK_CHUNK;
+		stream(chunks).forEach(chunk -> {
+			int from = chunk * Abstract2DPlane.BULK_CHUNK;
+			int to = Math.min(from + Abstract2DPlane.BULK_CHUNK, count);
+			for (int i = from; i < to; i++) {
+				results[2 * i] = toY(coords[2 * i], coords[2 * i + 1]);
+				results[2 * i + 1] = toX(coords[2 * i + 1]);
+			}
+		});
+	}
+
+	/**
+	 * Finds the centre of every given hex.
+	 * The centre of the hex <code>coords[i]</code>, a packed Coord,
+	 * is written to <code>(results[2 * i], results[2 * i + 1])</code>.
+	 *
+	 * @param coords
+	 * @param results
+	 * @throws IllegalArgumentException If results is too short.
+	 */
+	public void toPoints(long[] coords, double[] results) {
+		int count = coords.length;
+		if (results.length < count * 2) {
+			throw new IllegalArgumentException("Results array of length " + results.length + " can not hold " + count + " Points.");
+		}
+		int chunks = (count + Abstract2DPlane.BULK_CHUNK - 1) / Abstract2DPlane.BULK_CHUNK;
+		stream(chunks).forEach(chunk -> {
+			int from = chunk * Abstract2DPlane.BULK_CHUNK;
+			int to = Math.min(from + Abstract2DPlane.BULK_CHUNK, count);
+			for (int i = from; i < to; i++) {
+				int y = Coord.unpackY(coords[i]);
+				int x = Coord.unpackX(coords[i]);
+				results[2 * i] = toY(y, x);
+				results[2 * i + 1] = toX(x);
+			}
+		});
+	}
+
+	/**
+	 * Returns the hexagon of the given hex.
+	 *
+	 * @param coord
+	 * @return The hexagon of the given hex.
+	 */
+	public RegularHexagon toHexagon(Coord coord) {
+		return new RegularHexagon(toPoint(coord), hexagon);
+	}
+
+	/**
+	 * Writes the six vertices of the given hex, interleaved, to <code>results</code> from <code>offset</code>,
+	 * in the order of <code>RegularHexagon.toPolygon()</code>.
+	 *
+	 * @param y
+	 * @param x
+	 * @param results
+	 * @param offset
+	 */
+	public void getVertices(int y, int x, double[] results, int offset) {
+		double centreY = toY(y, x);
+		double centreX = toX(x);
+		for (int i = 0; i < 12; i += 2) {
+			results[offset + i] = centreY + vertices[i];
+			results[offset + i + 1] = centreX + vertices[i + 1];
+		}
+	}
+
+	/**
+	 * Finds the vertices of every given hex.
+	 * Hex <code>i</code> is <code>(coords[2 * i], coords[2 * i + 1])</code>,
+	 * and its vertices are written to <code>results[12 * i]</code> to <code>results[12 * i + 11]</code>,
+	 * as by <code>getVertices(int, int, double[], int)</code>.
+	 *
+	 * @param coords
+	 * @param results
+	 * @throws IllegalArgumentException If coords has an odd length, or results is too short.
+	 */
+	public void getVertices(int[] coords, double[] results) {
+		int count = checkCount(coords.length, results.length, 12);
+		int chunks = (count + Abstract2DPlane.BULK_CHUNK - 1) / Abstract2DPlane.BULK_CHUNK;
+		stream(chunks).forEach(chunk -> {
+			int from = chunk * Abstract2DPlane.BULK_CHUNK;
+			int to = Math.min(from + Abstract2DPlane.BULK_CHUNK, count);
+			for (int i = from; i < to; i++) {
+				getVertices(coords[2 * i], coords[2 * i + 1], results, 12 * i);
+			}
+		});
+	}
+
+	private double toY(int y, int x) {
+		return toY(hexagon, y, x);
+	}
+
+	private double toX(int x) {
+		return toX(hexagon, x);
+	}
+
+	/**
+	 * Returns the y of the centre of the given hex, for hexes of the size of the given Hexagon,
+	 * shared with <code>HexPolygonFactory</code>.
+	 */
+	static double toY(Hexagon hexagon, int y, int x) {
+		return hexagon.RADIUS_EDGE * (2 * y - x);
+	}
+
+	/**
+	 * Returns the x of the centre of the given hex, for hexes of the size of the given Hexagon,
+	 * shared with <code>HexPolygonFactory</code>.
+	 */
+	static double toX(Hexagon hexagon, int x) {
+		return 1.5 * hexagon.RADIUS_VERT * x;
+	}
+
+	/**
+	 * Returns the vertices of the hex (0, 0), for hexes of the size of the given Hexagon,
+	 * in the order of <code>RegularHexagon.toPolygon()</code>, interleaved.
+	 */
+	static double[] vertices(Hexagon hexagon) {
+		double edge = hexagon.RADIUS_EDGE;
+		double vert = hexagon.RADIUS_VERT;
+		double half = vert / 2;
+		return new double[] {
+			 edge, -half,
+			 edge,  half,
+			 0,     vert,
+			-edge,  half,
+			-edge, -half,
+			 0,    -vert,
+		};
+	}
+
+	/**
+	 * Returns the number of interleaved pairs in the input,
+	 * checking that the results can hold the given number of values per pair.
+	 */
+	private static int checkCount(int inputLength, int resultsLength, int perPair) {
+		if (inputLength % 2 != 0) {
+			throw new IllegalArgumentException("Array of length " + inputLength + " does not hold whole pairs.");
+		}
+		int count = inputLength / 2;
+		if (resultsLength < (long) count * perPair) {
+			throw new IllegalArgumentException("Results array of length " + resultsLength + " can not hold " + count + " results.");
+		}
+		return count;
+	}
+
+	private static IntStream stream(int chunks) {
+		IntStream stream = IntStream.range(0, chunks);
+		return (chunks > 1) ? stream.parallel() : stream;
+	}
+}
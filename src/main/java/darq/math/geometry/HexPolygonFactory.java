@@ -0,0 +1,158 @@
+package darq.math.geometry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the Polygons of hex cells of one size, laid out as by <code>HexPixelConverter</code>,
+ * with the hex (0, 0) centred on the origin.
+ *
+ * Every Polygon is one cached template of six vertices, translated to the centre of its hex,
+ * so no vertex is calculated and no bounds are searched for per Polygon.
+ * The normals of the template's edges, and its projections onto them, are cached alongside,
+ * and copied into a <code>PolygonBatch</code> by <code>addTo(PolygonBatch, int, int)</code>,
+ * rather than calculated for every hex.
+ *
+ * One factory is cached per size, see <code>of(Hexagon)</code>.
+ *
+ * @author Craig.Webster
+ */
+public class HexPolygonFactory {
+	private static final Map<Double, HexPolygonFactory> factories = new ConcurrentHashMap<Double, HexPolygonFactory>();
+
+	public final Hexagon hexagon;
+
+	/**
+	 * The vertices of the hex (0, 0), in the order of <code>RegularHexagon.toPolygon()</code>,
+	 * interleaved.
+	 */
+	private final double[] vertices;
+	private final double[] normYs;
+	private final double[] normXs;
+	private final double[] ownMins;
+	private final double[] ownMaxs;
+
+	private HexPolygonFactory(Hexagon hexagon) {
+		this.hexagon = hexagon;
+		this.vertices = HexPixelConverter.vertices(hexagon);
+
+		// As calculated by PolygonBatch.add(Polygon), which they stand in for.
+		this.normYs = new double[6];
+		this.normXs = new double[6];
+		this.ownMins = new double[6];
+		this.ownMaxs = new double[6];
+		for (int e = 0; e < 6; e++) {
+			int next = (e + 1) % 6;
+			double normY = -(vertices[2 * next + 1] - vertices[2 * e + 1]);
+			double normX = vertices[2 * next] - vertices[2 * e];
+			normYs[e] = normY;
+			normXs[e] = normX;
+
+			double inverse = 1 / (normY * normY + normX * normX);
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int v = 0; v < 6; v++) {
+				double u = ((vertices[2 * v] - vertices[2 * e]) * normY + (vertices[2 * v + 1] - vertices[2 * e + 1]) * normX) * inverse;
+				min = Math.min(min, u);
+				max = Math.max(max, u);
+			}
+			ownMins[e] = min;
+			ownMaxs[e] = max;
+		}
+	}
+
+	/**
+	 * Returns the factory for hexes of the size of the given Hexagon,
+	 * creating and caching it on first use.
+	 * Hexagons with the same edge radius share a factory.
+	 *
+	 * @param hexagon
+	 * @return The factory for hexes of the given size.
+	 */
+	public static HexPolygonFactory of(Hexagon hexagon) {
+		return factories.computeIfAbsent(hexagon.RADIUS_EDGE, edge -> new HexPolygonFactory(hexagon));
+	}
+
+	/**
+	 * Returns the centre of the given hex.
+	 *
+	 * @param y
+	 * @param x
+	 * @return The centre of the given hex.
+	 */
+	public Point getCentre(int y, int x) {
+		return new Point(HexPixelConverter.toY(hexagon, y, x), HexPixelConverter.toX(hexagon, x));
+	}
+
+	/**
+	 * Returns the Polygon of the given hex,
+	 * with the same vertices as <code>RegularHexagon.toPolygon()</code>.
+	 *
+	 * @param y
+	 * @param x
+	 * @return The Polygon of the given hex.
+	 */
+	public Polygon getPolygon(int y, int x) {
+		Point centre = getCentre(y, x);
+		Point[] points = new Point[6];
+		for (int v = 0; v < 6; v++) {
+			points[v] = new Point(centre.y + vertices[2 * v], centre.x + vertices[2 * v + 1]);
+		}
+		AxisAlignedBoundingBox boundingBox = new AxisAlignedBoundingBox(
+				centre.y - hexagon.RADIUS_EDGE, centre.x - hexagon.RADIUS_VERT,
+				centre.y + hexagon.RADIUS_EDGE, centre.x + hexagon.RADIUS_VERT);
+		return new Polygon(points, boundingBox, new Circle(centre, hexagon.RADIUS_VERT));
+	}
+
+	public Polygon getPolygon(Coord coord) {
+		return getPolygon(coord.y, coord.x);
+	}
+
+	/**
+	 * Returns the hexagon of the given hex,
+	 * which collides with other hexagons without building any Polygon,
+	 * see <code>Abstract2DPlane.collides(RegularHexagon, RegularHexagon)</code>.
+	 *
+	 * @param coord
+	 * @return The hexagon of the given hex.
+	 */
+	public RegularHexagon getHexagon(Coord coord) {
+		return new RegularHexagon(getCentre(coord.y, coord.x), hexagon);
+	}
+
+	/**
+	 * Returns the Polygon of every given hex.
+	 * Arrays of more than <code>Abstract2DPlane.BULK_CHUNK</code> hexes are split into chunks,
+	 * which are built in parallel.
+	 *
+	 * @param coords Packed Coords, see <code>Coord.pack(int, int)</code>.
+	 * @return The Polygons, in the order of the given hexes.
+	 */
+	public Polygon[] getPolygons(long[] coords) {
+		Polygon[] polygons = new Polygon[coords.length];
+		int chunks = (coords.length + Abstract2DPlane.BULK_CHUNK - 1) / Abstract2DPlane.BULK_CHUNK;
+		IntStream stream = IntStream.range(0, chunks);
+		((chunks > 1) ? stream.parallel() : stream).forEach(chunk -> {
+			int from = chunk * Abstract2DPlane.BULK_CHUNK;
+			int to = Math.min(from + Abstract2DPlane.BULK_CHUNK, coords.length);
+			for (int i = from; i < to; i++) {
+				polygons[i] = getPolygon(Coord.unpackY(coords[i]), Coord.unpackX(coords[i]));
+			}
+		});
+		return polygons;
+	}
+
+	/**
+	 * Adds the Polygon of the given hex to the end of the batch,
+	 * copying the cached normals of the template, see <code>PolygonBatch.add(Polygon)</code>.
+	 *
+	 * @param batch
+	 * @param y
+	 * @param x
+	 * @return The index of the Polygon in the batch.
+	 */
+	public int addTo(PolygonBatch batch, int y, int x) {
+		return batch.add(getPolygon(y, x), normYs, normXs, ownMins, ownMaxs);
+	}
+}
@@ -0,0 +1,255 @@
+package darq.math.geometry;
+
+import java.util.Arrays;
+
+import darq.math.util.LongIntMap;
+
+/**
+ * Sums and counts of <code>long</code> values on hexes, aggregated up the levels of the aperture 7 hierarchy,
+ * see <code>Hexagonal2DPlane.getParent(int, int)</code>.
+ * Level 0 holds the given hexes, and every hex at level <code>n</code> holds the totals of its children at level <code>n - 1</code>.
+ *
+ * Area queries take the totals of whole coarse hexes which are inside the area,
+ * skip those which are outside it, and only descend into those crossing its edge,
+ * so they visit a number of hexes in proportion to the perimeter of the area, rather than its size.
+ *
+ * Only hexes given a value are stored, at every level, in sorted arrays,
+ * so the pyramid suits sparse data as well as dense.
+ *
+ * @author Craig.Webster
+ */
+public class HexPyramid {
+	public final Hexagonal2DPlane plane;
+
+	/** The packed Coords of the hexes at every level, sorted. */
+	private final long[][] cells;
+	private final long[][] sums;
+	private final int[][] counts;
+
+	/**
+	 * The distance from the descendant centre of a hex at every level, see <code>getDescendantCentre(int, int, int)</code>,
+	 * within which all of its descendants at level 0 lie.
+	 */
+	private final int[] reaches;
+
+	/**
+	 * @param plane
+	 * @param coords The packed Coords of the hexes, see <code>Coord.pack(int, int)</code>. Repeated hexes are added together.
+	 * @param values The value of every hex.
+	 * @param levels The number of levels, including level 0.
+	 * @throws IllegalArgumentException If the arrays differ in length, or levels is not positive.
+	 */
+	public HexPyramid(Hexagonal2DPlane plane, long[] coords, long[] values, int levels) {
+		if (coords.length != values.length) {
+			throw new IllegalArgumentException("Got " + coords.length + " hexes but " + values.length + " values.");
+		}
+		if (levels < 1) {
+			throw new IllegalArgumentException("Levels " + levels + " is not positive.");
+		}
+		this.plane = plane;
+		this.cells = new long[levels][];
+		this.sums = new long[levels][];
+		this.counts = new int[levels][];
+		this.reaches = new int[levels];
+
+		int[] ones = new int[coords.length];
+		Arrays.fill(ones, 1);
+		aggregate(0, coords, values, ones, false);
+		for (int level = 1; level < levels; level++) {
+			aggregate(level, cells[level - 1], sums[level - 1], counts[level - 1], true);
+			reaches[level] = reaches[level - 1] + stepReach(level - 1);
+		}
+	}
+
+	/**
+	 * Aggregates the values of every hex in the given map.
+	 *
+	 * @param map
+	 * @param levels The number of levels, including level 0.
+	 * @throws IllegalArgumentException If levels is not positive.
+	 */
+	public HexPyramid(LongHexMap map, int levels) {
+		this(map.plane, coordsOf(map), map.getValues(), levels);
+	}
+
+	public int getLevels() {
+		return cells.length;
+	}
+
+	/**
+	 * Returns the hexes at the given level, sorted.
+	 * The array is the pyramid's own, and must not be changed.
+	 *
+	 * @param level
+	 * @return The packed Coords of the hexes at the given level, see <code>Coord.pack(int, int)</code>.
+	 */
+	public long[] getCells(int level) {
+		return cells[level];
+	}
+
+	/**
+	 * Returns the sum of the values of the level 0 hexes below the given hex.
+	 *
+	 * @param level
+	 * @param y
+	 * @param x
+	 * @return The sum, or 0 if no hexes below it were given a value.
+	 */
+	public long getSum(int level, int y, int x) {
+		int index = Arrays.binarySearch(cells[level], Coord.pack(y, x));
+		return (index < 0) ? 0 : sums[level][index];
+	}
+
+	/**
+	 * Returns the number of values given to the level 0 hexes below the given hex.
+	 *
+	 * @param level
+	 * @param y
+	 * @param x
+	 * @return The count, or 0 if no hexes below it were given a value.
+	 */
+	public int getCount(int level, int y, int x) {
+		int index = Arrays.binarySearch(cells[level], Coord.pack(y, x));
+		return (index < 0) ? 0 : counts[level][index];
+	}
+
+	/**
+	 * Returns the sum of the values of the level 0 hexes within the given distance of the centre.
+	 *
+	 * @param centre
+	 * @param radius
+	 * @return The sum.
+	 */
+	public long sum(Coord centre, int radius) {
+		long[] totals = new long[2];
+		query(centre, radius, totals);
+		return totals[0];
+	}
+
+	/**
+	 * Returns the number of values given to the level 0 hexes within the given distance of the centre.
+	 *
+	 * @param centre
+	 * @param radius
+	 * @return The count.
+	 */
+	public long count(Coord centre, int radius) {
+		long[] totals = new long[2];
+		query(centre, radius, totals);
+		return totals[1];
+	}
+
+	/**
+	 * Finds both the sum and the count of the level 0 hexes within the given distance of the centre.
+	 *
+	 * @param centre
+	 * @param radius
+	 * @param results Receives the sum then the count, must hold at least two (2).
+	 */
+	public void query(Coord centre, int radius, long[] results) {
+		results[0] = 0;
+		results[1] = 0;
+		int top = cells.length - 1;
+		// One array of children per level, reused by every hex at that level.
+		long[][] children = new long[top + 1][7];
+		for (int i = 0; i < cells[top].length; i++) {
+			query(top, i, centre, radius, children, results);
+		}
+	}
+
+	/**
+	 * Returns the centre of the descendants at level 0 of the given hex at the given level,
+	 * its child centre taken once per level.
+	 *
+	 * @param level
+	 * @param y
+	 * @param x
+	 * @return The packed Coord of the descendant centre, see <code>Coord.pack(int, int)</code>.
+	 */
+	public long getDescendantCentre(int level, int y, int x) {
+		long packed = Coord.pack(y, x);
+		for (int i = 0; i < level; i++) {
+			packed = plane.getChildCentre(Coord.unpackY(packed), Coord.unpackX(packed));
+		}
+		return packed;
+	}
+
+	private void query(int level, int index, Coord centre, int radius, long[][] children, long[] results) {
+		long cell = cells[level][index];
+		long descendant = getDescendantCentre(level, Coord.unpackY(cell), Coord.unpackX(cell));
+		int distance = (int) plane.distance(Coord.unpackY(descendant) - centre.y, Coord.unpackX(descendant) - centre.x);
+		if (distance - reaches[level] > radius) {
+			return;
+		}
+		if (distance + reaches[level] <= radius) {
+			results[0] += sums[level][index];
+			results[1] += counts[level][index];
+			return;
+		}
+		// Crosses the edge, so level > 0 as level 0 has no reach.
+		plane.getChildren(Coord.unpackY(cell), Coord.unpackX(cell), children[level]);
+		for (int i = 0; i < 7; i++) {
+			int child = Arrays.binarySearch(cells[level - 1], children[level][i]);
+			if (child >= 0) {
+				query(level - 1, child, centre, radius, children, results);
+			}
+		}
+	}
+
+	/**
+	 * Adds up the given hexes at the given level, or their parents if up is set.
+	 */
+	private void aggregate(int level, long[] from, long[] fromSums, int[] fromCounts, boolean up) {
+		LongIntMap slots = new LongIntMap(from.length);
+		long[] keys = new long[from.length];
+		long[] totals = new long[from.length];
+		int[] numbers = new int[from.length];
+		int size = 0;
+		for (int i = 0; i < from.length; i++) {
+			long key = up ? plane.getParent(Coord.unpackY(from[i]), Coord.unpackX(from[i])) : from[i];
+			int slot = slots.get(key, -1);
+			if (slot < 0) {
+				slot = size++;
+				slots.put(key, slot);
+				keys[slot] = key;
+			}
+			totals[slot] += fromSums[i];
+			numbers[slot] += fromCounts[i];
+		}
+
+		long[] sorted = Arrays.copyOf(keys, size);
+		Arrays.sort(sorted);
+		long[] sortedSums = new long[size];
+		int[] sortedCounts = new int[size];
+		for (int i = 0; i < size; i++) {
+			int slot = slots.get(sorted[i], -1);
+			sortedSums[i] = totals[slot];
+			sortedCounts[i] = numbers[slot];
+		}
+		cells[level] = sorted;
+		sums[level] = sortedSums;
+		counts[level] = sortedCounts;
+	}
+
+	/**
+	 * Returns the furthest a child's descendant centre lies from its parent's,
+	 * for a child at the given level.
+	 */
+	private int stepReach(int level) {
+		int reach = 0;
+		for (int hexant = 0; hexant < 6; hexant++) {
+			Coord step = plane.getHexantStart(hexant);
+			long offset = getDescendantCentre(level, step.y, step.x);
+			reach = Math.max(reach, (int) plane.distance(Coord.unpackY(offset), Coord.unpackX(offset)));
+		}
+		return reach;
+	}
+
+	private static long[] coordsOf(LongHexMap map) {
+		long[] coords = new long[map.size()];
+		for (int i = 0; i < coords.length; i++) {
+			coords[i] = map.getCoord(i);
+		}
+		return coords;
+	}
+}
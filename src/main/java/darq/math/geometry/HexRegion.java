@@ -0,0 +1,441 @@
+package darq.math.geometry;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An immutable set of hexes, stored as rows of runs.
+ * Each row holds the hexes of one y, as sorted, separate runs of consecutive x,
+ * so a filled area costs a few integers per row rather than an object per hex.
+ *
+ * Union, intersection and difference merge the runs of each row,
+ * taking time proportional to the number of runs, not the number of hexes.
+ * Membership is a binary search of the rows and then the runs of the row.
+ *
+ * Regions are built from packed Coords, see <code>Coord.pack(int, int)</code>,
+ * such as the results of <code>Hexagonal2DPlane.range</code> and <code>floodFill</code>,
+ * or from iterators such as <code>Hexagonal2DPlane.ring</code> and <code>spiral</code>.
+ *
+ * @author Craig.Webster
+ */
+public class HexRegion {
+	public static final HexRegion EMPTY = new HexRegion(new int[0], new int[] {0}, new int[0], 0);
+
+	/**
+	 * Operations combining the runs of two regions.
+	 */
+	private static final int UNION = 0;
+	private static final int INTERSECTION = 1;
+	private static final int DIFFERENCE = 2;
+
+	/**
+	 * The y of each row, ascending.
+	 */
+	private final int[] rows;
+	/**
+	 * The runs of row <code>r</code> are <code>offsets[r]</code> (inclusive) to <code>offsets[r + 1]</code> (exclusive).
+	 */
+	private final int[] offsets;
+	/**
+	 * The first and last x (both inclusive) of each run.
+	 */
+	private final int[] runs;
+	private final int size;
+
+	private HexRegion(int[] rows, int[] offsets, int[] runs, int size) {
+		this.rows = rows;
+		this.offsets = offsets;
+		this.runs = runs;
+		this.size = size;
+	}
+
+	/**
+	 * Returns the region of the given hexes, in any order, duplicates allowed.
+	 *
+	 * @param coords Packed Coords.
+	 * @return The region of the given hexes.
+	 */
+	public static HexRegion of(long[] coords) {
+		// Flipping the sign bit of x makes signed order of the keys row, then x, order.
+		long[] keys = new long[coords.length];
+		for (int i = 0; i < coords.length; i++) {
+			keys[i] = coords[i] ^ 0x80000000L;
+		}
+		Arrays.sort(keys);
+		Builder builder = new Builder();
+		for (long key : keys) {
+			long coord = key ^ 0x80000000L;
+			int x = Coord.unpackX(coord);
+			builder.add(Coord.unpackY(coord), x, x);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Returns the region of the given hexes, in any order, duplicates allowed.
+	 *
+	 * @param coords Coords interleaved, hex <code>i</code> is <code>(coords[2 * i], coords[2 * i + 1])</code>.
+	 * @return The region of the given hexes.
+	 */
+	public static HexRegion of(int[] coords) {
+		long[] packed = new long[coords.length / 2];
+		for (int i = 0; i < packed.length; i++) {
+			packed[i] = Coord.pack(coords[2 * i], coords[2 * i + 1]);
+		}
+		return of(packed);
+	}
+
+	/**
+	 * Returns the region of the hexes remaining in the given iterator, which is used up.
+	 *
+	 * @param coords An iterator of packed Coords, such as <code>Hexagonal2DPlane.ring(Coord, int)</code>.
+	 * @return The region of the given hexes.
+	 */
+	public static HexRegion of(PrimitiveIterator.OfLong coords) {
+		long[] packed = new long[16];
+		int count = 0;
+		while (coords.hasNext()) {
+			if (count == packed.length) {
+				packed = Arrays.copyOf(packed, count * 2);
+			}
+			packed[count++] = coords.nextLong();
+		}
+		return of(Arrays.copyOf(packed, count));
+	}
+
+	/**
+	 * Returns the region of every hex within the given radius of the centre,
+	 * built directly as one run per row.
+	 *
+	 * @param centre
+	 * @param radius
+	 * @return The region of every hex within the given radius of the centre, or EMPTY if the radius is negative.
+	 */
+	public static HexRegion hexagon(Coord centre, int radius) {
+		Builder builder = new Builder();
+		for (int yD = -radius; yD <= radius; yD++) {
+			// Rows above the centre run from yD - R to R, rows below from -R to R + yD.
+			int from = (yD >= 0) ? yD - radius : -radius;
+			int to = (yD >= 0) ? radius : radius + yD;
+			builder.add(centre.y + yD, centre.x + from, centre.x + to);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Returns the number of hexes in the region.
+	 *
+	 * @return The number of hexes in the region.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of runs storing the region.
+	 *
+	 * @return The number of runs storing the region.
+	 */
+	public int getRunCount() {
+		return runs.length / 2;
+	}
+
+	public boolean contains(int y, int x) {
+		int row = Arrays.binarySearch(rows, y);
+		if (row < 0) {
+			return false;
+		}
+		// The last run of the row starting at or before x.
+		int low = offsets[row];
+		int high = offsets[row + 1] - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (runs[2 * middle] <= x) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return high >= offsets[row] && runs[2 * high + 1] >= x;
+	}
+
+	public boolean contains(Coord coord) {
+		return contains(coord.y, coord.x);
+	}
+
+	/**
+	 * Returns the hexes in either region.
+	 *
+	 * @param other
+	 * @return The hexes in either region.
+	 */
+	public HexRegion union(HexRegion other) {
+		return combine(other, UNION);
+	}
+
+	/**
+	 * Returns the hexes in both regions.
+	 *
+	 * @param other
+	 * @return The hexes in both regions.
+	 */
+	public HexRegion intersection(HexRegion other) {
+		return combine(other, INTERSECTION);
+	}
+
+	/**
+	 * Returns the hexes in this region but not the other.
+	 *
+	 * @param other
+	 * @return The hexes in this region but not the other.
+	 */
+	public HexRegion difference(HexRegion other) {
+		return combine(other, DIFFERENCE);
+	}
+
+	/**
+	 * Returns the region moved by the given delta.
+	 *
+	 * @param yD
+	 * @param xD
+	 * @return The region moved by the given delta.
+	 */
+	public HexRegion translate(int yD, int xD) {
+		int[] movedRows = rows.clone();
+		for (int i = 0; i < movedRows.length; i++) {
+			movedRows[i] += yD;
+		}
+		int[] movedRuns = runs.clone();
+		for (int i = 0; i < movedRuns.length; i++) {
+			movedRuns[i] += xD;
+		}
+		return new HexRegion(movedRows, offsets, movedRuns, size);
+	}
+
+	/**
+	 * Returns the hexes of the region, by row and then x.
+	 *
+	 * @return The packed Coords of the hexes of the region.
+	 */
+	public long[] toArray() {
+		long[] coords = new long[size];
+		int count = 0;
+		PrimitiveIterator.OfLong iterator = iterator();
+		while (iterator.hasNext()) {
+			coords[count++] = iterator.nextLong();
+		}
+		return coords;
+	}
+
+	/**
+	 * Iterates over the hexes of the region, by row and then x, without allocating per hex.
+	 *
+	 * @return An iterator of the packed Coords of the hexes of the region.
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		return new PrimitiveIterator.OfLong() {
+			private int row = 0;
+			private int run = 0;
+			private int x = (runs.length > 0) ? runs[0] : 0;
+
+			@Override
+			public boolean hasNext() {
+				return run < runs.length / 2;
+			}
+
+			@Override
+			public long nextLong() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				while (run >= offsets[row + 1]) {
+					row++;
+				}
+				long coord = Coord.pack(rows[row], x);
+				if (x == runs[2 * run + 1]) {
+					run++;
+					if (run < runs.length / 2) {
+						x = runs[2 * run];
+					}
+				} else {
+					x++;
+				}
+				return coord;
+			}
+		};
+	}
+
+	/**
+	 * Merges the rows of both regions, combining the runs of rows in both.
+	 */
+	private HexRegion combine(HexRegion other, int operation) {
+		Builder builder = new Builder();
+		int a = 0;
+		int b = 0;
+		while (a < rows.length || b < other.rows.length) {
+			if (b == other.rows.length || (a < rows.length && rows[a] < other.rows[b])) {
+				// Only in this region.
+				if (operation != INTERSECTION) {
+					builder.addRow(rows[a], runs, offsets[a], offsets[a + 1]);
+				}
+				a++;
+			} else if (a == rows.length || other.rows[b] < rows[a]) {
+				// Only in the other region.
+				if (operation == UNION) {
+					builder.addRow(other.rows[b], other.runs, other.offsets[b], other.offsets[b + 1]);
+				}
+				b++;
+			} else {
+				combineRow(rows[a], runs, offsets[a], offsets[a + 1], other.runs, other.offsets[b], other.offsets[b + 1], operation, builder);
+				a++;
+				b++;
+			}
+		}
+		return builder.build();
+	}
+
+	private static void combineRow(int y, int[] aRuns, int aFrom, int aTo, int[] bRuns, int bFrom, int bTo, int operation, Builder builder) {
+		int a = aFrom;
+		int b = bFrom;
+		switch (operation) {
+			case UNION:
+				// Add runs in order of start, the builder joins them.
+				while (a < aTo || b < bTo) {
+					if (b == bTo || (a < aTo && aRuns[2 * a] <= bRuns[2 * b])) {
+						builder.add(y, aRuns[2 * a], aRuns[2 * a + 1]);
+						a++;
+					} else {
+						builder.add(y, bRuns[2 * b], bRuns[2 * b + 1]);
+						b++;
+					}
+				}
+				break;
+			case INTERSECTION:
+				while (a < aTo && b < bTo) {
+					int from = Math.max(aRuns[2 * a], bRuns[2 * b]);
+					int to = Math.min(aRuns[2 * a + 1], bRuns[2 * b + 1]);
+					if (from <= to) {
+						builder.add(y, from, to);
+					}
+					if (aRuns[2 * a + 1] < bRuns[2 * b + 1]) {
+						a++;
+					} else {
+						b++;
+					}
+				}
+				break;
+			case DIFFERENCE:
+				for (; a < aTo; a++) {
+					int from = aRuns[2 * a];
+					int to = aRuns[2 * a + 1];
+					// Skip runs ending before this one, then cut out the overlapping ones.
+					while (b < bTo && bRuns[2 * b + 1] < from) {
+						b++;
+					}
+					int cut = b;
+					while (cut < bTo && bRuns[2 * cut] <= to) {
+						if (bRuns[2 * cut] > from) {
+							builder.add(y, from, bRuns[2 * cut] - 1);
+						}
+						from = Math.max(from, bRuns[2 * cut + 1] + 1);
+						cut++;
+					}
+					if (from <= to) {
+						builder.add(y, from, to);
+					}
+				}
+				break;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 7;
+		hash = 31 * hash + Arrays.hashCode(this.rows);
+		hash = 31 * hash + Arrays.hashCode(this.offsets);
+		hash = 31 * hash + Arrays.hashCode(this.runs);
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final HexRegion other = (HexRegion) obj;
+		return Arrays.equals(this.rows, other.rows)
+				&& Arrays.equals(this.offsets, other.offsets)
+				&& Arrays.equals(this.runs, other.runs);
+	}
+
+	@Override
+	public String toString() {
+		return "HexRegion{size=" + size + ", rows=" + rows.length + ", runs=" + runs.length / 2 + '}';
+	}
+
+	/**
+	 * Appends runs in row, then x, order, joining overlapping and adjacent runs,
+	 * so every region has one canonical form.
+	 */
+	private static class Builder {
+		private int[] rows = new int[8];
+		private int[] offsets = new int[9];
+		private int[] runs = new int[16];
+		private int rowCount = 0;
+		private int runCount = 0;
+		private int size = 0;
+
+		/**
+		 * Adds the run from x (inclusive) to x (inclusive).
+		 * Runs must be added with ascending y, and ascending first x within a row.
+		 */
+		void add(int y, int from, int to) {
+			if (rowCount == 0 || rows[rowCount - 1] != y) {
+				if (rowCount == rows.length) {
+					rows = Arrays.copyOf(rows, rowCount * 2);
+					offsets = Arrays.copyOf(offsets, rowCount * 2 + 1);
+				}
+				rows[rowCount++] = y;
+				offsets[rowCount] = runCount;
+			} else if (runCount > offsets[rowCount - 1] && from <= runs[2 * runCount - 1] + 1) {
+				// Overlaps or touches the last run of the row.
+				int last = runs[2 * runCount - 1];
+				if (to > last) {
+					size += to - last;
+					runs[2 * runCount - 1] = to;
+				}
+				return;
+			}
+			if (2 * runCount == runs.length) {
+				runs = Arrays.copyOf(runs, runs.length * 2);
+			}
+			runs[2 * runCount] = from;
+			runs[2 * runCount + 1] = to;
+			runCount++;
+			offsets[rowCount] = runCount;
+			size += to - from + 1;
+		}
+
+		void addRow(int y, int[] rowRuns, int from, int to) {
+			for (int run = from; run < to; run++) {
+				add(y, rowRuns[2 * run], rowRuns[2 * run + 1]);
+			}
+		}
+
+		HexRegion build() {
+			return new HexRegion(
+					Arrays.copyOf(rows, rowCount),
+					Arrays.copyOf(offsets, rowCount + 1),
+					Arrays.copyOf(runs, runCount * 2),
+					size);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package darq.math.geometry;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Iterates over a range of spiral positions around a centre hex,
+ * as defined in the documentation of <code>Hexagonal2DPlane</code>,
+ * returning each hex as a packed Coord, see <code>Coord.pack(int, int)</code>.
+ *
+ * A ring of radius <code>r</code> is the spiral positions
+ * <code>3r(r - 1) + 1</code> (inclusive) to <code>3r(r + 1) + 1</code> (exclusive),
+ * in circle position order.
+ * A spiral out to radius <code>R</code> is the spiral positions
+ * <code>0</code> (inclusive) to <code>3R(R + 1) + 1</code> (exclusive).
+ *
+ * Nothing is allocated per hex.
+ * The iterator may be reset and reused, to walk many neighbourhoods with one instance.
+ *
+ * @author Craig.Webster
+ */
+public class HexSpiralIterator implements PrimitiveIterator.OfLong {
+	public final Hexagonal2DPlane plane;
+
+	private int centreY;
+	private int centreX;
+	private int from;
+	private int to;
+
+	/**
+	 * The spiral position of the next hex.
+	 */
+	private int index;
+	/**
+	 * The radius, hexant, and step along the hexant of the next hex.
+	 */
+	private int radius;
+	private int hexant;
+	private int step;
+
+	public HexSpiralIterator(Hexagonal2DPlane plane, int centreY, int centreX, int from, int to) {
+		this.plane = plane;
+		reset(centreY, centreX, from, to);
+	}
+
+	/**
+	 * Restarts the iteration from the first spiral position.
+	 */
+	public void reset() {
+		reset(centreY, centreX, from, to);
+	}
+
+	/**
+	 * Restarts the iteration around the given centre.
+	 *
+	 * @param centreY
+	 * @param centreX
+	 */
+	public void reset(int centreY, int centreX) {
+		reset(centreY, centreX, from, to);
+	}
+
+	/**
+	 * Restarts the iteration around the given centre, over the given spiral positions.
+	 *
+	 * @param centreY
+	 * @param centreX
+	 * @param from The first spiral position (inclusive).
+	 * @param to The last spiral position (exclusive).
+	 * @throws IllegalArgumentException If from is negative, or after to.
+	 */
+	public void reset(int centreY, int centreX, int from, int to) {
+		if (from < 0 || from > to) {
+			throw new IllegalArgumentException("Spiral positions " + from + " to " + to + " are not a valid range.");
+		}
+		this.centreY = centreY;
+		this.centreX = centreX;
+		this.from = from;
+		this.to = to;
+		seek(from);
+	}
+
+	/**
+	 * Moves the iteration to the given spiral position.
+	 */
+	private void seek(int index) {
+		this.index = index;
+		this.radius = Hexagonal2DPlane.spiralRadius(index);
+		if (radius == 0) {
+			hexant = 0;
+			step = 0;
+		} else {
+			int position = index - Hexagonal2DPlane.spiralOffset(radius);
+			hexant = position / radius;
+			step = position % radius;
+		}
+	}
+
+	/**
+	 * Returns the spiral position of the next hex.
+	 *
+	 * @return The spiral position of the next hex.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the number of hexes left to iterate over.
+	 *
+	 * @return The number of hexes left to iterate over.
+	 */
+	public int remaining() {
+		return to - index;
+	}
+
+	int getEnd() {
+		return to;
+	}
+
+	int getCentreY() {
+		return centreY;
+	}
+
+	int getCentreX() {
+		return centreX;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return index < to;
+	}
+
+	@Override
+	public long nextLong() {
+		if (index >= to) {
+			throw new NoSuchElementException();
+		}
+
+		long coord;
+		if (radius == 0) {
+			coord = Coord.pack(centreY, centreX);
+			radius = 1;
+		} else {
+			Coord start = plane.getHexantStart(hexant);
+			Coord forward = plane.getHexantForward(hexant);
+			coord = Coord.pack(centreY + start.y * radius + forward.y * step, centreX + start.x * radius + forward.x * step);
+			step++;
+			if (step == radius) {
+				step = 0;
+				hexant++;
+				if (hexant == 6) {
+					hexant = 0;
+					radius++;
+				}
+			}
+		}
+		index++;
+		return coord;
+	}
+}
@@ -0,0 +1,69 @@
+package darq.math.geometry;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Splits a range of spiral positions around a centre hex,
+ * so that the hexes may be processed by a parallel stream,
+ * see <code>HexSpiralIterator</code>.
+ *
+ * Any spiral position is found in constant time,
+ * so the range is always split in half.
+ *
+ * @author Craig.Webster
+ */
+public class HexSpiralSpliterator implements Spliterator.OfLong {
+	/**
+	 * Ranges smaller than this are not split.
+	 */
+	private static final int MINIMUM_SPLIT = 64;
+
+	private final HexSpiralIterator iterator;
+
+	public HexSpiralSpliterator(Hexagonal2DPlane plane, int centreY, int centreX, int from, int to) {
+		this.iterator = new HexSpiralIterator(plane, centreY, centreX, from, to);
+	}
+
+	@Override
+	public OfLong trySplit() {
+		int remaining = iterator.remaining();
+		if (remaining < MINIMUM_SPLIT) {
+			return null;
+		}
+
+		// Hand the first half to the new spliterator, keep the second.
+		int from = iterator.getIndex();
+		int middle = from + remaining / 2;
+		int to = iterator.getEnd();
+		HexSpiralSpliterator prefix = new HexSpiralSpliterator(iterator.plane, iterator.getCentreY(), iterator.getCentreX(), from, middle);
+		iterator.reset(iterator.getCentreY(), iterator.getCentreX(), middle, to);
+		return prefix;
+	}
+
+	@Override
+	public boolean tryAdvance(LongConsumer action) {
+		if (!iterator.hasNext()) {
+			return false;
+		}
+		action.accept(iterator.nextLong());
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(LongConsumer action) {
+		while (iterator.hasNext()) {
+			action.accept(iterator.nextLong());
+		}
+	}
+
+	@Override
+	public long estimateSize() {
+		return iterator.remaining();
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+	}
+}
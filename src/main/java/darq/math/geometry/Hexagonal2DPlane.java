@@ -1,7 +1,12 @@
 package darq.math.geometry;
 
 import darq.math.Utils;
-import java.util.Comparator;
+import darq.math.util.LongIntMap;
+import darq.math.util.LongQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * The following are defined as relative to a particular point.
@@ -85,6 +90,55 @@ public class Hexagonal2DPlane extends Abstract2DPlane {
 		new Coord(+1,  0),
 		new Coord(+1, +1)
 	};
+	
+	/**
+	 * Rotations clockwise by 0 to 5 hexants, as matrices <code>{yy, yx, xy, xx}</code>,
+	 * mapping <code>(y, x)</code> to <code>(yy * y + yx * x, xy * y + xx * x)</code>.
+	 */
+	private static final int[][] rotations = {
+		{ 1,  0,  0,  1},
+		{ 1, -1,  1,  0},
+		{ 0, -1,  1, -1},
+		{-1,  0,  0, -1},
+		{-1,  1, -1,  0},
+		{ 0,  1, -1,  1}
+	};
+	
+	/**
+	 * Reflections across the axes through hexants 0 and 3, 1 and 4, and 2 and 5,
+	 * as matrices like the rotations.
+	 */
+	private static final int[][] reflections = {
+		{ 1, -1,  0, -1},
+		{ 0,  1,  1,  0},
+		{-1,  0, -1,  1}
+	};
+	
+	/**
+	 * The corners of the hex (0, 0), corner <code>h</code> lying between the edges facing hexants <code>h</code> and <code>h + 1</code>.
+	 */
+	private static final Point[] corners = {
+		new Point( 2.0 / 3,  1.0 / 3),
+		new Point( 1.0 / 3,  2.0 / 3),
+		new Point(-1.0 / 3,  1.0 / 3),
+		new Point(-2.0 / 3, -1.0 / 3),
+		new Point(-1.0 / 3, -2.0 / 3),
+		new Point( 1.0 / 3, -1.0 / 3)
+	};
+	
+	/**
+	 * The step from a hex to the centre of its flower in the aperture 7 hierarchy,
+	 * by <code>(x - 3y) mod 7</code>.
+	 */
+	private static final Coord[] parentSteps = {
+		new Coord( 0,  0),
+		new Coord( 0, -1),
+		new Coord(+1, +1),
+		new Coord(+1,  0),
+		new Coord(-1,  0),
+		new Coord(-1, -1),
+		new Coord( 0, +1)
+	};
 
 	@Override
 	public double distance(double yD, double xD) {
@@ -96,11 +150,114 @@ public class Hexagonal2DPlane extends Abstract2DPlane {
 	}
 	
 	public Coord round(double yD, double xD, int round, int direction) {
-		Coord[] coords = round(yD, xD);
-		return specRound(coords, round, direction);
+		return Coord.unpack(roundPacked(yD, xD, round, direction));
 	}
 	
 	public Coord[] round(double yD, double xD) {
+		long[] candidates = new long[3];
+		int count = round(yD, xD, candidates);
+		
+		Coord[] results = new Coord[count];
+		for (int i = 0; i < count; i++) {
+			results[i] = Coord.unpack(candidates[i]);
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Rounds the given Point to the hex containing it,
+	 * breaking ties in the same way as <code>round(double, double, int, int)</code>,
+	 * without allocating.
+	 * 
+	 * @param yD
+	 * @param xD
+	 * @param round ROUND_UP to prefer the hex further from the origin, ROUND_DOWN to prefer the nearer.
+	 * @param direction DIRECTION_CLOCKWISE or DIRECTION_ANTICLOCKWISE,
+	 * to prefer between hexes equally far from the origin.
+	 * @return The packed Coord of the hex, see <code>Coord.pack(int, int)</code>.
+	 */
+	public long roundPacked(double yD, double xD, int round, int direction) {
+		return round(yD, xD, null, round, direction);
+	}
+	
+	/**
+	 * Finds every hex the given Point could be rounded to,
+	 * the same hexes as returned by <code>round(double, double)</code>, in the same order.
+	 * 
+	 * @param yD
+	 * @param xD
+	 * @param candidates Receives the packed Coords of the hexes, must hold at least three (3).
+	 * @return The number of hexes written to candidates.
+	 */
+	public int round(double yD, double xD, long[] candidates) {
+		return (int) round(yD, xD, candidates, 0, 0);
+	}
+	
+	/**
+	 * Rounds every given Point.
+	 * Points are stored interleaved, Point <code>i</code> is
+	 * <code>(points[2 * i], points[2 * i + 1])</code>,
+	 * and its packed Coord is written to <code>results[i]</code>.
+	 * 
+	 * @param points
+	 * @param round
+	 * @param direction
+	 * @param results
+	 * @throws IllegalArgumentException If the Points array has an odd length,
+	 * or the results array is shorter than the number of Points.
+	 */
+	public void round(double[] points, int round, int direction, long[] results) {
+		int count = checkCount(points.length, results.length, 1);
+		for (int i = 0; i < count; i++) {
+			results[i] = round(points[2 * i], points[2 * i + 1], null, round, direction);
+		}
+	}
+	
+	/**
+	 * Rounds every given Point.
+	 * Points are stored interleaved, Point <code>i</code> is
+	 * <code>(points[2 * i], points[2 * i + 1])</code>,
+	 * and its Coord is written interleaved to <code>(results[2 * i], results[2 * i + 1])</code>.
+	 * 
+	 * @param points
+	 * @param round
+	 * @param direction
+	 * @param results
+	 * @throws IllegalArgumentException If the Points array has an odd length,
+	 * or the results array can not hold two (2) values per Point.
+	 */
+	public void round(double[] points, int round, int direction, int[] results) {
+		int count = checkCount(points.length, results.length, 2);
+		for (int i = 0; i < count; i++) {
+			long packed = round(points[2 * i], points[2 * i + 1], null, round, direction);
+			results[2 * i] = Coord.unpackY(packed);
+			results[2 * i + 1] = Coord.unpackX(packed);
+		}
+	}
+	
+	/**
+	 * Returns the number of interleaved Points,
+	 * checking that the results can hold the given number of values per Point,
+	 * before any result is written.
+	 */
+	private static int checkCount(int pointsLength, int resultsLength, int perPoint) {
+		if (pointsLength % 2 != 0) {
+			throw new IllegalArgumentException("Points array has odd length " + pointsLength + ".");
+		}
+		int count = pointsLength / 2;
+		if (resultsLength < (long) count * perPoint) {
+			throw new IllegalArgumentException("Results array of length " + resultsLength + " can not hold " + count + " results.");
+		}
+		return count;
+	}
+	
+	/**
+	 * Finds the hexes the given Point could be rounded to.
+	 * If candidates is given, writes them to it in order, and returns their number.
+	 * Otherwise picks one of them, using the given round and direction, and returns it packed.
+	 */
+	private long round(double yD, double xD, long[] candidates, int round, int direction) {
 		// Obtain the third axis.
 		double zD = yD - xD;
 		
@@ -113,129 +270,145 @@ public class Hexagonal2DPlane extends Abstract2DPlane {
 		double zE = Math.abs(zD - zR);
 		double yE = Math.abs(yD - yR);
 		double xE = Math.abs(xD - xR);
-				
-		// Degenerate case where point is on an edge and 0.5 away from centre.
-		if (Utils.equals(distance(yD, xD) % 1, 0.5) && (Utils.equals(zE, 0) || Utils.equals(yE, 0) || Utils.equals(xE, 0))) {
-			return new Coord[] {
-				new Coord(yR, xR),
-				new Coord((int) Utils.roundOptSymEps(yD), (int) Utils.roundOptSymEps(xD))
-			};
-		}
 		
-		// If all is in balance, don't bother.
-		if (zR - yR + xR == 0) {
-			return new Coord[] {new Coord(yR, xR)};
-		}
+		long c0;
+		long c1 = 0;
+		long c2 = 0;
+		int count;
 		
-		// Discard largest components and reconstruct from z - y + x = 0;
-		double max = Utils.max(zE, yE, xE);
-		Coord[] prelims = new Coord[3];
-		int count = 0;
-		if (Utils.equals(zE, max)) {
-			// Discard Z.
-			prelims[count++] = new Coord(yR, xR);
-		}
-		if (Utils.equals(yE, max)) {
-			// Discard Y.
-			prelims[count++] = new Coord((zR + xR), xR);
-		}
-		if (Utils.equals(xE, max)) {
-			// Discard X.
-			prelims[count++] = new Coord(yR, (-zR + yR));
+		if (Utils.equals(distance(yD, xD) % 1, 0.5) && (Utils.equals(zE, 0) || Utils.equals(yE, 0) || Utils.equals(xE, 0))) {
+			// Degenerate case where point is on an edge and 0.5 away from centre.
+			c0 = Coord.pack(yR, xR);
+			c1 = Coord.pack((int) Utils.roundOptSymEps(yD), (int) Utils.roundOptSymEps(xD));
+			count = 2;
+		} else if (zR - yR + xR == 0) {
+			// If all is in balance, don't bother.
+			c0 = Coord.pack(yR, xR);
+			count = 1;
+		} else {
+			// Discard largest components and reconstruct from z - y + x = 0;
+			double max = Utils.max(zE, yE, xE);
+			count = 0;
+			c0 = 0;
+			if (Utils.equals(zE, max)) {
+				// Discard Z.
+				c0 = Coord.pack(yR, xR);
+				count++;
+			}
+			if (Utils.equals(yE, max)) {
+				// Discard Y.
+				long coord = Coord.pack((zR + xR), xR);
+				if (count == 0) { c0 = coord; } else { c1 = coord; }
+				count++;
+			}
+			if (Utils.equals(xE, max)) {
+				// Discard X.
+				long coord = Coord.pack(yR, (-zR + yR));
+				if (count == 0) { c0 = coord; } else if (count == 1) { c1 = coord; } else { c2 = coord; }
+				count++;
+			}
+			
+			// Sort network.
+			// No need for a full sort algorithm.
+			// Missing candidates sort to the end, so only compare those present.
+			if (count == 3) {
+				if (compareRound(c1, c2) > 0) {
+					long temp = c1;
+					c1 = c2;
+					c2 = temp;
+				}
+				if (compareRound(c0, c2) > 0) {
+					long temp = c0;
+					c0 = c2;
+					c2 = temp;
+				}
+			}
+			if (count >= 2 && compareRound(c0, c1) > 0) {
+				long temp = c0;
+				c0 = c1;
+				c1 = temp;
+			}
 		}
 		
-		// Sort network.
-		// No need for a full sort algorithm.
-		RoundComparator comparator = new RoundComparator();
-		if (comparator.compare(prelims[1], prelims[2]) > 0) {
-			Coord temp = prelims[1];
-			prelims[1] = prelims[2];
-			prelims[2] = temp;
-		}
-		if (comparator.compare(prelims[0], prelims[2]) > 0) {
-			Coord temp = prelims[0];
-			prelims[0] = prelims[2];
-			prelims[2] = temp;
-		}
-		if (comparator.compare(prelims[0], prelims[1]) > 0) {
-			Coord temp = prelims[0];
-			prelims[0] = prelims[1];
-			prelims[1] = temp;
+		if (candidates != null) {
+			candidates[0] = c0;
+			candidates[1] = c1;
+			candidates[2] = c2;
+			return count;
 		}
 		
-		// Trim array to contents;
-		Coord[] results = new Coord[count];
-		for (int i = 0; i < count; i++) {
-			results[i] = prelims[i];
+		long value = c0;
+		if (count > 1) {
+			value = specRound(value, c1, round, direction);
 		}
-		
-		return results;
+		if (count > 2) {
+			value = specRound(value, c2, round, direction);
+		}
+		return value;
 	}
 	
-	private Coord specRound(Coord[] coords, int round, int direction) {
-		Coord value = coords[0];
-		for (int i = 1; i < coords.length; i++) {
-			Coord coord = coords[i];
-			if (coord == null) {
-				continue;
+	/**
+	 * Picks between the current value and the next candidate,
+	 * keeping the current value unless the candidate is strictly preferred.
+	 */
+	private long specRound(long value, long coord, int round, int direction) {
+		int valueY = Coord.unpackY(value);
+		int valueX = Coord.unpackX(value);
+		int coordY = Coord.unpackY(coord);
+		int coordX = Coord.unpackX(coord);
+		
+		double distanceD = distance(valueY, valueX) - distance(coordY, coordX);
+		if (!Utils.equals(distanceD, 0)) {
+			distanceD = distanceD * round;
+			if (distanceD < 0) {
+				return coord;
 			}
-			
-			double distanceD = distance(value.y, value.x) - distance(coord.y, coord.x);
-			if (!Utils.equals(distanceD, 0)) {
-				distanceD = distanceD * round;
-				if (distanceD < 0) {
-					value = coord;
-				}
-			} else {
-				double hexantD = hexantCompare(coord.y, coord.x, value.y, value.x, direction, true);
-				if (!Utils.equals(hexantD, 0) && hexantD < 0) {
-					value = coord;
-				}
+		} else {
+			double hexantD = hexantCompare(coordY, coordX, valueY, valueX, direction, true);
+			if (!Utils.equals(hexantD, 0) && hexantD < 0) {
+				return coord;
 			}
 		}
 		
 		return value;
 	}
 	
-	private class RoundComparator implements Comparator<Coord> {
-		/**
-		 * Compares two Coords, based on nullity, then distance, then hexants.
-		 * Returns (-)3 if one Coord is null, nulls sort to the end.
-		 * Returns (-)2 if one Coord is further away than the other.
-		 * Returns (-)1 if one Coord is circularly before the other.
-		 * Returns 0 if both parameters are equal.
-		 * 
-		 * @param o1
-		 * @param o2
-		 * @return 
-		 */
-		@Override
-		public int compare(Coord o1, Coord o2) {
-			if (o1 == null && o2 == null) { return  0; }
-			if (o1 == null && o2 != null) { return  3; }
-			if (o1 != null && o2 == null) { return -3; }
-			
-			double delta;
-			
-			delta = distance(o1.y, o1.x) - distance(o2.y, o2.x);
-			if (!Utils.equals(delta, 0)) {
-				return Utils.sign(delta) * 2;
-			}
-			
-			delta = hexant(o1.y, o1.x) - hexant(o2.y, o2.x);
+	/**
+	 * Compares two packed Coords, based on distance, then hexants.
+	 * Returns (-)2 if one Coord is further away than the other.
+	 * Returns (-)1 if one Coord is circularly before the other.
+	 * Returns 0 if both parameters are equal.
+	 * 
+	 * @param c1
+	 * @param c2
+	 * @return 
+	 */
+	private int compareRound(long c1, long c2) {
+		int y1 = Coord.unpackY(c1);
+		int x1 = Coord.unpackX(c1);
+		int y2 = Coord.unpackY(c2);
+		int x2 = Coord.unpackX(c2);
+		
+		double delta;
+		
+		delta = distance(y1, x1) - distance(y2, x2);
+		if (!Utils.equals(delta, 0)) {
+			return Utils.sign(delta) * 2;
+		}
+		
+		delta = hexant(y1, x1) - hexant(y2, x2);
 
-			// Use "shortest" circular distance between Coords.
-			// Example, hexant 5 is circularly before hexant 0.
-			// Does not preserve actual delta between Coords.
-			if (Math.abs(delta) > 3) {
-				delta = -delta;
-			}
-			if (!Utils.equals(delta, 0)) {
-				return Utils.sign(delta);
-			}
-			
-			return 0;
+		// Use "shortest" circular distance between Coords.
+		// Example, hexant 5 is circularly before hexant 0.
+		// Does not preserve actual delta between Coords.
+		if (Math.abs(delta) > 3) {
+			delta = -delta;
 		}
+		if (!Utils.equals(delta, 0)) {
+			return Utils.sign(delta);
+		}
+		
+		return 0;
 	}
 	
 	public double hexant(double yD, double xD) {
@@ -288,6 +461,89 @@ public class Hexagonal2DPlane extends Abstract2DPlane {
 		return new Point(y, x);
 	}
 	
+	/**
+	 * Samples evenly spaced Points along the hex circle of the given distance,
+	 * from one hexant value to another, both included, as by <code>getPointByHexant</code>.
+	 * If the hexant values are equal, the whole circle is sampled, ending back at the start.
+	 * 
+	 * Points are written interleaved, Point <code>i</code> to <code>(results[2 * i], results[2 * i + 1])</code>.
+	 * Nothing is allocated, and each hexant crossed is handled once, not once per Point.
+	 * 
+	 * @param distance
+	 * @param fromHexant
+	 * @param toHexant
+	 * @param direction DIRECTION_CLOCKWISE to sample with increasing hexant values, DIRECTION_ANTICLOCKWISE to decrease.
+	 * @param results
+	 * @param count The number of Points to sample.
+	 * @throws IllegalArgumentException If the count is negative, or results can not hold count Points.
+	 */
+	public void getPointsInArc(double distance, double fromHexant, double toHexant, int direction, double[] results, int count) {
+		double sweep = Utils.modulus((toHexant - fromHexant) * direction, 6);
+		if (sweep == 0) {
+			sweep = 6;
+		}
+		double step = (count > 1) ? (sweep * direction) / (count - 1) : 0;
+		sampleArc(distance, Utils.modulus(fromHexant, 6), step, results, count);
+	}
+	
+	/**
+	 * Samples the Points <code>getDeltaInArc(yD, xD, step * i)</code>, for <code>i</code> from 0 to count - 1,
+	 * writing Point <code>i</code> to <code>(results[2 * i], results[2 * i + 1])</code>.
+	 * Nothing is allocated, and each hexant crossed is handled once, not once per Point.
+	 * 
+	 * @param yD
+	 * @param xD
+	 * @param step The arc length between Points, positive clockwise.
+	 * @param results
+	 * @param count The number of Points to sample.
+	 * @throws IllegalArgumentException If the count is negative, or results can not hold count Points.
+	 */
+	public void getDeltasInArc(double yD, double xD, double step, double[] results, int count) {
+		double distance = distance(yD, xD);
+		sampleArc(distance, hexant(yD, xD), step / distance, results, count);
+	}
+	
+	/**
+	 * Samples Points at the hexant values <code>from + hexantStep * i</code>,
+	 * one run of Points per hexant crossed.
+	 */
+	private void sampleArc(double distance, double from, double hexantStep, double[] results, int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Count " + count + " is negative.");
+		}
+		if (results.length < count * 2L) {
+			throw new IllegalArgumentException("Results array of length " + results.length + " can not hold " + count + " Points.");
+		}
+		
+		int index = 0;
+		while (index < count) {
+			// The hexant of the next Point, and how many more Points fall within it.
+			double value = from + hexantStep * index;
+			double floor = Math.floor(value);
+			int run;
+			if (hexantStep > 0) {
+				run = (int) Math.ceil((floor + 1 - from) / hexantStep) - index;
+			} else if (hexantStep < 0) {
+				run = (int) Math.floor((floor - from) / hexantStep) + 1 - index;
+			} else {
+				run = count - index;
+			}
+			run = Math.max(1, Math.min(run, count - index));
+			
+			int hexantIndex = Math.floorMod((int) floor, 6);
+			double startY = hexantStart[hexantIndex].y * distance;
+			double startX = hexantStart[hexantIndex].x * distance;
+			double forwardY = hexantForward[hexantIndex].y * distance;
+			double forwardX = hexantForward[hexantIndex].x * distance;
+			for (int i = index; i < index + run; i++) {
+				double hexantDelta = (from + hexantStep * i) - floor;
+				results[2 * i] = startY + forwardY * hexantDelta;
+				results[2 * i + 1] = startX + forwardX * hexantDelta;
+			}
+			index += run;
+		}
+	}
+	
 	public Coord getHexantStart(int hexant) {
 		return hexantStart[hexant];
 	}
@@ -295,4 +551,798 @@ public class Hexagonal2DPlane extends Abstract2DPlane {
 	public Coord getHexantForward(int hexant) {
 		return hexantForward[hexant];
 	}
+	
+	/**
+	 * Returns the parent of the given hex, in the aperture 7 hierarchy.
+	 * 
+	 * Each hex <code>(y, x)</code> at a coarser level covers a flower of seven hexes at the next finer level,
+	 * centred on <code>(y - 3x, 3y - 2x)</code>, with its six neighbours.
+	 * The flowers tile the finer level, so every hex has exactly one parent,
+	 * found with integer arithmetic only.
+	 * 
+	 * @param y
+	 * @param x
+	 * @return The packed Coord of the parent, see <code>Coord.pack(int, int)</code>.
+	 */
+	public long getParent(int y, int x) {
+		Coord step = parentSteps[Math.floorMod(x - 3 * y, 7)];
+		int centreY = y + step.y;
+		int centreX = x + step.x;
+		// Exactly divisible, as the centre is the image of its parent.
+		return Coord.pack((-2 * centreY + 3 * centreX) / 7, (-3 * centreY + centreX) / 7);
+	}
+	
+	/**
+	 * Returns the centre of the flower of children of the given hex, in the aperture 7 hierarchy.
+	 * 
+	 * @param y
+	 * @param x
+	 * @return The packed Coord of the centre child, see <code>Coord.pack(int, int)</code>.
+	 * @see #getParent(int, int)
+	 */
+	public long getChildCentre(int y, int x) {
+		return Coord.pack(y - 3 * x, 3 * y - 2 * x);
+	}
+	
+	/**
+	 * Finds the seven children of the given hex, in the aperture 7 hierarchy,
+	 * the centre child first, then its neighbours by hexant.
+	 * 
+	 * @param y
+	 * @param x
+	 * @param results Receives the packed Coords of the children, must hold at least seven (7).
+	 * @see #getParent(int, int)
+	 */
+	public void getChildren(int y, int x, long[] results) {
+		int centreY = y - 3 * x;
+		int centreX = 3 * y - 2 * x;
+		results[0] = Coord.pack(centreY, centreX);
+		for (int hexant = 0; hexant < 6; hexant++) {
+			results[hexant + 1] = Coord.pack(centreY + hexantStart[hexant].y, centreX + hexantStart[hexant].x);
+		}
+	}
+	
+	/**
+	 * Rotates every given hex clockwise about the pivot, by the given number of hexants (60 degrees each),
+	 * in place. Negative steps rotate anticlockwise.
+	 * 
+	 * @param coords Packed Coords, see <code>Coord.pack(int, int)</code>.
+	 * @param pivot
+	 * @param steps
+	 */
+	public void rotate(long[] coords, Coord pivot, int steps) {
+		transform(coords, pivot, rotations[Math.floorMod(steps, 6)]);
+	}
+	
+	/**
+	 * Rotates every given hex clockwise about the pivot, by the given number of hexants (60 degrees each),
+	 * in place. Negative steps rotate anticlockwise.
+	 * 
+	 * @param coords Coords interleaved, hex <code>i</code> is <code>(coords[2 * i], coords[2 * i + 1])</code>.
+	 * @param pivot
+	 * @param steps
+	 */
+	public void rotate(int[] coords, Coord pivot, int steps) {
+		transform(coords, pivot, rotations[Math.floorMod(steps, 6)]);
+	}
+	
+	/**
+	 * Reflects every given hex across an axis through the pivot, in place.
+	 * Axis <code>a</code> runs through hexants <code>a</code> and <code>a + 3</code>,
+	 * and maps hexant <code>h</code> to hexant <code>2a - h</code> (mod 6).
+	 * 
+	 * @param coords Packed Coords, see <code>Coord.pack(int, int)</code>.
+	 * @param pivot
+	 * @param axis 0, 1, or 2.
+	 * @throws IllegalArgumentException If the axis is not 0, 1, or 2.
+	 */
+	public void reflect(long[] coords, Coord pivot, int axis) {
+		transform(coords, pivot, reflection(axis));
+	}
+	
+	/**
+	 * Reflects every given hex across an axis through the pivot, in place.
+	 * 
+	 * @param coords Coords interleaved, hex <code>i</code> is <code>(coords[2 * i], coords[2 * i + 1])</code>.
+	 * @param pivot
+	 * @param axis 0, 1, or 2.
+	 * @throws IllegalArgumentException If the axis is not 0, 1, or 2.
+	 * @see #reflect(long[], Coord, int)
+	 */
+	public void reflect(int[] coords, Coord pivot, int axis) {
+		transform(coords, pivot, reflection(axis));
+	}
+	
+	/**
+	 * Moves every given hex by the given delta, in place.
+	 * 
+	 * @param coords Packed Coords, see <code>Coord.pack(int, int)</code>.
+	 * @param yD
+	 * @param xD
+	 */
+	public void translate(long[] coords, int yD, int xD) {
+		for (int i = 0; i < coords.length; i++) {
+			coords[i] = Coord.pack(Coord.unpackY(coords[i]) + yD, Coord.unpackX(coords[i]) + xD);
+		}
+	}
+	
+	/**
+	 * Moves every given hex by the given delta, in place.
+	 * 
+	 * @param coords Coords interleaved, hex <code>i</code> is <code>(coords[2 * i], coords[2 * i + 1])</code>.
+	 * @param yD
+	 * @param xD
+	 */
+	public void translate(int[] coords, int yD, int xD) {
+		for (int i = 0; i + 1 < coords.length; i += 2) {
+			coords[i] += yD;
+			coords[i + 1] += xD;
+		}
+	}
+	
+	private static int[] reflection(int axis) {
+		if (axis < 0 || axis > 2) {
+			throw new IllegalArgumentException("Axis " + axis + " is not 0, 1, or 2.");
+		}
+		return reflections[axis];
+	}
+	
+	/**
+	 * Applies the given matrix about the pivot.
+	 */
+	private static void transform(long[] coords, Coord pivot, int[] matrix) {
+		int yy = matrix[0];
+		int yx = matrix[1];
+		int xy = matrix[2];
+		int xx = matrix[3];
+		for (int i = 0; i < coords.length; i++) {
+			int y = Coord.unpackY(coords[i]) - pivot.y;
+			int x = Coord.unpackX(coords[i]) - pivot.x;
+			coords[i] = Coord.pack(pivot.y + yy * y + yx * x, pivot.x + xy * y + xx * x);
+		}
+	}
+	
+	private static void transform(int[] coords, Coord pivot, int[] matrix) {
+		int yy = matrix[0];
+		int yx = matrix[1];
+		int xy = matrix[2];
+		int xx = matrix[3];
+		for (int i = 0; i + 1 < coords.length; i += 2) {
+			int y = coords[i] - pivot.y;
+			int x = coords[i + 1] - pivot.x;
+			coords[i] = pivot.y + yy * y + yx * x;
+			coords[i + 1] = pivot.x + xy * y + xx * x;
+		}
+	}
+	
+	/**
+	 * Iterates over the circle positions of the given radius around the given centre.
+	 * 
+	 * @param centre
+	 * @param radius
+	 * @return An iterator over the packed Coords of the ring, in circle position order.
+	 */
+	public HexSpiralIterator ring(Coord centre, int radius) {
+		return new HexSpiralIterator(this, centre.y, centre.x, spiralOffset(radius), spiralOffset(radius + 1));
+	}
+	
+	/**
+	 * Iterates over the spiral positions out to the given radius around the given centre.
+	 * 
+	 * @param centre
+	 * @param radius
+	 * @return An iterator over the packed Coords of the spiral, in spiral position order.
+	 */
+	public HexSpiralIterator spiral(Coord centre, int radius) {
+		return new HexSpiralIterator(this, centre.y, centre.x, 0, spiralOffset(radius + 1));
+	}
+	
+	/**
+	 * Splits the circle positions of the given radius around the given centre,
+	 * for use with <code>StreamSupport.longStream</code>.
+	 * 
+	 * @param centre
+	 * @param radius
+	 * @return A spliterator over the packed Coords of the ring.
+	 */
+	public HexSpiralSpliterator ringSpliterator(Coord centre, int radius) {
+		return new HexSpiralSpliterator(this, centre.y, centre.x, spiralOffset(radius), spiralOffset(radius + 1));
+	}
+	
+	/**
+	 * Splits the spiral positions out to the given radius around the given centre,
+	 * for use with <code>StreamSupport.longStream</code>.
+	 * 
+	 * @param centre
+	 * @param radius
+	 * @return A spliterator over the packed Coords of the spiral.
+	 */
+	public HexSpiralSpliterator spiralSpliterator(Coord centre, int radius) {
+		return new HexSpiralSpliterator(this, centre.y, centre.x, 0, spiralOffset(radius + 1));
+	}
+	
+	/**
+	 * Returns the radius of the given spiral position.
+	 * 
+	 * @param spiralPosition
+	 * @return The radius of the given spiral position.
+	 * @throws IllegalArgumentException If the spiral position is negative.
+	 */
+	public int getRadius(int spiralPosition) {
+		return spiralRadius(spiralPosition);
+	}
+	
+	/**
+	 * Returns the circle position of the given spiral position,
+	 * within the ring of its radius.
+	 * 
+	 * @param spiralPosition
+	 * @return The circle position of the given spiral position.
+	 * @throws IllegalArgumentException If the spiral position is negative.
+	 */
+	public int getCirclePosition(int spiralPosition) {
+		return spiralPosition - spiralOffset(spiralRadius(spiralPosition));
+	}
+	
+	/**
+	 * Returns the spiral position of the given circle position.
+	 * Rings hold <code>6r</code> circle positions, and start at spiral position <code>3r(r - 1) + 1</code>.
+	 * 
+	 * @param radius
+	 * @param circlePosition
+	 * @return The spiral position of the given circle position.
+	 */
+	public int getSpiralPositionByCircle(int radius, int circlePosition) {
+		return spiralOffset(radius) + circlePosition;
+	}
+	
+	/**
+	 * Returns the hexant of the given circle position.
+	 * 
+	 * @param radius
+	 * @param circlePosition
+	 * @return The hexant of the given circle position, 0 for radius 0.
+	 */
+	public int getHexant(int radius, int circlePosition) {
+		return (radius == 0) ? 0 : circlePosition / radius;
+	}
+	
+	/**
+	 * Returns the hexant position of the given circle position,
+	 * the number of steps from the start of its hexant.
+	 * 
+	 * @param radius
+	 * @param circlePosition
+	 * @return The hexant position of the given circle position, 0 for radius 0.
+	 */
+	public int getHexantPosition(int radius, int circlePosition) {
+		return (radius == 0) ? 0 : circlePosition % radius;
+	}
+	
+	/**
+	 * Returns the circle position of the given hexant position.
+	 * 
+	 * @param radius
+	 * @param hexant
+	 * @param hexantPosition
+	 * @return The circle position of the given hexant position.
+	 */
+	public int getCirclePosition(int radius, int hexant, int hexantPosition) {
+		return hexant * radius + hexantPosition;
+	}
+	
+	/**
+	 * Returns the hex at the given spiral position, relative to the origin.
+	 * 
+	 * @param spiralPosition
+	 * @return The packed Coord of the hex, see <code>Coord.pack(int, int)</code>.
+	 * @throws IllegalArgumentException If the spiral position is negative.
+	 */
+	public long getCoordBySpiral(int spiralPosition) {
+		int radius = spiralRadius(spiralPosition);
+		if (radius == 0) {
+			return Coord.pack(0, 0);
+		}
+		int circlePosition = spiralPosition - spiralOffset(radius);
+		int hexant = circlePosition / radius;
+		int hexantPosition = circlePosition % radius;
+		Coord start = hexantStart[hexant];
+		Coord forward = hexantForward[hexant];
+		return Coord.pack(start.y * radius + forward.y * hexantPosition, start.x * radius + forward.x * hexantPosition);
+	}
+	
+	/**
+	 * Returns the spiral position of the hex at the given delta from the origin.
+	 * 
+	 * @param yD
+	 * @param xD
+	 * @return The spiral position of the hex.
+	 */
+	public int getSpiralPosition(int yD, int xD) {
+		// Integer version of distance(double, double).
+		int radius = ((yD < 0) != (xD < 0) && yD != 0 && xD != 0) ? Math.abs(yD) + Math.abs(xD) : Math.max(Math.abs(yD), Math.abs(xD));
+		if (radius == 0) {
+			return 0;
+		}
+		
+		// Find the hexant containing the hex, and the steps along it from its start.
+		int hexant;
+		int hexantPosition;
+		if (yD == radius && xD >= 0 && xD < radius) {
+			hexant = 0;
+			hexantPosition = xD;
+		} else if (xD == radius && yD > 0) {
+			hexant = 1;
+			hexantPosition = radius - yD;
+		} else if (yD <= 0 && xD > 0) {
+			hexant = 2;
+			hexantPosition = -yD;
+		} else if (yD == -radius && xD > -radius && xD <= 0) {
+			hexant = 3;
+			hexantPosition = -xD;
+		} else if (xD == -radius && yD < 0) {
+			hexant = 4;
+			hexantPosition = yD + radius;
+		} else {
+			hexant = 5;
+			hexantPosition = yD;
+		}
+		return spiralOffset(radius) + hexant * radius + hexantPosition;
+	}
+	
+	public int getSpiralPosition(Coord delta) {
+		return getSpiralPosition(delta.y, delta.x);
+	}
+	
+	/**
+	 * Draws a line of hexes from one hex to another,
+	 * breaking ties towards the start hex, then clockwise.
+	 * See <code>line(Coord, Coord, int, int, boolean)</code>.
+	 * 
+	 * @param from
+	 * @param to
+	 * @param supercover
+	 * @return The packed Coords of the line, in order from the start hex.
+	 */
+	public long[] line(Coord from, Coord to, boolean supercover) {
+		return line(from, to, ROUND_DOWN, DIRECTION_CLOCKWISE, supercover);
+	}
+	
+	/**
+	 * Draws a line of hexes from one hex to another.
+	 * The line is sampled once per hex of distance between the hexes,
+	 * and each sample is rounded relative to the start hex,
+	 * as by <code>round(double, double, int, int)</code>.
+	 * 
+	 * A sample may fall exactly between hexes.
+	 * Without supercover, the given round and direction pick one of them,
+	 * and the line holds exactly one hex per sample.
+	 * With supercover, every one of them is included,
+	 * so that the line holds every hex the line touches.
+	 * 
+	 * @param from
+	 * @param to
+	 * @param round
+	 * @param direction
+	 * @param supercover
+	 * @return The packed Coords of the line, in order from the start hex.
+	 */
+	public long[] line(Coord from, Coord to, int round, int direction, boolean supercover) {
+		int steps = (int) distance(to.y - from.y, to.x - from.x);
+		final long[] cells = new long[(steps + 1) * 3];
+		final int[] count = {0};
+		walkLine(from.y, from.x, to.y, to.x, round, direction, supercover, true, new long[3], new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				cells[count[0]++] = Coord.pack(y, x);
+				return true;
+			}
+		});
+		return Arrays.copyOf(cells, count[0]);
+	}
+	
+	/**
+	 * Determines if the line between two hexes is clear,
+	 * breaking ties towards the start hex, then clockwise.
+	 * The hexes themselves are not checked.
+	 * 
+	 * @param from
+	 * @param to
+	 * @param supercover If true, every hex the line touches must be clear,
+	 * otherwise only the hexes of the line drawn without supercover.
+	 * @param check Returns true if a hex is clear.
+	 * @return true if every hex between the given hexes is clear, false otherwise.
+	 */
+	public boolean lineOfSight(Coord from, Coord to, boolean supercover, CoordCheckFunctor check) {
+		return walkLine(from.y, from.x, to.y, to.x, ROUND_DOWN, DIRECTION_CLOCKWISE, supercover, false, new long[3], check);
+	}
+	
+	/**
+	 * Determines if each of the given lines is clear,
+	 * see <code>lineOfSight(Coord, Coord, boolean, CoordCheckFunctor)</code>.
+	 * Lines are stored interleaved, line <code>i</code> runs from
+	 * <code>(lines[4 * i], lines[4 * i + 1])</code> to <code>(lines[4 * i + 2], lines[4 * i + 3])</code>,
+	 * and its result is written to <code>results[i]</code>.
+	 * Each line stops checking at its first blocked hex,
+	 * and nothing is allocated per line.
+	 * 
+	 * @param lines
+	 * @param supercover
+	 * @param check Returns true if a hex is clear.
+	 * @param results
+	 */
+	public void lineOfSight(int[] lines, boolean supercover, CoordCheckFunctor check, boolean[] results) {
+		long[] scratch = new long[3];
+		for (int i = 0; i < lines.length / 4; i++) {
+			results[i] = walkLine(lines[4 * i], lines[4 * i + 1], lines[4 * i + 2], lines[4 * i + 3], ROUND_DOWN, DIRECTION_CLOCKWISE, supercover, false, scratch, check);
+		}
+	}
+	
+	/**
+	 * Visits each hex of the line between two hexes, in order,
+	 * stopping at the first hex the visitor returns false for.
+	 * 
+	 * @param ends If false, the start and end hexes are not visited.
+	 * @param scratch Holds the candidates of each sample, must hold at least three (3).
+	 * @return true if every hex was visited, false if the visitor stopped the walk.
+	 */
+	private boolean walkLine(int fromY, int fromX, int toY, int toX, int round, int direction, boolean supercover, boolean ends, long[] scratch, CoordCheckFunctor visitor) {
+		int yD = toY - fromY;
+		int xD = toX - fromX;
+		int steps = (int) distance(yD, xD);
+		
+		// Consecutive samples may share a candidate, only visit it once.
+		long last1 = 0;
+		long last2 = 0;
+		int visited = 0;
+		for (int i = 0; i <= steps; i++) {
+			double sampleY = (steps == 0) ? 0 : (double) yD * i / steps;
+			double sampleX = (steps == 0) ? 0 : (double) xD * i / steps;
+			int count;
+			if (supercover) {
+				count = round(sampleY, sampleX, scratch);
+			} else {
+				scratch[0] = roundPacked(sampleY, sampleX, round, direction);
+				count = 1;
+			}
+			
+			for (int c = 0; c < count; c++) {
+				int y = fromY + Coord.unpackY(scratch[c]);
+				int x = fromX + Coord.unpackX(scratch[c]);
+				long cell = Coord.pack(y, x);
+				if ((visited > 0 && cell == last1) || (visited > 1 && cell == last2)) {
+					continue;
+				}
+				last2 = last1;
+				last1 = cell;
+				visited++;
+				
+				if (!ends && ((y == fromY && x == fromX) || (y == toY && x == toX))) {
+					continue;
+				}
+				if (!visitor.check(y, x)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Finds the edges between the blocked hexes within the given radius of the centre and their clear neighbours,
+	 * as Segments in the coordinates of this plane, every hex being centred on its Coord,
+	 * ready for <code>getFOV(Point, Collection)</code>.
+	 * Edges between two blocked hexes can never be seen, so are left out,
+	 * and a blocked region gives only its boundary, in proportion to its perimeter rather than its size.
+	 * Each edge runs clockwise around its blocked hex.
+	 * 
+	 * Neighbours beyond the radius are checked too, so a blocked region crossing the radius is not closed off.
+	 * Every hex is checked once.
+	 * 
+	 * @param centre
+	 * @param radius
+	 * @param check Returns true if a hex is clear.
+	 * @return The boundary edges of the blocked hexes.
+	 */
+	public List<Segment> getOccluders(Coord centre, int radius, CoordCheckFunctor check) {
+		int size = spiralOffset(radius + 1);
+		boolean[] clear = new boolean[spiralOffset(radius + 2)];
+		for (int i = 0; i < clear.length; i++) {
+			long delta = getCoordBySpiral(i);
+			clear[i] = check.check(centre.y + Coord.unpackY(delta), centre.x + Coord.unpackX(delta));
+		}
+		
+		List<Segment> segments = new ArrayList<Segment>();
+		for (int i = 0; i < size; i++) {
+			if (clear[i]) {
+				continue;
+			}
+			long delta = getCoordBySpiral(i);
+			int yD = Coord.unpackY(delta);
+			int xD = Coord.unpackX(delta);
+			for (int hexant = 0; hexant < 6; hexant++) {
+				if (clear[getSpiralPosition(yD + hexantStart[hexant].y, xD + hexantStart[hexant].x)]) {
+					Point start = corners[(hexant + 5) % 6];
+					Point end = corners[hexant];
+					int y = centre.y + yD;
+					int x = centre.x + xD;
+					segments.add(new Segment(new Point(y + start.y, x + start.x), new Point(y + end.y, x + end.x)));
+				}
+			}
+		}
+		return segments;
+	}
+	
+	/**
+	 * Finds every hex reachable from the start hex in at most the given number of steps,
+	 * stepping only onto hexes that pass the check.
+	 * The start hex is always included, and is not checked.
+	 * 
+	 * @param start
+	 * @param maxDistance
+	 * @param check Returns true if a hex is passable.
+	 * @return The packed Coords of the reachable hexes, in order of steps from the start.
+	 */
+	public long[] range(Coord start, int maxDistance, CoordCheckFunctor check) {
+		return search(start, maxDistance, maxDistance, check);
+	}
+	
+	/**
+	 * Finds every hex connected to the start hex through hexes that pass the check,
+	 * without leaving the given radius around the start hex.
+	 * The start hex is always included, and is not checked.
+	 * 
+	 * @param start
+	 * @param radius
+	 * @param check Returns true if a hex is passable.
+	 * @return The packed Coords of the connected hexes, in order of steps from the start.
+	 */
+	public long[] floodFill(Coord start, int radius, CoordCheckFunctor check) {
+		return search(start, radius, Integer.MAX_VALUE, check);
+	}
+	
+	/**
+	 * Finds every hex reachable from the start hex for at most the given total cost.
+	 * Each step costs the cost of the hex stepped onto.
+	 * The start hex is always included, and costs nothing.
+	 * 
+	 * Hexes are settled in order of cost, using one bucket per total cost (Dial's algorithm),
+	 * so no priority queue is needed.
+	 * The buckets form a ring just longer than the largest step cost seen,
+	 * and the cost of each hex is kept in a map,
+	 * so memory grows with the hexes reached rather than with the maximum cost.
+	 * 
+	 * @param start
+	 * @param maxCost
+	 * @param cost Returns the cost of entering a hex, 0 or less if impassable.
+	 * @return The packed Coords of the reachable hexes, in order of cost from the start.
+	 */
+	public long[] rangeByCost(Coord start, int maxCost, CoordCostFunctor cost) {
+		LongIntMap costs = new LongIntMap();
+		LongQueue[] buckets = new LongQueue[2];
+		int queued = 0;
+		long[] reached = new long[16];
+		int count = 0;
+		
+		costs.put(start.pack(), 0);
+		buckets[0] = new LongQueue();
+		buckets[0].add(start.pack());
+		queued++;
+		for (int total = 0; queued > 0 && total <= maxCost; total++) {
+			LongQueue bucket = buckets[total & (buckets.length - 1)];
+			if (bucket == null) {
+				continue;
+			}
+			while (!bucket.isEmpty()) {
+				long cell = bucket.poll();
+				queued--;
+				if (costs.get(cell, Integer.MAX_VALUE) < total) {
+					// Already settled for less.
+					continue;
+				}
+				if (count == reached.length) {
+					reached = Arrays.copyOf(reached, count * 2);
+				}
+				reached[count++] = cell;
+				
+				int y = Coord.unpackY(cell);
+				int x = Coord.unpackX(cell);
+				for (Coord step : hexantStart) {
+					int nextY = y + step.y;
+					int nextX = x + step.x;
+					long next = Coord.pack(nextY, nextX);
+					if (costs.get(next, Integer.MAX_VALUE) <= total) {
+						continue;
+					}
+					int stepCost = cost.cost(nextY, nextX);
+					if (stepCost <= 0 || stepCost > maxCost - total) {
+						continue;
+					}
+					int nextTotal = total + stepCost;
+					if (nextTotal < costs.get(next, Integer.MAX_VALUE)) {
+						costs.put(next, nextTotal);
+						if (stepCost >= buckets.length) {
+							buckets = growBuckets(buckets, total, stepCost);
+						}
+						int slot = nextTotal & (buckets.length - 1);
+						if (buckets[slot] == null) {
+							buckets[slot] = new LongQueue();
+						}
+						buckets[slot].add(next);
+						queued++;
+					}
+				}
+			}
+		}
+		
+		return Arrays.copyOf(reached, count);
+	}
+	
+	/**
+	 * Grows the ring of buckets to be longer than the given step cost.
+	 * Every queued total lies within the old ring's length of the current total,
+	 * so each bucket's total is recovered from its slot.
+	 */
+	private static LongQueue[] growBuckets(LongQueue[] buckets, int total, int stepCost) {
+		int length = Integer.highestOneBit(stepCost) * 2;
+		LongQueue[] grown = new LongQueue[length];
+		for (int slot = 0; slot < buckets.length; slot++) {
+			int bucketTotal = total + ((slot - total) & (buckets.length - 1));
+			grown[bucketTotal & (length - 1)] = buckets[slot];
+		}
+		return grown;
+	}
+	
+	/**
+	 * Finds a path with the fewest steps from one hex to another,
+	 * stepping only onto hexes that pass the check.
+	 * To run many searches without reallocating, use a <code>HexPathfinder</code>.
+	 * 
+	 * @param from
+	 * @param to
+	 * @param maxCost The maximum number of steps.
+	 * @param check Returns true if a hex is passable.
+	 * @return The path as pairs of y and x, from the start hex to the end hex inclusive,
+	 * or null if there is no path within the maximum number of steps.
+	 * @see HexPathfinder#findPath(Coord, Coord, int, CoordCheckFunctor)
+	 */
+	public int[] findPath(Coord from, Coord to, int maxCost, CoordCheckFunctor check) {
+		return new HexPathfinder(this).findPath(from, to, maxCost, check);
+	}
+	
+	/**
+	 * Finds a path with the lowest cost from one hex to another,
+	 * stepping only onto hexes that pass the check.
+	 * To run many searches without reallocating, use a <code>HexPathfinder</code>.
+	 * 
+	 * @param from
+	 * @param to
+	 * @param maxCost The maximum total cost.
+	 * @param check Returns true if a hex is passable.
+	 * @param cost Returns the cost of entering a hex, 0 or less if impassable. May be null.
+	 * @return The path as pairs of y and x, from the start hex to the end hex inclusive,
+	 * or null if there is no path within the maximum cost.
+	 * @see HexPathfinder#findPath(Coord, Coord, int, CoordCheckFunctor, CoordCostFunctor)
+	 */
+	public int[] findPath(Coord from, Coord to, int maxCost, CoordCheckFunctor check, CoordCostFunctor cost) {
+		return new HexPathfinder(this).findPath(from, to, maxCost, check, cost);
+	}
+	
+	/**
+	 * Computes the number of steps from every hex within a radius to the nearest source,
+	 * stepping only onto hexes that pass the check, and the flow field towards the sources.
+	 * 
+	 * @param centre The centre of the region.
+	 * @param radius The radius of the region.
+	 * @param sources The packed Coords of the sources.
+	 * @param check Returns true if a hex is passable. Must be thread safe for large regions.
+	 * @return The distance field.
+	 * @see HexDistanceField#compute(long[], CoordCheckFunctor)
+	 */
+	public HexDistanceField distanceField(Coord centre, int radius, long[] sources, CoordCheckFunctor check) {
+		HexDistanceField field = new HexDistanceField(this, centre, radius);
+		field.compute(sources, check);
+		return field;
+	}
+	
+	/**
+	 * Computes the lowest cost from every hex within a radius to the nearest source,
+	 * and the flow field towards the sources.
+	 * 
+	 * @param centre The centre of the region.
+	 * @param radius The radius of the region.
+	 * @param sources The packed Coords of the sources.
+	 * @param cost Returns the cost of entering a hex, 0 or less if impassable.
+	 * @return The distance field.
+	 * @see HexDistanceField#computeByCost(long[], CoordCostFunctor)
+	 */
+	public HexDistanceField distanceFieldByCost(Coord centre, int radius, long[] sources, CoordCostFunctor cost) {
+		HexDistanceField field = new HexDistanceField(this, centre, radius);
+		field.computeByCost(sources, cost);
+		return field;
+	}
+	
+	/**
+	 * Breadth first search from the start hex,
+	 * within the given radius and the given number of steps.
+	 * Hexes are tracked by their spiral position around the start hex.
+	 */
+	private long[] search(Coord start, int radius, int maxSteps, CoordCheckFunctor check) {
+		BitSet visited = new BitSet(spiralOffset(radius + 1));
+		LongQueue queue = new LongQueue();
+		long[] reached = new long[16];
+		int count = 0;
+		
+		visited.set(0);
+		queue.add(start.pack());
+		// Hexes still queued at the current number of steps.
+		int level = 1;
+		int steps = 0;
+		while (!queue.isEmpty()) {
+			long cell = queue.poll();
+			level--;
+			if (count == reached.length) {
+				reached = Arrays.copyOf(reached, count * 2);
+			}
+			reached[count++] = cell;
+			
+			if (steps < maxSteps) {
+				int y = Coord.unpackY(cell);
+				int x = Coord.unpackX(cell);
+				for (Coord step : hexantStart) {
+					int nextY = y + step.y;
+					int nextX = x + step.x;
+					if (distance(nextY - start.y, nextX - start.x) > radius) {
+						continue;
+					}
+					int index = getSpiralPosition(nextY - start.y, nextX - start.x);
+					if (visited.get(index)) {
+						continue;
+					}
+					visited.set(index);
+					if (check.check(nextY, nextX)) {
+						queue.add(Coord.pack(nextY, nextX));
+					}
+				}
+			}
+			
+			if (level == 0) {
+				level = queue.size();
+				steps++;
+			}
+		}
+		
+		return Arrays.copyOf(reached, count);
+	}
+	
+	/**
+	 * Returns the spiral position of the first hex at the given radius,
+	 * <code>3r(r - 1) + 1</code>, or 0 for radius 0.
+	 */
+	static int spiralOffset(int radius) {
+		return (radius == 0) ? 0 : 3 * radius * (radius - 1) + 1;
+	}
+	
+	/**
+	 * Returns the radius of the hex at the given spiral position.
+	 * 
+	 * @throws IllegalArgumentException If the spiral position is negative.
+	 */
+	static int spiralRadius(int index) {
+		if (index < 0) {
+			throw new IllegalArgumentException("Spiral position " + index + " is negative.");
+		}
+		if (index == 0) {
+			return 0;
+		}
+		// Inverse of the offset, corrected for any rounding of the square root.
+		int radius = (int) ((3 + Math.sqrt(12D * index - 3)) / 6);
+		while (spiralOffset(radius + 1) <= index) {
+			radius++;
+		}
+		while (spiralOffset(radius) > index) {
+			radius--;
+		}
+		return radius;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package darq.math.geometry;
+
+import java.util.Arrays;
+
+/**
+ * An <code>int</code> for every hex within a radius of a centre hex, see <code>HexMap</code>.
+ *
+ * @author Craig.Webster
+ */
+public class IntHexMap extends HexMap {
+	private final int[] values;
+
+	public IntHexMap(Hexagonal2DPlane plane, Coord centre, int radius) {
+		super(plane, centre, radius);
+		this.values = new int[size()];
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the hex is outside the map.
+	 */
+	public int get(int y, int x) {
+		return values[checkedIndex(y, x)];
+	}
+
+	public int get(Coord coord) {
+		return get(coord.y, coord.x);
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the hex is outside the map.
+	 */
+	public void set(int y, int x, int value) {
+		values[checkedIndex(y, x)] = value;
+	}
+
+	public void set(Coord coord, int value) {
+		set(coord.y, coord.x, value);
+	}
+
+	/**
+	 * Returns the value of the neighbour one step from the given hex in the given hexant.
+	 *
+	 * @throws IllegalArgumentException If the neighbour is outside the map.
+	 */
+	public int getNeighbour(int y, int x, int hexant) {
+		return values[checkedIndex(y, x, hexant)];
+	}
+
+	public int getAt(int index) {
+		return values[index];
+	}
+
+	public void setAt(int index, int value) {
+		values[index] = value;
+	}
+
+	public void fill(int value) {
+		Arrays.fill(values, value);
+	}
+
+	/**
+	 * Returns the values by index.
+	 * The array is the map's own, so changes to it change the map.
+	 *
+	 * @return The values by index.
+	 */
+	public int[] getValues() {
+		return values;
+	}
+}
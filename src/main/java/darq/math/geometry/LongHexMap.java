@@ -0,0 +1,70 @@
+package darq.math.geometry;
+
+import java.util.Arrays;
+
+/**
+ * A <code>long</code> for every hex within a radius of a centre hex, see <code>HexMap</code>.
+ *
+ * @author Craig.Webster
+ */
+public class LongHexMap extends HexMap {
+	private final long[] values;
+
+	public LongHexMap(Hexagonal2DPlane plane, Coord centre, int radius) {
+		super(plane, centre, radius);
+		this.values = new long[size()];
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the hex is outside the map.
+	 */
+	public long get(int y, int x) {
+		return values[checkedIndex(y, x)];
+	}
+
+	public long get(Coord coord) {
+		return get(coord.y, coord.x);
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the hex is outside the map.
+	 */
+	public void set(int y, int x, long value) {
+		values[checkedIndex(y, x)] = value;
+	}
+
+	public void set(Coord coord, long value) {
+		set(coord.y, coord.x, value);
+	}
+
+	/**
+	 * Returns the value of the neighbour one step from the given hex in the given hexant.
+	 *
+	 * @throws IllegalArgumentException If the neighbour is outside the map.
+	 */
+	public long getNeighbour(int y, int x, int hexant) {
+		return values[checkedIndex(y, x, hexant)];
+	}
+
+	public long getAt(int index) {
+		return values[index];
+	}
+
+	public void setAt(int index, long value) {
+		values[index] = value;
+	}
+
+	public void fill(long value) {
+		Arrays.fill(values, value);
+	}
+
+	/**
+	 * Returns the values by index.
+	 * The array is the map's own, so changes to it change the map.
+	 *
+	 * @return The values by index.
+	 */
+	public long[] getValues() {
+		return values;
+	}
+}
@@ -0,0 +1,65 @@
+package darq.math.geometry;
+
+import java.util.Arrays;
+
+/**
+ * An object for every hex within a radius of a centre hex, see <code>HexMap</code>.
+ * Hexes hold null until set.
+ *
+ * @param <T> The type of the values.
+ * @author Craig.Webster
+ */
+public class ObjectHexMap<T> extends HexMap {
+	private final Object[] values;
+
+	public ObjectHexMap(Hexagonal2DPlane plane, Coord centre, int radius) {
+		super(plane, centre, radius);
+		this.values = new Object[size()];
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the hex is outside the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int y, int x) {
+		return (T) values[checkedIndex(y, x)];
+	}
+
+	public T get(Coord coord) {
+		return get(coord.y, coord.x);
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the hex is outside the map.
+	 */
+	public void set(int y, int x, T value) {
+		values[checkedIndex(y, x)] = value;
+	}
+
+	public void set(Coord coord, T value) {
+		set(coord.y, coord.x, value);
+	}
+
+	/**
+	 * Returns the value of the neighbour one step from the given hex in the given hexant.
+	 *
+	 * @throws IllegalArgumentException If the neighbour is outside the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getNeighbour(int y, int x, int hexant) {
+		return (T) values[checkedIndex(y, x, hexant)];
+	}
+
+	@SuppressWarnings("unchecked")
+	public T getAt(int index) {
+		return (T) values[index];
+	}
+
+	public void setAt(int index, T value) {
+		values[index] = value;
+	}
+
+	public void fill(T value) {
+		Arrays.fill(values, value);
+	}
+}
@@ -9,14 +9,32 @@ import java.util.List;
  *
  * @author Craig.Webster
  */
-public class Polygon {
+public class Polygon implements Shape {
 	public final List<Point> points;
 	public final List<Segment> segments;
 	public final AxisAlignedBoundingBox boundingBox;
+	public final Circle boundingCircle;
 	
 	public Polygon(Point... points) {
 		this.points = Collections.unmodifiableList(Arrays.asList(points));
+		this.segments = getSegments(points);
 		
+		boundingBox = getBoundingBox(points);
+		boundingCircle = getBoundingCircle(boundingBox, points);
+	}
+	
+	/**
+	 * Creates a Polygon with bounds already known,
+	 * such as a template translated by <code>HexPolygonFactory</code>.
+	 */
+	Polygon(Point[] points, AxisAlignedBoundingBox boundingBox, Circle boundingCircle) {
+		this.points = Collections.unmodifiableList(Arrays.asList(points));
+		this.segments = getSegments(points);
+		this.boundingBox = boundingBox;
+		this.boundingCircle = boundingCircle;
+	}
+	
+	private static List<Segment> getSegments(Point... points) {
 		List<Segment> temp = new ArrayList<Segment>(points.length);
 		for (int i = 0; i < points.length - 1; i++) {
 			temp.add(new Segment(points[i], points[i + 1]));
@@ -24,9 +42,7 @@ public class Polygon {
 		if (points.length > 2) {
 			temp.add(new Segment(points[points.length - 1], points[0]));
 		}
-		this.segments = Collections.unmodifiableList(temp);
-		
-		boundingBox = getBoundingBox(points);
+		return Collections.unmodifiableList(temp);
 	}
 	
 	private static AxisAlignedBoundingBox getBoundingBox(Point... points) {
@@ -53,6 +69,33 @@ public class Polygon {
 		return new AxisAlignedBoundingBox(minY, minX, maxY, maxX);
 	}
 
+	/**
+	 * Returns a circle containing all of the given Points,
+	 * centred on the centre of the given bounding box.
+	 * Not the smallest enclosing circle, but close enough to reject most misses.
+	 */
+	private static Circle getBoundingCircle(AxisAlignedBoundingBox boundingBox, Point... points) {
+		double centreY = (boundingBox.yS + boundingBox.yE) / 2;
+		double centreX = (boundingBox.xS + boundingBox.xE) / 2;
+		
+		double max = 0;
+		for (Point point : points) {
+			double yD = point.y - centreY;
+			double xD = point.x - centreX;
+			double squared = yD * yD + xD * xD;
+			if (squared > max) {
+				max = squared;
+			}
+		}
+		
+		return new Circle(new Point(centreY, centreX), Math.sqrt(max));
+	}
+
+	@Override
+	public Type getShapeType() {
+		return Type.POLYGON;
+	}
+
 	@Override
 	public String toString() {
 		return "Polygon{points=" + points + '}';
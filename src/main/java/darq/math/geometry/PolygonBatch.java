@@ -0,0 +1,286 @@
+package darq.math.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stores many convex Polygons in flat <code>double</code> arrays,
+ * so that one Polygon may be tested against all of them in a single loop.
+ * See <code>Abstract2DPlane.collides(Polygon, PolygonBatch)</code>.
+ *
+ * The vertices of every Polygon are stored back to back,
+ * Polygon <code>i</code> owns the vertices from <code>offsets[i]</code>
+ * (inclusive) to <code>offsets[i + 1]</code> (exclusive).
+ * Edge <code>e</code> runs from vertex <code>e</code> to the next vertex
+ * of the same Polygon, wrapping back to its first vertex.
+ *
+ * For every edge, the normal, the length of the normal
+ * (as measured by the plane the batch was created for),
+ * and the projection of the owning Polygon onto the normal are cached,
+ * so none of them are recalculated per test.
+ * The bounding box of every Polygon is cached alongside,
+ * so that clear misses are rejected before any axis is tested.
+ *
+ * @author Craig.Webster
+ */
+public class PolygonBatch {
+	/**
+	 * The plane used to measure the length of the normals.
+	 */
+	public final Abstract2DPlane plane;
+
+	private final List<Polygon> polygons;
+
+	int size;
+	int vertexCount;
+	int[] offsets;
+	double[] boxYSs;
+	double[] boxXSs;
+	double[] boxYEs;
+	double[] boxXEs;
+	double[] ys;
+	double[] xs;
+	double[] normYs;
+	double[] normXs;
+	double[] normLengths;
+	double[] ownMins;
+	double[] ownMaxs;
+
+	public PolygonBatch(Abstract2DPlane plane) {
+		this(plane, 16);
+	}
+
+	public PolygonBatch(Abstract2DPlane plane, int capacity) {
+		this.plane = plane;
+		this.polygons = new ArrayList<Polygon>(capacity);
+
+		this.size = 0;
+		this.vertexCount = 0;
+		this.offsets = new int[capacity + 1];
+		this.boxYSs = new double[capacity];
+		this.boxXSs = new double[capacity];
+		this.boxYEs = new double[capacity];
+		this.boxXEs = new double[capacity];
+		int vertexCapacity = capacity * 4;
+		this.ys = new double[vertexCapacity];
+		this.xs = new double[vertexCapacity];
+		this.normYs = new double[vertexCapacity];
+		this.normXs = new double[vertexCapacity];
+		this.normLengths = new double[vertexCapacity];
+		this.ownMins = new double[vertexCapacity];
+		this.ownMaxs = new double[vertexCapacity];
+	}
+
+	/**
+	 * Adds the given Polygon to the end of the batch.
+	 *
+	 * @param polygon
+	 * @return The index of the given Polygon in the batch.
+	 * @throws IllegalArgumentException If the given Polygon is not convex.
+	 */
+	public int add(Polygon polygon) {
+		if (!plane.isConvex(polygon)) {
+			throw new IllegalArgumentException("Polygon " + polygon + " is not convex.");
+		}
+
+		int start = addVertices(polygon);
+		for (int e = start; e < vertexCount; e++) {
+			int next = (e + 1 < vertexCount) ? e + 1 : start;
+			// Same normal as used by collides(Polygon, Polygon).
+			double normY = -(xs[next] - xs[e]);
+			double normX = ys[next] - ys[e];
+			normYs[e] = normY;
+			normXs[e] = normX;
+			normLengths[e] = plane.distance(normY, normX);
+
+			// Project the Polygon onto its own normal, relative to the start of the edge.
+			double inverse = 1 / (normY * normY + normX * normX);
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int v = start; v < vertexCount; v++) {
+				double u = ((ys[v] - ys[e]) * normY + (xs[v] - xs[e]) * normX) * inverse;
+				if (u < min) {
+					min = u;
+				}
+				if (u > max) {
+					max = u;
+				}
+			}
+			ownMins[e] = min;
+			ownMaxs[e] = max;
+		}
+		return addBounds(polygon);
+	}
+
+	/**
+	 * Adds the given Polygon to the end of the batch,
+	 * copying the normals and projections of its edges from a template of the same shape,
+	 * such as those cached by <code>HexPolygonFactory</code>, rather than calculating them.
+	 * The Polygon is trusted to be convex.
+	 *
+	 * @param polygon
+	 * @param templateNormYs
+	 * @param templateNormXs
+	 * @param templateOwnMins
+	 * @param templateOwnMaxs
+	 * @return The index of the given Polygon in the batch.
+	 */
+	int add(Polygon polygon, double[] templateNormYs, double[] templateNormXs, double[] templateOwnMins, double[] templateOwnMaxs) {
+		int start = addVertices(polygon);
+		for (int e = start; e < vertexCount; e++) {
+			int i = e - start;
+			normYs[e] = templateNormYs[i];
+			normXs[e] = templateNormXs[i];
+			normLengths[e] = plane.distance(templateNormYs[i], templateNormXs[i]);
+			ownMins[e] = templateOwnMins[i];
+			ownMaxs[e] = templateOwnMaxs[i];
+		}
+		return addBounds(polygon);
+	}
+
+	/**
+	 * Appends the vertices of the given Polygon, making room for it.
+	 *
+	 * @return The index of its first vertex.
+	 */
+	private int addVertices(Polygon polygon) {
+		int count = polygon.points.size();
+		ensureCapacity(size + 1, vertexCount + count);
+
+		int start = vertexCount;
+		for (Point point : polygon.points) {
+			ys[vertexCount] = point.y;
+			xs[vertexCount] = point.x;
+			vertexCount++;
+		}
+		return start;
+	}
+
+	/**
+	 * Appends the bounding box of the given Polygon, completing it.
+	 *
+	 * @return The index of the Polygon in the batch.
+	 */
+	private int addBounds(Polygon polygon) {
+		boxYSs[size] = polygon.boundingBox.yS;
+		boxXSs[size] = polygon.boundingBox.xS;
+		boxYEs[size] = polygon.boundingBox.yE;
+		boxXEs[size] = polygon.boundingBox.xE;
+		polygons.add(polygon);
+		offsets[size + 1] = vertexCount;
+		return size++;
+	}
+
+	/**
+	 * Removes all Polygons from the batch, keeping the allocated storage.
+	 */
+	public void clear() {
+		polygons.clear();
+		size = 0;
+		vertexCount = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Polygon get(int index) {
+		return polygons.get(index);
+	}
+
+	public List<Polygon> getPolygons() {
+		return Collections.unmodifiableList(polygons);
+	}
+
+	private void ensureCapacity(int polygonCapacity, int vertexCapacity) {
+		if (polygonCapacity + 1 > offsets.length) {
+			offsets = Arrays.copyOf(offsets, Math.max(polygonCapacity + 1, offsets.length * 2));
+			boxYSs = Arrays.copyOf(boxYSs, offsets.length - 1);
+			boxXSs = Arrays.copyOf(boxXSs, offsets.length - 1);
+			boxYEs = Arrays.copyOf(boxYEs, offsets.length - 1);
+			boxXEs = Arrays.copyOf(boxXEs, offsets.length - 1);
+		}
+		if (vertexCapacity > ys.length) {
+			int length = Math.max(vertexCapacity, ys.length * 2);
+			ys = Arrays.copyOf(ys, length);
+			xs = Arrays.copyOf(xs, length);
+			normYs = Arrays.copyOf(normYs, length);
+			normXs = Arrays.copyOf(normXs, length);
+			normLengths = Arrays.copyOf(normLengths, length);
+			ownMins = Arrays.copyOf(ownMins, length);
+			ownMaxs = Arrays.copyOf(ownMaxs, length);
+		}
+	}
+
+	/**
+	 * The result of testing one Polygon against a PolygonBatch.
+	 *
+	 * <code>hits</code> has a bit set for every Polygon in the batch
+	 * that collides with the tested Polygon.
+	 * For every hit, the separation vector is the smallest possible vector,
+	 * that if applied to the Polygon in the batch,
+	 * will cause the Polygons to no longer collide.
+	 *
+	 * A Collisions instance may be reused between tests,
+	 * to avoid allocating new storage for every test.
+	 */
+	public static class Collisions {
+		public final BitSet hits;
+		private double[] separationYs;
+		private double[] separationXs;
+
+		public Collisions() {
+			this(16);
+		}
+
+		public Collisions(int capacity) {
+			this.hits = new BitSet(capacity);
+			this.separationYs = new double[capacity];
+			this.separationXs = new double[capacity];
+		}
+
+		void reset(int size) {
+			hits.clear();
+			if (separationYs.length < size) {
+				separationYs = new double[size];
+				separationXs = new double[size];
+			}
+		}
+
+		void set(int index, double yD, double xD) {
+			hits.set(index);
+			separationYs[index] = yD;
+			separationXs[index] = xD;
+		}
+
+		public boolean collides(int index) {
+			return hits.get(index);
+		}
+
+		public double getSeparationY(int index) {
+			return hits.get(index) ? separationYs[index] : Double.NaN;
+		}
+
+		public double getSeparationX(int index) {
+			return hits.get(index) ? separationXs[index] : Double.NaN;
+		}
+
+		/**
+		 * Returns the separation vector in the same form as
+		 * <code>Abstract2DPlane.collides(Polygon, Polygon)</code>.
+		 *
+		 * @param index
+		 * @return A Segment from the origin representing the separation vector,
+		 * or null if the Polygon at the given index was not hit.
+		 */
+		public Segment getSeparation(int index) {
+			if (!hits.get(index)) {
+				return null;
+			}
+			return new Segment(new Point(0, 0), new Point(separationYs[index], separationXs[index]));
+		}
+	}
+}
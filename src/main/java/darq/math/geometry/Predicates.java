@@ -0,0 +1,279 @@
+package darq.math.geometry;
+
+import java.util.Arrays;
+
+/**
+ * Adaptive precision geometric predicates, after Shewchuk's
+ * "Adaptive Precision Floating-Point Arithmetic and Fast Robust Geometric Predicates".
+ *
+ * Each predicate is first calculated with plain <code>double</code> arithmetic,
+ * along with a bound on the rounding error of that calculation.
+ * When the result is further from zero than the bound, its sign is certain and it is returned.
+ * Otherwise the predicate is recalculated exactly,
+ * using expansions: arrays of non-overlapping <code>double</code> components,
+ * in increasing order of magnitude, whose sum is the exact value.
+ *
+ * The sign of every returned value is exact.
+ * Only near-degenerate input reaches the exact calculation,
+ * so the usual cost is a few extra multiplications.
+ *
+ * @author Craig.Webster
+ */
+public class Predicates {
+	/**
+	 * Half the distance between 1 and the next <code>double</code>, 2^-53.
+	 */
+	private static final double EPSILON = Math.ulp(1D) / 2;
+	/**
+	 * Splits a <code>double</code> into two halves of 26 bits, 2^27 + 1.
+	 */
+	private static final double SPLITTER = (1 << 27) + 1;
+	private static final double CROSS_BOUND = (3 + 16 * EPSILON) * EPSILON;
+	private static final double IN_CIRCLE_BOUND = (10 + 96 * EPSILON) * EPSILON;
+
+	private Predicates() {
+	}
+
+	/**
+	 * Calculates the orientation of Point c relative to the line from Point a to Point b,
+	 * with the same sign as <code>Abstract2DPlane.compare(Point, Segment)</code>.
+	 *
+	 * @return A negative value if c is to the left of a to b,
+	 * 0 if a, b and c are colinear,
+	 * and a positive value if c is to the right of a to b.
+	 */
+	public static double orient(double ay, double ax, double by, double bx, double cy, double cx) {
+		return cross(ay, ax, by, bx, ay, ax, cy, cx);
+	}
+
+	/**
+	 * Calculates the cross product of the vector from a to b, with the vector from c to d,
+	 * <code>(by - ay) * (dx - cx) - (bx - ax) * (dy - cy)</code>.
+	 *
+	 * @return A value with the exact sign of the cross product,
+	 * 0 only if the vectors are exactly parallel.
+	 */
+	public static double cross(double ay, double ax, double by, double bx, double cy, double cx, double dy, double dx) {
+		double left = (by - ay) * (dx - cx);
+		double right = (bx - ax) * (dy - cy);
+		double det = left - right;
+		double bound = CROSS_BOUND * (Math.abs(left) + Math.abs(right));
+		if (det > bound || -det > bound) {
+			return det;
+		}
+
+		double[] exact = sum(
+				multiply(difference(by, ay), difference(dx, cx)),
+				negate(multiply(difference(bx, ax), difference(dy, cy)))
+		);
+		return estimate(exact);
+	}
+
+	/**
+	 * Calculates if Point d is inside the circle through Points a, b and c.
+	 *
+	 * @return A positive value if d is inside the circle and c is to the left of a to b,
+	 * or d is outside the circle and c is to the right of a to b.
+	 * A negative value if the reverse is true,
+	 * and 0 if d is on the circle.
+	 */
+	public static double inCircle(double ay, double ax, double by, double bx, double cy, double cx, double dy, double dx) {
+		double adx = ax - dx;
+		double bdx = bx - dx;
+		double cdx = cx - dx;
+		double ady = ay - dy;
+		double bdy = by - dy;
+		double cdy = cy - dy;
+
+		double bdxcdy = bdx * cdy;
+		double cdxbdy = cdx * bdy;
+		double alift = adx * adx + ady * ady;
+
+		double cdxady = cdx * ady;
+		double adxcdy = adx * cdy;
+		double blift = bdx * bdx + bdy * bdy;
+
+		double adxbdy = adx * bdy;
+		double bdxady = bdx * ady;
+		double clift = cdx * cdx + cdy * cdy;
+
+		double det = alift * (bdxcdy - cdxbdy) + blift * (cdxady - adxcdy) + clift * (adxbdy - bdxady);
+		double permanent = (Math.abs(bdxcdy) + Math.abs(cdxbdy)) * alift
+				+ (Math.abs(cdxady) + Math.abs(adxcdy)) * blift
+				+ (Math.abs(adxbdy) + Math.abs(bdxady)) * clift;
+		double bound = IN_CIRCLE_BOUND * permanent;
+		if (det > bound || -det > bound) {
+			return det;
+		}
+
+		double[] eAdx = difference(ax, dx);
+		double[] eBdx = difference(bx, dx);
+		double[] eCdx = difference(cx, dx);
+		double[] eAdy = difference(ay, dy);
+		double[] eBdy = difference(by, dy);
+		double[] eCdy = difference(cy, dy);
+		double[] eAlift = sum(multiply(eAdx, eAdx), multiply(eAdy, eAdy));
+		double[] eBlift = sum(multiply(eBdx, eBdx), multiply(eBdy, eBdy));
+		double[] eClift = sum(multiply(eCdx, eCdx), multiply(eCdy, eCdy));
+		double[] eA = multiply(eAlift, sum(multiply(eBdx, eCdy), negate(multiply(eCdx, eBdy))));
+		double[] eB = multiply(eBlift, sum(multiply(eCdx, eAdy), negate(multiply(eAdx, eCdy))));
+		double[] eC = multiply(eClift, sum(multiply(eAdx, eBdy), negate(multiply(eBdx, eAdy))));
+		return estimate(sum(sum(eA, eB), eC));
+	}
+
+	/**
+	 * Returns the exact difference of a and b as an expansion.
+	 */
+	private static double[] difference(double a, double b) {
+		double x = a - b;
+		double bVirtual = a - x;
+		double aVirtual = x + bVirtual;
+		double bRound = bVirtual - b;
+		double aRound = a - aVirtual;
+		return compact(new double[] {aRound + bRound, x}, 2);
+	}
+
+	/**
+	 * Returns the exact sum of the given expansions.
+	 */
+	private static double[] sum(double[] e, double[] f) {
+		double[] h = e;
+		for (double component : f) {
+			h = grow(h, component);
+		}
+		return h;
+	}
+
+	/**
+	 * Returns the exact sum of the given expansion and the given value.
+	 */
+	private static double[] grow(double[] e, double b) {
+		double[] h = new double[e.length + 1];
+		int count = 0;
+		double q = b;
+		for (double component : e) {
+			double x = q + component;
+			double bVirtual = x - q;
+			double aVirtual = x - bVirtual;
+			double bRound = component - bVirtual;
+			double aRound = q - aVirtual;
+			double y = aRound + bRound;
+			q = x;
+			if (y != 0) {
+				h[count++] = y;
+			}
+		}
+		if (q != 0 || count == 0) {
+			h[count++] = q;
+		}
+		return compact(h, count);
+	}
+
+	/**
+	 * Returns the exact product of the given expansions.
+	 */
+	private static double[] multiply(double[] e, double[] f) {
+		double[] h = new double[] {0};
+		for (double component : f) {
+			h = sum(h, scale(e, component));
+		}
+		return h;
+	}
+
+	/**
+	 * Returns the exact product of the given expansion and the given value.
+	 */
+	private static double[] scale(double[] e, double b) {
+		double[] h = new double[e.length * 2];
+		int count = 0;
+		double q = 0;
+		boolean first = true;
+		for (double component : e) {
+			double[] product = product(component, b);
+			if (first) {
+				q = product[1];
+				if (product[0] != 0) {
+					h[count++] = product[0];
+				}
+				first = false;
+				continue;
+			}
+			double[] low = twoSum(q, product[0]);
+			if (low[0] != 0) {
+				h[count++] = low[0];
+			}
+			double[] high = twoSum(product[1], low[1]);
+			if (high[0] != 0) {
+				h[count++] = high[0];
+			}
+			q = high[1];
+		}
+		if (q != 0 || count == 0) {
+			h[count++] = q;
+		}
+		return compact(h, count);
+	}
+
+	/**
+	 * Returns the exact sum of a and b, as {error, sum}.
+	 */
+	private static double[] twoSum(double a, double b) {
+		double x = a + b;
+		double bVirtual = x - a;
+		double aVirtual = x - bVirtual;
+		double bRound = b - bVirtual;
+		double aRound = a - aVirtual;
+		return new double[] {aRound + bRound, x};
+	}
+
+	/**
+	 * Returns the exact product of a and b, as {error, product}.
+	 * Uses Dekker's split, as fused multiply-add is not available.
+	 */
+	private static double[] product(double a, double b) {
+		double x = a * b;
+		double c = SPLITTER * a;
+		double aHigh = c - (c - a);
+		double aLow = a - aHigh;
+		c = SPLITTER * b;
+		double bHigh = c - (c - b);
+		double bLow = b - bHigh;
+		double error1 = x - (aHigh * bHigh);
+		double error2 = error1 - (aLow * bHigh);
+		double error3 = error2 - (aHigh * bLow);
+		return new double[] {(aLow * bLow) - error3, x};
+	}
+
+	private static double[] negate(double[] e) {
+		double[] h = new double[e.length];
+		for (int i = 0; i < e.length; i++) {
+			h[i] = -e[i];
+		}
+		return h;
+	}
+
+	/**
+	 * Returns the given expansion without trailing space, or zero components.
+	 */
+	private static double[] compact(double[] e, int count) {
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			if (e[i] != 0) {
+				e[kept++] = e[i];
+			}
+		}
+		if (kept == 0) {
+			return new double[] {0};
+		}
+		return (kept == e.length) ? e : Arrays.copyOf(e, kept);
+	}
+
+	/**
+	 * Approximates the value of the given expansion by its largest component.
+	 * As the components do not overlap, the largest component has the sign of the sum,
+	 * and is within one unit in the last place of it.
+	 */
+	private static double estimate(double[] e) {
+		return e[e.length - 1];
+	}
+}
@@ -0,0 +1,313 @@
+package darq.math.geometry;
+
+import darq.math.Utils;
+import java.util.Arrays;
+
+/**
+ * A Polygon indexed for repeated <code>contains</code> queries,
+ * see <code>Abstract2DPlane.prepare(Polygon)</code>.
+ *
+ * The plane is cut into vertical slabs at the x of every vertex.
+ * No edge starts or ends inside a slab,
+ * so the edges crossing a slab never cross each other within it,
+ * and are stored sorted from the bottom of the slab to the top.
+ * For example:
+ *     |  |   |
+ *     |__|   |
+ *     |  |\__|
+ *     |  |   |\
+ *     |  |___|_\
+ *     |  |   |
+ *       0  1  2
+ *
+ * A query binary searches for its slab, then for its place within the slab.
+ * The ray cast straight up from the Point crosses every edge above that place,
+ * so the Point is internal if that count is odd.
+ * Only the edges either side of that place can contain the Point.
+ *
+ * The Polygon must be simple, no two edges may cross.
+ * Queries follow the predicate mode of the plane at the time of the query.
+ * The index holds one entry per edge per slab crossed,
+ * which is proportional to the number of edges for most shapes.
+ *
+ * @author Craig.Webster
+ */
+public class PreparedPolygon {
+	public final Abstract2DPlane plane;
+	public final Polygon polygon;
+
+	private final double[] edgeYSs;
+	private final double[] edgeXSs;
+	private final double[] edgeYEs;
+	private final double[] edgeXEs;
+	/**
+	 * Change in y for each change of 1 in x, for edges that are not vertical.
+	 */
+	private final double[] slopes;
+
+	/**
+	 * The distinct x of every vertex, sorted.
+	 * Slab <code>k</code> runs from <code>slabXs[k]</code> (inclusive)
+	 * to <code>slabXs[k + 1]</code> (exclusive).
+	 */
+	private final double[] slabXs;
+	private final int[] slabStarts;
+	private final int[] slabEdges;
+	/**
+	 * Vertical edges at <code>slabXs[j]</code> are
+	 * <code>verticals[verticalStarts[j]]</code> to <code>verticals[verticalStarts[j + 1]]</code>.
+	 */
+	private final int[] verticalStarts;
+	private final int[] verticals;
+
+	public PreparedPolygon(Abstract2DPlane plane, Polygon polygon) {
+		this.plane = plane;
+		this.polygon = polygon;
+
+		int count = polygon.segments.size();
+		edgeYSs = new double[count];
+		edgeXSs = new double[count];
+		edgeYEs = new double[count];
+		edgeXEs = new double[count];
+		slopes = new double[count];
+		for (int e = 0; e < count; e++) {
+			Segment segment = polygon.segments.get(e);
+			edgeYSs[e] = segment.pS.y;
+			edgeXSs[e] = segment.pS.x;
+			edgeYEs[e] = segment.pE.y;
+			edgeXEs[e] = segment.pE.x;
+			slopes[e] = (segment.pE.y - segment.pS.y) / (segment.pE.x - segment.pS.x);
+		}
+
+		// Distinct x of every vertex.
+		double[] xs = new double[polygon.points.size()];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = polygon.points.get(i).x;
+		}
+		Arrays.sort(xs);
+		int distinct = 0;
+		for (int i = 0; i < xs.length; i++) {
+			if (distinct == 0 || xs[i] != xs[distinct - 1]) {
+				xs[distinct++] = xs[i];
+			}
+		}
+		slabXs = Arrays.copyOf(xs, distinct);
+		int slabCount = Math.max(distinct - 1, 0);
+
+		// Count the edges in each slab, and the vertical edges at each x.
+		slabStarts = new int[slabCount + 1];
+		verticalStarts = new int[distinct + 1];
+		for (int e = 0; e < count; e++) {
+			int from = Arrays.binarySearch(slabXs, Math.min(edgeXSs[e], edgeXEs[e]));
+			int to = Arrays.binarySearch(slabXs, Math.max(edgeXSs[e], edgeXEs[e]));
+			if (from == to) {
+				verticalStarts[from + 1]++;
+			} else {
+				for (int k = from; k < to; k++) {
+					slabStarts[k + 1]++;
+				}
+			}
+		}
+		for (int k = 0; k < slabCount; k++) {
+			slabStarts[k + 1] += slabStarts[k];
+		}
+		for (int j = 0; j < distinct; j++) {
+			verticalStarts[j + 1] += verticalStarts[j];
+		}
+
+		// Fill the slabs and verticals.
+		slabEdges = new int[slabStarts[slabCount]];
+		verticals = new int[verticalStarts[distinct]];
+		int[] slabFill = Arrays.copyOf(slabStarts, slabCount);
+		int[] verticalFill = Arrays.copyOf(verticalStarts, distinct);
+		for (int e = 0; e < count; e++) {
+			int from = Arrays.binarySearch(slabXs, Math.min(edgeXSs[e], edgeXEs[e]));
+			int to = Arrays.binarySearch(slabXs, Math.max(edgeXSs[e], edgeXEs[e]));
+			if (from == to) {
+				verticals[verticalFill[from]++] = e;
+			} else {
+				for (int k = from; k < to; k++) {
+					slabEdges[slabFill[k]++] = e;
+				}
+			}
+		}
+
+		// Sort each slab from bottom to top, at the middle of the slab.
+		for (int k = 0; k < slabCount; k++) {
+			double middle = (slabXs[k] + slabXs[k + 1]) / 2;
+			int start = slabStarts[k];
+			int end = slabStarts[k + 1];
+			double[] keys = new double[end - start];
+			for (int i = start; i < end; i++) {
+				keys[i - start] = yAt(slabEdges[i], middle);
+			}
+			// Insertion sort, slabs are usually small.
+			for (int i = 1; i < keys.length; i++) {
+				double key = keys[i];
+				int edge = slabEdges[start + i];
+				int j = i - 1;
+				while (j >= 0 && keys[j] > key) {
+					keys[j + 1] = keys[j];
+					slabEdges[start + j + 1] = slabEdges[start + j];
+					j--;
+				}
+				keys[j + 1] = key;
+				slabEdges[start + j + 1] = edge;
+			}
+		}
+	}
+
+	/**
+	 * Calculates if the Polygon contains the given Point.
+	 * Returns the same values as <code>Abstract2DPlane.contains(Polygon, Point)</code>,
+	 * without allocating.
+	 *
+	 * @param y
+	 * @param x
+	 * @return -1 if the Point is external to the Polygon,
+	 * 0 if the Point is on one of the Segments of the Polygon,
+	 * and 1 if the Point is internal to the Polygon.
+	 */
+	public int contains(double y, double x) {
+		if (!polygon.boundingBox.contains(y, x)) {
+			return -1;
+		}
+
+		// Slab containing x, -1 if before the first vertex.
+		int slab = upperBound(slabXs, 0, slabXs.length, x) - 1;
+
+		// Close to the x of a vertex, the neighbouring slabs and vertical edges may also hold the Point.
+		for (int j = Math.max(slab, 0); j <= slab + 1 && j < slabXs.length; j++) {
+			if (Utils.equals(slabXs[j], x)) {
+				for (int i = verticalStarts[j]; i < verticalStarts[j + 1]; i++) {
+					if (onEdge(verticals[i], y, x)) {
+						return 0;
+					}
+				}
+				if (j - 1 >= 0 && j - 1 != slab && j - 1 < slabStarts.length - 1 && onNearestEdges(j - 1, y, x)) {
+					return 0;
+				}
+				if (j != slab && j < slabStarts.length - 1 && onNearestEdges(j, y, x)) {
+					return 0;
+				}
+			}
+		}
+
+		if (slab < 0 || slab >= slabStarts.length - 1) {
+			return -1;
+		}
+		if (onNearestEdges(slab, y, x)) {
+			return 0;
+		}
+
+		// Cast a ray straight up, crossing every edge above the Point.
+		int below = countBelow(slab, y, x);
+		int above = slabStarts[slab + 1] - slabStarts[slab] - below;
+		return (above % 2 == 0) ? -1 : 1;
+	}
+
+	public int contains(Point point) {
+		return contains(point.y, point.x);
+	}
+
+	/**
+	 * Classifies the given range of Points against the Polygon.
+	 * Points are stored interleaved, Point <code>i</code> is
+	 * <code>(points[2 * i], points[2 * i + 1])</code>,
+	 * and its result is written to <code>results[i]</code>.
+	 *
+	 * @param points
+	 * @param results
+	 * @param from The first Point to classify (inclusive).
+	 * @param to The last Point to classify (exclusive).
+	 */
+	void contains(double[] points, byte[] results, int from, int to) {
+		for (int i = from; i < to; i++) {
+			results[i] = (byte) contains(points[2 * i], points[2 * i + 1]);
+		}
+	}
+
+	/**
+	 * Returns the number of edges in the given slab, at or below the given Point.
+	 */
+	private int countBelow(int slab, double y, double x) {
+		int low = slabStarts[slab];
+		int high = slabStarts[slab + 1];
+		int start = low;
+		boolean robust = plane.getPredicateMode() == Abstract2DPlane.PredicateMode.ROBUST;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (robust ? !below(slabEdges[middle], y, x) : yAt(slabEdges[middle], x) <= y) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low - start;
+	}
+
+	/**
+	 * Determines if the edges either side of the given Point, in the given slab, contain the Point.
+	 */
+	private boolean onNearestEdges(int slab, double y, double x) {
+		int start = slabStarts[slab];
+		int end = slabStarts[slab + 1];
+		int place = start + countBelow(slab, y, x);
+		// Edges meeting at a vertex may be within tolerance of each other, check two either side.
+		for (int i = Math.max(place - 2, start); i < Math.min(place + 2, end); i++) {
+			if (onEdge(slabEdges[i], y, x)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines if the given edge contains the given Point,
+	 * using the same tests as <code>Abstract2DPlane.contains(Polygon, Point)</code>.
+	 */
+	private boolean onEdge(int edge, double y, double x) {
+		double yS = edgeYSs[edge];
+		double xS = edgeXSs[edge];
+		double yE = edgeYEs[edge];
+		double xE = edgeXEs[edge];
+		if (plane.getPredicateMode() == Abstract2DPlane.PredicateMode.ROBUST) {
+			return Predicates.orient(yS, xS, yE, xE, y, x) == 0 &&
+					Math.min(yS, yE) <= y && y <= Math.max(yS, yE) &&
+					Math.min(xS, xE) <= x && x <= Math.max(xS, xE);
+		}
+		if (Utils.sign((yS - y) * (xE - x) - (xS - x) * (yE - y)) != 0) {
+			return false;
+		}
+		return Utils.equals(plane.distance(y - yS, x - xS) + plane.distance(yE - y, xE - x), plane.distance(yE - yS, xE - xS));
+	}
+
+	/**
+	 * Determines exactly if the given Point is strictly below the given edge,
+	 * where the edge spans the x of the Point.
+	 */
+	private boolean below(int edge, double y, double x) {
+		double orientation = Predicates.orient(edgeYSs[edge], edgeXSs[edge], edgeYEs[edge], edgeXEs[edge], y, x);
+		// Right of the edge drawn left to right is below it.
+		return (edgeXSs[edge] < edgeXEs[edge]) ? orientation > 0 : orientation < 0;
+	}
+
+	private double yAt(int edge, double x) {
+		return edgeYSs[edge] + (x - edgeXSs[edge]) * slopes[edge];
+	}
+
+	/**
+	 * Returns the index of the first value greater than the given key.
+	 */
+	private static int upperBound(double[] values, int low, int high, double key) {
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] <= key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,59 @@
+package darq.math.geometry;
+
+/**
+ * A regular hexagon, at a given centre, with the size of the given Hexagon.
+ * The orientation matches the diagram on <code>Hexagon</code>,
+ * with edges at the top and the bottom, and corners to the left and right.
+ *    _______
+ *   /       \
+ *  /         \
+ * /     *     \
+ * \           /
+ *  \         /
+ *   \_______/
+ * 
+ * @author Craig.Webster
+ */
+public class RegularHexagon implements Shape {
+	public final Point centre;
+	public final Hexagon hexagon;
+	
+	public RegularHexagon(Point centre, Hexagon hexagon) {
+		this.centre = centre;
+		this.hexagon = hexagon;
+	}
+	
+	/**
+	 * Returns the Polygon with the same vertices as this hexagon,
+	 * starting at the top left corner, and proceeding clockwise.
+	 * 
+	 * @return The Polygon with the same vertices as this hexagon.
+	 */
+	public Polygon toPolygon() {
+		double edge = hexagon.RADIUS_EDGE;
+		double vert = hexagon.RADIUS_VERT;
+		double half = vert / 2;
+		return new Polygon(
+				new Point(centre.y + edge, centre.x - half),
+				new Point(centre.y + edge, centre.x + half),
+				new Point(centre.y, centre.x + vert),
+				new Point(centre.y - edge, centre.x + half),
+				new Point(centre.y - edge, centre.x - half),
+				new Point(centre.y, centre.x - vert)
+		);
+	}
+	
+	public AxisAlignedBoundingBox getBoundingBox() {
+		return new AxisAlignedBoundingBox(centre.y - hexagon.RADIUS_EDGE, centre.x - hexagon.RADIUS_VERT, centre.y + hexagon.RADIUS_EDGE, centre.x + hexagon.RADIUS_VERT);
+	}
+	
+	@Override
+	public Type getShapeType() {
+		return Type.HEXAGON;
+	}
+	
+	@Override
+	public String toString() {
+		return "RegularHexagon{centre=" + centre + ", hexagon=" + hexagon + '}';
+	}
+}
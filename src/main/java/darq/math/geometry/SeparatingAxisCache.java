@@ -0,0 +1,183 @@
+package darq.math.geometry;
+
+import darq.math.util.LongIntMap;
+import java.util.Arrays;
+
+/**
+ * Caches the last separating axis found for each pair of Polygons,
+ * in front of <code>Abstract2DPlane.collides(Polygon, Polygon)</code>.
+ *
+ * Polygons that were separated on the last test,
+ * are usually still separated by the same axis.
+ * Testing that axis first only projects each Polygon once,
+ * the full Separating Axis Theorem is only run when that axis fails.
+ *
+ * Pairs are keyed by ids given by the caller, in order, such as the ids of two moving bodies,
+ * so a pair keeps its axis while its Polygons are replaced every step, as by <code>Abstract2DPlane.adjust</code>.
+ * A cached axis is only ever tried first, so it is never wrong, merely less useful as the pair moves,
+ * but pairs that are no longer tested should not be kept forever.
+ * Each call to <code>tick()</code> advances the cache by one step,
+ * and evicts the pairs that have not been tested within <code>maxAge</code> steps.
+ *
+ * Axes are kept in flat arrays, so testing a pair allocates nothing,
+ * except to grow the cache.
+ *
+ * @author Craig.Webster
+ */
+public class SeparatingAxisCache {
+	public final Abstract2DPlane plane;
+	/**
+	 * The number of ticks a pair is kept for after it was last tested.
+	 */
+	public final int maxAge;
+
+	/**
+	 * The slot of every cached pair, by pair key.
+	 */
+	private final LongIntMap slots;
+	private long[] keys;
+	/**
+	 * The normal of the last separating axis of every slot, or NaN if the pair last collided.
+	 */
+	private double[] normYs;
+	private double[] normXs;
+	private long[] ticks;
+	private int size;
+	private long tick;
+	private long hits;
+
+	public SeparatingAxisCache(Abstract2DPlane plane, int maxAge) {
+		if (maxAge < 0) {
+			throw new IllegalArgumentException("Maximum age " + maxAge + " is negative.");
+		}
+		this.plane = plane;
+		this.maxAge = maxAge;
+		this.slots = new LongIntMap();
+		this.keys = new long[16];
+		this.normYs = new double[16];
+		this.normXs = new double[16];
+		this.ticks = new long[16];
+		this.size = 0;
+		this.tick = 0;
+		this.hits = 0;
+	}
+
+	/**
+	 * Determines if the given Polygons are colliding.
+	 * Returns the same results as <code>Abstract2DPlane.collides(Polygon, Polygon)</code>.
+	 *
+	 * @param id1 The id of the first Polygon, stable while it moves.
+	 * @param p1
+	 * @param id2 The id of the second Polygon, stable while it moves.
+	 * @param p2
+	 * @return A Segment representing the smallest possible vector,
+	 * that if applied to the second argument,
+	 * will cause the Polygons to no longer collide,
+	 * or null if the Polygons are not colliding.
+	 * @throws IllegalArgumentException If either given Polygon is not convex,
+	 * and their bounds overlap.
+	 */
+	public Segment collides(int id1, Polygon p1, int id2, Polygon p2) {
+		// Rejecting on bounds is cheaper than any cached axis.
+		if (!plane.boundsOverlap(p1, p2)) {
+			return null;
+		}
+
+		long key = ((long) id1 << 32) | (id2 & 0xffffffffL);
+		int slot = slots.get(key, -1);
+		if (slot >= 0) {
+			ticks[slot] = tick;
+			// The axis is only a hint, the full test below settles anything it does not.
+			if (!Double.isNaN(normYs[slot]) && plane.separates(p1, p2, normYs[slot], normXs[slot])) {
+				hits++;
+				return null;
+			}
+		}
+
+		Abstract2DPlane.Separation separation = plane.separate(p1, p2);
+		if (separation.separated) {
+			if (slot < 0) {
+				slot = add(key);
+			}
+			normYs[slot] = separation.norm.pE.y - separation.norm.pS.y;
+			normXs[slot] = separation.norm.pE.x - separation.norm.pS.x;
+			return null;
+		}
+
+		if (slot >= 0) {
+			normYs[slot] = Double.NaN;
+			normXs[slot] = Double.NaN;
+		}
+		return plane.separationVector(separation);
+	}
+
+	/**
+	 * Advances the cache by one step,
+	 * evicting the pairs that have not been tested within <code>maxAge</code> steps.
+	 */
+	public void tick() {
+		tick++;
+		// Compact the surviving pairs, and index them again.
+		int kept = 0;
+		for (int slot = 0; slot < size; slot++) {
+			if (tick - ticks[slot] <= maxAge) {
+				keys[kept] = keys[slot];
+				normYs[kept] = normYs[slot];
+				normXs[kept] = normXs[slot];
+				ticks[kept] = ticks[slot];
+				kept++;
+			}
+		}
+		if (kept < size) {
+			size = kept;
+			slots.clear();
+			for (int slot = 0; slot < size; slot++) {
+				slots.put(keys[slot], slot);
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached pairs.
+	 */
+	public void clear() {
+		slots.clear();
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of pairs currently cached.
+	 *
+	 * @return The number of pairs currently cached.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of tests answered by a cached axis alone.
+	 *
+	 * @return The number of tests answered by a cached axis alone.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Adds a slot for the given pair key, tested this tick.
+	 *
+	 * @return The new slot.
+	 */
+	private int add(long key) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			normYs = Arrays.copyOf(normYs, size * 2);
+			normXs = Arrays.copyOf(normXs, size * 2);
+			ticks = Arrays.copyOf(ticks, size * 2);
+		}
+		keys[size] = key;
+		ticks[size] = tick;
+		slots.put(key, size);
+		return size++;
+	}
+}
@@ -0,0 +1,21 @@
+package darq.math.geometry;
+
+/**
+ * A shape that may be tested for collisions,
+ * see <code>Abstract2DPlane.collides(Shape, Shape)</code>.
+ * 
+ * @author Craig.Webster
+ */
+public interface Shape {
+	/**
+	 * The kinds of Shape, each kind has its own collision kernels.
+	 */
+	public enum Type {
+		POLYGON,
+		CIRCLE,
+		BOX,
+		HEXAGON
+	}
+	
+	public Type getShapeType();
+}
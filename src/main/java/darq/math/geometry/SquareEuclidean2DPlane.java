@@ -1,5 +1,8 @@
 package darq.math.geometry;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  *
  * @author Craig.Webster
@@ -14,4 +17,80 @@ public class SquareEuclidean2DPlane extends Abstract2DPlane {
 	public double dotproduct(Segment s1, Segment s2) {
 		return (s1.pE.y - s1.pS.y) * (s2.pE.y - s2.pS.y) + (s1.pE.x - s1.pS.x) * (s2.pE.x - s2.pS.x);
 	}
+	
+	/**
+	 * Finds the edges between the blocked tiles within the given radius of the centre and their clear neighbours,
+	 * as Segments, every tile being the unit square centred on its Coord,
+	 * ready for <code>getFOV(Point, Collection)</code>.
+	 * Edges between two blocked tiles can never be seen, so are left out,
+	 * and runs of edges along the same line are merged into one Segment,
+	 * so a blocked region gives one Segment per side of its outline.
+	 * Each Segment runs clockwise around its blocked tiles.
+	 * 
+	 * The radius is measured along each axis, so the tiles form a square.
+	 * Neighbours beyond the radius are checked too, so a blocked region crossing the radius is not closed off.
+	 * Every tile is checked once.
+	 * 
+	 * @param centre
+	 * @param radius
+	 * @param check Returns true if a tile is clear.
+	 * @return The merged boundary edges of the blocked tiles.
+	 */
+	public List<Segment> getOccluders(Coord centre, int radius, CoordCheckFunctor check) {
+		// Tiles with a border of neighbours, row by row.
+		int width = 2 * radius + 3;
+		boolean[] clear = new boolean[width * width];
+		for (int row = 0; row < width; row++) {
+			for (int column = 0; column < width; column++) {
+				clear[row * width + column] = check.check(centre.y - radius - 1 + row, centre.x - radius - 1 + column);
+			}
+		}
+		
+		List<Segment> segments = new ArrayList<Segment>();
+		for (int row = 1; row < width - 1; row++) {
+			double y = centre.y - radius - 1 + row;
+			// Facing +y, then -y.
+			addRuns(clear, row * width, 1, (row + 1) * width, width, centre.x - radius - 1, y + 0.5, false, true, segments);
+			addRuns(clear, row * width, 1, (row - 1) * width, width, centre.x - radius - 1, y - 0.5, false, false, segments);
+		}
+		for (int column = 1; column < width - 1; column++) {
+			double x = centre.x - radius - 1 + column;
+			// Facing +x, then -x.
+			addRuns(clear, column, width, column + 1, width, centre.y - radius - 1, x + 0.5, true, false, segments);
+			addRuns(clear, column, width, column - 1, width, centre.y - radius - 1, x - 0.5, true, true, segments);
+		}
+		return segments;
+	}
+	
+	/**
+	 * Adds a Segment for every run of blocked tiles along a line, beside clear tiles.
+	 * Tile <code>i</code> of the line is at <code>clear[tiles + i * stride]</code>, and its neighbour at <code>clear[neighbours + i * stride]</code>,
+	 * for <code>0 < i < length - 1</code>, tile <code>i</code> lying at <code>first + i</code> along the line.
+	 * 
+	 * @param along The Segments lie along the y-axis if true, otherwise along the x-axis.
+	 * @param forwards The Segments run towards increasing coordinates if true.
+	 */
+	private static void addRuns(boolean[] clear, int tiles, int stride, int neighbours, int length, int first, double across, boolean along, boolean forwards, List<Segment> segments) {
+		int start = -1;
+		for (int i = 1; i < length; i++) {
+			boolean edge = (i < length - 1) && !clear[tiles + i * stride] && clear[neighbours + i * stride];
+			if (edge && start < 0) {
+				start = i;
+			} else if (!edge && start >= 0) {
+				double from = first + start - 0.5;
+				double to = first + i - 0.5;
+				if (!forwards) {
+					double swap = from;
+					from = to;
+					to = swap;
+				}
+				if (along) {
+					segments.add(new Segment(new Point(from, across), new Point(to, across)));
+				} else {
+					segments.add(new Segment(new Point(across, from), new Point(across, to)));
+				}
+				start = -1;
+			}
+		}
+	}
 }
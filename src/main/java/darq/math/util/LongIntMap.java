@@ -0,0 +1,120 @@
+package darq.math.util;
+
+/**
+ * A map from <code>long</code> keys to <code>int</code> values,
+ * stored in flat arrays with open addressing and linear probing.
+ * Putting and getting values does not allocate, except to grow.
+ * Keys can not be removed individually, only cleared all at once.
+ *
+ * @author Craig.Webster
+ */
+public class LongIntMap {
+	private long[] keys;
+	private int[] values;
+	private boolean[] filled;
+	private int mask;
+	private int size;
+
+	public LongIntMap() {
+		this(16);
+	}
+
+	public LongIntMap(int capacity) {
+		// Keep the table at most half full.
+		int length = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) * 2;
+		allocate(length);
+	}
+
+	/**
+	 * Returns the value of the given key.
+	 *
+	 * @param key
+	 * @param missing The value to return if the key is not in the map.
+	 * @return The value of the given key, or missing if it is not in the map.
+	 */
+	public int get(long key, int missing) {
+		int slot = slot(key);
+		while (filled[slot]) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return missing;
+	}
+
+	/**
+	 * Sets the value of the given key.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public void put(long key, int value) {
+		int slot = slot(key);
+		while (filled[slot]) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		filled[slot] = true;
+		size++;
+		if (size * 2 > keys.length) {
+			rehash();
+		}
+	}
+
+	public boolean containsKey(long key) {
+		int slot = slot(key);
+		while (filled[slot]) {
+			if (keys[slot] == key) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all keys, keeping the allocated storage.
+	 */
+	public void clear() {
+		if (size > 0) {
+			java.util.Arrays.fill(filled, false);
+			size = 0;
+		}
+	}
+
+	private int slot(long key) {
+		// Fibonacci hashing spreads packed coordinates across the table.
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private void allocate(int length) {
+		keys = new long[length];
+		values = new int[length];
+		filled = new boolean[length];
+		mask = length - 1;
+		size = 0;
+	}
+
+	private void rehash() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		boolean[] oldFilled = filled;
+		allocate(keys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldFilled[i]) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package darq.math.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of <code>long</code> values, ordered by <code>long</code> priorities.
+ * Values with equal priorities are removed in no particular order.
+ * Adding and removing values does not allocate, except to grow.
+ *
+ * There is no decrease-key operation,
+ * a value whose priority improves is simply added again,
+ * and the caller skips the stale copy when it is removed.
+ *
+ * @author Craig.Webster
+ */
+public class LongMinHeap {
+	private long[] priorities;
+	private long[] values;
+	private int size;
+
+	public LongMinHeap() {
+		this(16);
+	}
+
+	public LongMinHeap(int capacity) {
+		this.priorities = new long[Math.max(capacity, 1)];
+		this.values = new long[Math.max(capacity, 1)];
+		this.size = 0;
+	}
+
+	/**
+	 * Adds the given value with the given priority.
+	 *
+	 * @param priority
+	 * @param value
+	 */
+	public void add(long priority, long value) {
+		if (size == values.length) {
+			priorities = Arrays.copyOf(priorities, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+
+		// Sift up.
+		int index = size++;
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (priorities[parent] <= priority) {
+				break;
+			}
+			priorities[index] = priorities[parent];
+			values[index] = values[parent];
+			index = parent;
+		}
+		priorities[index] = priority;
+		values[index] = value;
+	}
+
+	/**
+	 * Returns the lowest priority in the heap.
+	 *
+	 * @return The lowest priority in the heap.
+	 * @throws NoSuchElementException If the heap is empty.
+	 */
+	public long peekPriority() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return priorities[0];
+	}
+
+	/**
+	 * Removes the value with the lowest priority.
+	 *
+	 * @return The value with the lowest priority.
+	 * @throws NoSuchElementException If the heap is empty.
+	 */
+	public long poll() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		long result = values[0];
+		size--;
+		if (size > 0) {
+			// Sift the last value down from the root.
+			long priority = priorities[size];
+			long value = values[size];
+			int index = 0;
+			while (true) {
+				int child = 2 * index + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+					child++;
+				}
+				if (priorities[child] >= priority) {
+					break;
+				}
+				priorities[index] = priorities[child];
+				values[index] = values[child];
+				index = child;
+			}
+			priorities[index] = priority;
+			values[index] = value;
+		}
+		return result;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all values, keeping the allocated storage.
+	 */
+	public void clear() {
+		size = 0;
+	}
+}
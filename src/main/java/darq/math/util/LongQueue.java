@@ -0,0 +1,85 @@
+package darq.math.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A first-in first-out queue of <code>long</code> values,
+ * stored in a circular array that grows as needed.
+ * Adding and removing values does not allocate, except to grow.
+ *
+ * @author Craig.Webster
+ */
+public class LongQueue {
+	private long[] values;
+	/**
+	 * The index of the first value.
+	 */
+	private int head;
+	private int size;
+
+	public LongQueue() {
+		this(16);
+	}
+
+	public LongQueue(int capacity) {
+		this.values = new long[Math.max(capacity, 1)];
+		this.head = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * Adds the given value to the end of the queue.
+	 *
+	 * @param value
+	 */
+	public void add(long value) {
+		if (size == values.length) {
+			grow();
+		}
+		values[(head + size) % values.length] = value;
+		size++;
+	}
+
+	/**
+	 * Removes the value at the front of the queue.
+	 *
+	 * @return The value at the front of the queue.
+	 * @throws NoSuchElementException If the queue is empty.
+	 */
+	public long poll() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		long value = values[head];
+		head = (head + 1) % values.length;
+		size--;
+		return value;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all values, keeping the allocated storage.
+	 */
+	public void clear() {
+		head = 0;
+		size = 0;
+	}
+
+	private void grow() {
+		long[] grown = Arrays.copyOf(values, values.length * 2);
+		// Move the wrapped part of the values after the end of the old array.
+		if (head > 0) {
+			System.arraycopy(values, 0, grown, values.length, head);
+		}
+		// Values now run contiguously from head.
+		values = grown;
+	}
+}
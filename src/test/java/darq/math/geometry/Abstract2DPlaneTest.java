@@ -1,7 +1,9 @@
 package darq.math.geometry;
 
 import darq.math.Const;
+import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Random;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -86,6 +88,99 @@ public class Abstract2DPlaneTest {
 		assertEquals(String.format(errorFormat, p, s, exp, res), exp, res);
 	}
 	
+	/**
+	 * Test of compare method, of class Abstract2DPlane, in robust mode.
+	 */
+	@Test
+	public void testCompareRobust() {
+		System.out.println("compare (robust)");
+		Abstract2DPlane instance = new Abstract2DPlaneImpl();
+		Segment s = new Segment(new Point(0.5, 0.5), new Point(12, 12));
+		// Within Const.EPSILON of the line, but not on it.
+		Point p = new Point(24, 24 + 1e-13);
+
+		assertEquals(0, instance.compare(p, s));
+		instance.setPredicateMode(Abstract2DPlane.PredicateMode.ROBUST);
+		assertEquals(1, instance.compare(p, s));
+		assertEquals(0, instance.compare(new Point(24, 24), s));
+		assertTrue(instance.contains(s, new Point(6.25, 6.25)));
+		assertFalse(instance.contains(s, new Point(24, 24)));
+
+		// Differences of large coordinates are not exact in double arithmetic.
+		double big = 1e17;
+		s = new Segment(new Point(big, big), new Point(big + 64, big + 64));
+		p = new Point(big + 32, big + 48);
+		assertEquals(1, instance.compare(p, s));
+		assertNull(instance.collidesAt(s, new Segment(new Point(0, 0), new Point(1, 1))));
+	}
+
+	/**
+	 * Test of Predicates against exact BigDecimal arithmetic, on near degenerate input.
+	 */
+	@Test
+	public void testPredicates() {
+		System.out.println("Predicates");
+		Random random = new Random(17);
+		for (int i = 0; i < 2000; i++) {
+			// Points close to a line, or a circle, perturbed by a few units in the last place.
+			double[] v = new double[8];
+			double t = random.nextDouble();
+			v[0] = 0.5; v[1] = 0.5;
+			v[2] = 12; v[3] = 12;
+			v[4] = 0.5 + t * 11.5; v[5] = 0.5 + t * 11.5;
+			v[6] = 24; v[7] = 24;
+			for (int j = 4; j < 8; j++) {
+				v[j] += (random.nextInt(9) - 4) * Math.ulp(v[j]);
+			}
+
+			int exp = orientExact(v[0], v[1], v[2], v[3], v[4], v[5]);
+			int res = (int) Math.signum(Predicates.orient(v[0], v[1], v[2], v[3], v[4], v[5]));
+			assertEquals("orient " + Arrays.toString(v), exp, res);
+
+			double angle = random.nextDouble() * Math.PI;
+			double[] c = new double[] {1, 0, 0, 1, -1, 0, Math.sin(angle), Math.cos(angle)};
+			for (int j = 6; j < 8; j++) {
+				c[j] += (random.nextInt(9) - 4) * Math.ulp(c[j]);
+			}
+			exp = inCircleExact(c);
+			res = (int) Math.signum(Predicates.inCircle(c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7]));
+			assertEquals("inCircle " + Arrays.toString(c), exp, res);
+		}
+
+		Abstract2DPlane instance = new Abstract2DPlaneImpl();
+		for (Abstract2DPlane.PredicateMode mode : Abstract2DPlane.PredicateMode.values()) {
+			instance.setPredicateMode(mode);
+			Point a = new Point(1, 0);
+			Point b = new Point(0, 1);
+			Point c = new Point(-1, 0);
+			assertEquals(1, instance.inCircle(a, b, c, new Point(0, 0)));
+			assertEquals(1, instance.inCircle(c, b, a, new Point(0, 0)));
+			assertEquals(0, instance.inCircle(a, b, c, new Point(0, -1)));
+			assertEquals(-1, instance.inCircle(a, b, c, new Point(2, 0)));
+		}
+	}
+
+	private static int orientExact(double ay, double ax, double by, double bx, double cy, double cx) {
+		BigDecimal left = new BigDecimal(by).subtract(new BigDecimal(ay)).multiply(new BigDecimal(cx).subtract(new BigDecimal(ax)));
+		BigDecimal right = new BigDecimal(bx).subtract(new BigDecimal(ax)).multiply(new BigDecimal(cy).subtract(new BigDecimal(ay)));
+		return left.subtract(right).signum();
+	}
+
+	private static int inCircleExact(double[] v) {
+		BigDecimal[] d = new BigDecimal[6];
+		for (int i = 0; i < 6; i++) {
+			d[i] = new BigDecimal(v[i]).subtract(new BigDecimal(v[6 + i % 2]));
+		}
+		// d holds ady, adx, bdy, bdx, cdy, cdx.
+		BigDecimal alift = d[1].multiply(d[1]).add(d[0].multiply(d[0]));
+		BigDecimal blift = d[3].multiply(d[3]).add(d[2].multiply(d[2]));
+		BigDecimal clift = d[5].multiply(d[5]).add(d[4].multiply(d[4]));
+		BigDecimal det = alift.multiply(d[3].multiply(d[4]).subtract(d[5].multiply(d[2])))
+				.add(blift.multiply(d[5].multiply(d[0]).subtract(d[1].multiply(d[4]))))
+				.add(clift.multiply(d[1].multiply(d[2]).subtract(d[3].multiply(d[0]))));
+		return det.signum();
+	}
+
 	/**
 	 * Test of normalR method, of class Abstract2DPlane.
 	 */
@@ -1,9 +1,15 @@
 package darq.math.geometry;
 
 import darq.math.Utils;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.StreamSupport;
 import junit.framework.TestCase;
 import org.junit.Test;
 
@@ -355,6 +361,1146 @@ public class Hexagonal2DPlaneTest extends TestCase {
 		}
 	}
 	
+	@Test
+	public void testRoundPacked() {
+		System.out.println("roundPacked");
+		
+		assertEquals(-7, Coord.unpackY(Coord.pack(-7, 3)));
+		assertEquals(3, Coord.unpackX(Coord.pack(-7, 3)));
+		assertEquals(new Coord(5, -9), Coord.unpack(new Coord(5, -9).pack()));
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		int[] rounds = {Hexagonal2DPlane.ROUND_UP, Hexagonal2DPlane.ROUND_DOWN};
+		int[] directions = {Hexagonal2DPlane.DIRECTION_CLOCKWISE, Hexagonal2DPlane.DIRECTION_ANTICLOCKWISE};
+		
+		// Twelfths land on every edge and vertex,
+		// then random Points, half of them on a grid of 24ths, landing on many edges.
+		int grid = 25 * 25;
+		int size = grid + 20000;
+		double[] points = new double[size * 2];
+		for (int i = 0; i < grid; i++) {
+			points[2 * i] = (i / 25 - 12) / 12D;
+			points[2 * i + 1] = (i % 25 - 12) / 12D;
+		}
+		Random random = new Random(13);
+		for (int i = grid; i < size; i++) {
+			points[2 * i] = random.nextInt(145) / 24D - 3;
+			points[2 * i + 1] = (i % 2 == 0) ? random.nextDouble() * 6 - 3 : random.nextInt(145) / 24D - 3;
+		}
+		
+		long[] candidates = new long[3];
+		long[] packed = new long[size];
+		int[] pairs = new int[size * 2];
+		for (int round : rounds) {
+			for (int direction : directions) {
+				instance.round(points, round, direction, packed);
+				instance.round(points, round, direction, pairs);
+				for (int i = 0; i < size; i++) {
+					double y = points[2 * i];
+					double x = points[2 * i + 1];
+					String error = "For test (" + y + ", " + x + ", " + round + ", " + direction + ").";
+					
+					// Compared with a copy of the rounding that the packed rounding replaced.
+					Coord[] coords = referenceRound(instance, y, x);
+					Coord exp = referenceSpecRound(instance, coords, round, direction);
+					assertEquals(error, exp.pack(), instance.roundPacked(y, x, round, direction));
+					assertEquals(error, exp, instance.round(y, x, round, direction));
+					assertEquals(error, exp.pack(), packed[i]);
+					assertEquals(error, exp.y, pairs[2 * i]);
+					assertEquals(error, exp.x, pairs[2 * i + 1]);
+					
+					int count = instance.round(y, x, candidates);
+					assertEquals(error, coords.length, count);
+					for (int c = 0; c < count; c++) {
+						assertEquals(error, coords[c].pack(), candidates[c]);
+					}
+					assertTrue(error, Arrays.equals(coords, instance.round(y, x)));
+				}
+			}
+		}
+		
+		// Odd and short arrays are rejected before any result is written.
+		long[] shortPacked = new long[size - 1];
+		int[] shortPairs = new int[size * 2 - 1];
+		try {
+			instance.round(Arrays.copyOf(points, 2 * size - 1), Hexagonal2DPlane.ROUND_DOWN, Hexagonal2DPlane.DIRECTION_CLOCKWISE, packed);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			instance.round(points, Hexagonal2DPlane.ROUND_DOWN, Hexagonal2DPlane.DIRECTION_CLOCKWISE, shortPacked);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			instance.round(points, Hexagonal2DPlane.ROUND_DOWN, Hexagonal2DPlane.DIRECTION_CLOCKWISE, shortPairs);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		assertTrue(Arrays.equals(new long[size - 1], shortPacked));
+		assertTrue(Arrays.equals(new int[size * 2 - 1], shortPairs));
+	}
+	
+	/**
+	 * The candidates of <code>round(double, double)</code>, as first written, sorted with a Comparator.
+	 */
+	private static Coord[] referenceRound(Hexagonal2DPlane plane, double yD, double xD) {
+		double zD = yD - xD;
+		int zR = (int) Utils.roundPesSymEps(zD);
+		int yR = (int) Utils.roundPesSymEps(yD);
+		int xR = (int) Utils.roundPesSymEps(xD);
+		double zE = Math.abs(zD - zR);
+		double yE = Math.abs(yD - yR);
+		double xE = Math.abs(xD - xR);
+		
+		if (Utils.equals(plane.distance(yD, xD) % 1, 0.5) && (Utils.equals(zE, 0) || Utils.equals(yE, 0) || Utils.equals(xE, 0))) {
+			return new Coord[] {
+				new Coord(yR, xR),
+				new Coord((int) Utils.roundOptSymEps(yD), (int) Utils.roundOptSymEps(xD))
+			};
+		}
+		if (zR - yR + xR == 0) {
+			return new Coord[] {new Coord(yR, xR)};
+		}
+		
+		double max = Utils.max(zE, yE, xE);
+		List<Coord> prelims = new ArrayList<Coord>(3);
+		if (Utils.equals(zE, max)) {
+			prelims.add(new Coord(yR, xR));
+		}
+		if (Utils.equals(yE, max)) {
+			prelims.add(new Coord((zR + xR), xR));
+		}
+		if (Utils.equals(xE, max)) {
+			prelims.add(new Coord(yR, (-zR + yR)));
+		}
+		prelims.sort((o1, o2) -> {
+			double delta = plane.distance(o1.y, o1.x) - plane.distance(o2.y, o2.x);
+			if (!Utils.equals(delta, 0)) {
+				return Utils.sign(delta) * 2;
+			}
+			delta = plane.hexant(o1.y, o1.x) - plane.hexant(o2.y, o2.x);
+			if (Math.abs(delta) > 3) {
+				delta = -delta;
+			}
+			return Utils.equals(delta, 0) ? 0 : Utils.sign(delta);
+		});
+		return prelims.toArray(new Coord[prelims.size()]);
+	}
+	
+	/**
+	 * Picks one of the candidates, as <code>round(double, double, int, int)</code> was first written.
+	 */
+	private static Coord referenceSpecRound(Hexagonal2DPlane plane, Coord[] coords, int round, int direction) {
+		Coord value = coords[0];
+		for (int i = 1; i < coords.length; i++) {
+			Coord coord = coords[i];
+			double distanceD = plane.distance(value.y, value.x) - plane.distance(coord.y, coord.x);
+			if (!Utils.equals(distanceD, 0)) {
+				if (distanceD * round < 0) {
+					value = coord;
+				}
+			} else {
+				double hexantD = plane.hexantCompare(coord.y, coord.x, value.y, value.x, direction, true);
+				if (!Utils.equals(hexantD, 0) && hexantD < 0) {
+					value = coord;
+				}
+			}
+		}
+		return value;
+	}
+	
+	@Test
+	public void testRingAndSpiral() {
+		System.out.println("ring and spiral");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		Coord centre = new Coord(3, -2);
+		
+		// Spiral positions, as documented.
+		Coord[] exp = {
+			new Coord(0, 0),
+			new Coord(1, 0), new Coord(1, 1), new Coord(0, 1), new Coord(-1, 0), new Coord(-1, -1), new Coord(0, -1),
+			new Coord(2, 0), new Coord(2, 1), new Coord(2, 2), new Coord(1, 2), new Coord(0, 2), new Coord(-1, 1),
+			new Coord(-2, 0), new Coord(-2, -1), new Coord(-2, -2), new Coord(-1, -2), new Coord(0, -2), new Coord(1, -1)
+		};
+		HexSpiralIterator spiral = instance.spiral(centre, 2);
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < exp.length; i++) {
+				assertTrue(spiral.hasNext());
+				long res = spiral.nextLong();
+				assertEquals("For spiral position " + i + ".", new Coord(centre.y + exp[i].y, centre.x + exp[i].x).pack(), res);
+			}
+			assertFalse(spiral.hasNext());
+			spiral.reset();
+		}
+		
+		// Rings hold 6r distinct hexes, all r away from the centre.
+		for (int radius = 0; radius <= 6; radius++) {
+			HexSpiralIterator ring = instance.ring(centre, radius);
+			Set<Long> seen = new HashSet<Long>();
+			while (ring.hasNext()) {
+				long coord = ring.nextLong();
+				assertTrue(seen.add(coord));
+				double distance = instance.distance(Coord.unpackY(coord) - centre.y, Coord.unpackX(coord) - centre.x);
+				assertEquals(radius, distance, 0);
+			}
+			assertEquals(radius == 0 ? 1 : 6 * radius, seen.size());
+		}
+		
+		// Parallel streams see the same hexes as the iterator.
+		int radius = 40;
+		long sequential = 0;
+		spiral = instance.spiral(centre, radius);
+		while (spiral.hasNext()) {
+			sequential += spiral.nextLong() * 31 + spiral.getIndex();
+		}
+		long[] packed = StreamSupport.longStream(instance.spiralSpliterator(centre, radius), true).toArray();
+		assertEquals(3 * radius * (radius + 1) + 1, packed.length);
+		long parallel = 0;
+		for (int i = 0; i < packed.length; i++) {
+			parallel += packed[i] * 31 + (i + 1);
+		}
+		assertEquals(sequential, parallel);
+		assertEquals(6 * radius, StreamSupport.longStream(instance.ringSpliterator(centre, radius), true).distinct().count());
+	}
+	
+	@Test
+	public void testSpiralPositions() {
+		System.out.println("spiral positions");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		HexSpiralIterator spiral = instance.spiral(new Coord(0, 0), 30);
+		while (spiral.hasNext()) {
+			int index = spiral.getIndex();
+			long exp = spiral.nextLong();
+			int y = Coord.unpackY(exp);
+			int x = Coord.unpackX(exp);
+			String error = "For spiral position " + index + ".";
+			
+			assertEquals(error, exp, instance.getCoordBySpiral(index));
+			assertEquals(error, index, instance.getSpiralPosition(y, x));
+			
+			int radius = instance.getRadius(index);
+			int circlePosition = instance.getCirclePosition(index);
+			assertEquals(error, (int) instance.distance(y, x), radius);
+			assertEquals(error, index, instance.getSpiralPositionByCircle(radius, circlePosition));
+			
+			int hexant = instance.getHexant(radius, circlePosition);
+			int hexantPosition = instance.getHexantPosition(radius, circlePosition);
+			assertEquals(error, circlePosition, instance.getCirclePosition(radius, hexant, hexantPosition));
+			if (radius > 0) {
+				// The first hex of each hexant is on its line.
+				assertTrue(error, hexantPosition < radius);
+				if (hexantPosition == 0) {
+					assertEquals(error, hexant, instance.hexant(y, x), 0);
+				}
+			}
+		}
+		
+		// Negative spiral positions are rejected, rather than searched for forever.
+		try {
+			instance.getRadius(-1);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			instance.getCirclePosition(-7);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			instance.getCoordBySpiral(Integer.MIN_VALUE);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testLine() {
+		System.out.println("line");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		Coord from = new Coord(2, -1);
+		
+		long[] res = instance.line(from, new Coord(5, -1), false);
+		long[] exp = {Coord.pack(2, -1), Coord.pack(3, -1), Coord.pack(4, -1), Coord.pack(5, -1)};
+		assertTrue(Arrays.toString(res), Arrays.equals(exp, res));
+		
+		res = instance.line(from, from, true);
+		assertTrue(Arrays.toString(res), Arrays.equals(new long[] {from.pack()}, res));
+		
+		// The middle sample falls between (0, 1) and (1, 1), relative to the start.
+		Coord to = new Coord(from.y + 1, from.x + 2);
+		res = instance.line(from, to, false);
+		assertEquals(3, res.length);
+		res = instance.line(from, to, true);
+		exp = new long[] {from.pack(), Coord.pack(from.y + 1, from.x + 1), Coord.pack(from.y, from.x + 1), to.pack()};
+		assertTrue(Arrays.toString(res), Arrays.equals(exp, res));
+		
+		// Lines without supercover step to a neighbour for every sample.
+		HexSpiralIterator ring = instance.ring(from, 7);
+		while (ring.hasNext()) {
+			long end = ring.nextLong();
+			res = instance.line(from, Coord.unpack(end), false);
+			assertEquals(8, res.length);
+			assertEquals(from.pack(), res[0]);
+			assertEquals(end, res[7]);
+			for (int i = 1; i < res.length; i++) {
+				double step = instance.distance(Coord.unpackY(res[i]) - Coord.unpackY(res[i - 1]), Coord.unpackX(res[i]) - Coord.unpackX(res[i - 1]));
+				assertEquals(1, step, 0);
+			}
+		}
+	}
+	
+	@Test
+	public void testLineOfSight() {
+		System.out.println("lineOfSight");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		// Only (1, 1) is blocked.
+		CoordCheckFunctor check = new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				return !(y == 1 && x == 1);
+			}
+		};
+		
+		assertTrue(instance.lineOfSight(new Coord(0, 0), new Coord(1, 1), false, check));
+		assertFalse(instance.lineOfSight(new Coord(0, 0), new Coord(2, 2), false, check));
+		assertTrue(instance.lineOfSight(new Coord(0, 0), new Coord(3, 0), false, check));
+		
+		// Passing exactly between (0, 1) and (1, 1).
+		boolean plain = instance.lineOfSight(new Coord(0, 0), new Coord(1, 2), false, check);
+		long[] line = instance.line(new Coord(0, 0), new Coord(1, 2), false);
+		assertEquals(line[1] != Coord.pack(1, 1), plain);
+		assertFalse(instance.lineOfSight(new Coord(0, 0), new Coord(1, 2), true, check));
+		
+		int[] lines = {
+			0, 0, 1, 1,
+			0, 0, 2, 2,
+			0, 0, 3, 0,
+			0, 0, 1, 2
+		};
+		boolean[] results = new boolean[4];
+		instance.lineOfSight(lines, true, check, results);
+		assertTrue(Arrays.equals(new boolean[] {true, false, true, false}, results));
+	}
+	
+	@Test
+	public void testRangeAndFloodFill() {
+		System.out.println("range and floodFill");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		final Coord start = new Coord(4, 7);
+		CoordCheckFunctor open = new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				return true;
+			}
+		};
+		long[] res = instance.range(start, 3, open);
+		assertEquals(3 * 3 * 4 + 1, res.length);
+		assertEquals(start.pack(), res[0]);
+		
+		// A wall along the ring of radius 2, open only at circle position 0.
+		final Hexagonal2DPlane plane = instance;
+		CoordCheckFunctor walled = new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				int index = plane.getSpiralPosition(y - start.y, x - start.x);
+				return plane.getRadius(index) != 2 || plane.getCirclePosition(index) == 0;
+			}
+		};
+		
+		// Walking around the wall takes more steps than the range allows.
+		Set<Long> ranged = new HashSet<Long>();
+		for (long cell : instance.range(start, 3, walled)) {
+			ranged.add(cell);
+		}
+		assertTrue(ranged.contains(Coord.pack(start.y + 3, start.x)));
+		assertFalse(ranged.contains(Coord.pack(start.y - 3, start.x)));
+		
+		// Flood fill follows the wall all the way round.
+		Set<Long> filled = new HashSet<Long>();
+		for (long cell : instance.floodFill(start, 3, walled)) {
+			filled.add(cell);
+		}
+		assertTrue(filled.contains(Coord.pack(start.y - 3, start.x)));
+		assertEquals(3 * 3 * 4 + 1 - 11, filled.size());
+		
+		// Uniform costs match the plain range.
+		CoordCostFunctor twos = new CoordCostFunctor() {
+			@Override
+			public int cost(int y, int x) {
+				return 2;
+			}
+		};
+		assertEquals(instance.range(start, 2, open).length, instance.rangeByCost(start, 5, twos).length);
+		
+		// Cheap road along hexant 0, expensive elsewhere.
+		CoordCostFunctor road = new CoordCostFunctor() {
+			@Override
+			public int cost(int y, int x) {
+				return (x == start.x && y > start.y) ? 1 : 5;
+			}
+		};
+		Set<Long> costed = new HashSet<Long>();
+		for (long cell : instance.rangeByCost(start, 4, road)) {
+			costed.add(cell);
+		}
+		assertEquals(5, costed.size());
+		assertTrue(costed.contains(Coord.pack(start.y + 4, start.x)));
+		
+		// Lambdas choose between the overloads.
+		assertEquals(3 * 3 * 4 + 1, instance.range(start, 3, (y, x) -> true).length);
+		assertEquals(3 * 3 * 4 + 1, instance.rangeByCost(start, 3, (y, x) -> 1).length);
+		
+		// A huge budget on a small open area only costs what is reached, with steps longer than any seen before.
+		long[] corridor = instance.rangeByCost(start, 100000, (y, x) -> (x == start.x && Math.abs(y - start.y) <= 3) ? 1000 * Math.abs(y - start.y) : 0);
+		assertEquals(7, corridor.length);
+		assertEquals(Coord.pack(start.y + 3, start.x), corridor[5]);
+	}
+	
+	@Test
+	public void testFindPath() {
+		System.out.println("findPath");
+		
+		final Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		final Coord start = new Coord(4, 7);
+		CoordCheckFunctor open = new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				return true;
+			}
+		};
+		
+		// On an open plane the path is as long as the distance.
+		Coord end = new Coord(7, 12);
+		int[] path = instance.findPath(start, end, 10, open);
+		assertEquals(2 * (5 + 1), path.length);
+		assertEquals(start.y, path[0]);
+		assertEquals(start.x, path[1]);
+		assertEquals(end.y, path[path.length - 2]);
+		assertEquals(end.x, path[path.length - 1]);
+		for (int i = 2; i < path.length; i += 2) {
+			assertEquals(1D, instance.distance(path[i] - path[i - 2], path[i + 1] - path[i - 1]));
+		}
+		assertNull(instance.findPath(start, end, 4, open));
+		
+		// A wall along the ring of radius 2, open only at circle position 0.
+		CoordCheckFunctor walled = new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				int index = instance.getSpiralPosition(y - start.y, x - start.x);
+				return instance.getRadius(index) != 2 || instance.getCirclePosition(index) == 0;
+			}
+		};
+		
+		// The path around the wall is as long as the breadth first search says.
+		Coord behind = new Coord(start.y - 3, start.x);
+		int steps = 0;
+		while (true) {
+			Set<Long> ranged = new HashSet<Long>();
+			for (long cell : instance.range(start, steps, walled)) {
+				ranged.add(cell);
+			}
+			if (ranged.contains(behind.pack())) {
+				break;
+			}
+			steps++;
+		}
+		HexPathfinder pathfinder = new HexPathfinder(instance);
+		path = pathfinder.findPath(start, behind, 20, walled);
+		assertEquals(2 * (steps + 1), path.length);
+		for (int i = 2; i < path.length; i += 2) {
+			assertTrue(walled.check(path[i], path[i + 1]));
+		}
+		assertNull(pathfinder.findPath(start, behind, steps - 1, walled));
+		
+		// Reusing the pathfinder gives the same path.
+		assertTrue(Arrays.equals(path, pathfinder.findPath(start, behind, 20, walled)));
+		
+		// Cheap road along hexant 0, expensive elsewhere.
+		CoordCostFunctor road = new CoordCostFunctor() {
+			@Override
+			public int cost(int y, int x) {
+				return (x == start.x && y > start.y) ? 1 : 5;
+			}
+		};
+		path = instance.findPath(start, new Coord(start.y + 4, start.x + 1), 20, open, road);
+		// Three steps along the road, then one off it.
+		assertEquals(2 * (4 + 1), path.length);
+		assertEquals(start.y + 3, path[path.length - 4]);
+		assertEquals(start.x, path[path.length - 3]);
+		
+		// The start hex is the whole path to itself.
+		assertTrue(Arrays.equals(new int[] {start.y, start.x}, instance.findPath(start, start, 0, open)));
+	}
+	
+	@Test
+	public void testHexRegion() {
+		System.out.println("HexRegion");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		Coord centre = new Coord(-3, 8);
+		
+		// Built directly, and from the spiral, a hexagon is the same region with one run per row.
+		HexRegion hexagon = HexRegion.hexagon(centre, 4);
+		assertEquals(HexRegion.of(instance.spiral(centre, 4)), hexagon);
+		assertEquals(3 * 4 * 5 + 1, hexagon.size());
+		assertEquals(9, hexagon.getRunCount());
+		HexRegion ring = HexRegion.of(instance.ring(centre, 4));
+		assertEquals(hexagon.difference(HexRegion.hexagon(centre, 3)), ring);
+		assertEquals(HexRegion.EMPTY, ring.intersection(HexRegion.hexagon(centre, 3)));
+		assertEquals(hexagon, ring.union(HexRegion.hexagon(centre, 3)));
+		
+		// Set algebra matches sets of hexes.
+		Random random = new Random(17);
+		for (int test = 0; test < 50; test++) {
+			long[] aCoords = new long[random.nextInt(200)];
+			long[] bCoords = new long[random.nextInt(200)];
+			Set<Long> aSet = new HashSet<Long>();
+			Set<Long> bSet = new HashSet<Long>();
+			for (int i = 0; i < aCoords.length; i++) {
+				aCoords[i] = Coord.pack(random.nextInt(9) - 4, random.nextInt(30) - 15);
+				aSet.add(aCoords[i]);
+			}
+			for (int i = 0; i < bCoords.length; i++) {
+				bCoords[i] = Coord.pack(random.nextInt(9) - 4, random.nextInt(30) - 15);
+				bSet.add(bCoords[i]);
+			}
+			HexRegion a = HexRegion.of(aCoords);
+			HexRegion b = HexRegion.of(bCoords);
+			assertEquals(aSet.size(), a.size());
+			
+			Set<Long> union = new HashSet<Long>(aSet);
+			union.addAll(bSet);
+			Set<Long> intersection = new HashSet<Long>(aSet);
+			intersection.retainAll(bSet);
+			Set<Long> difference = new HashSet<Long>(aSet);
+			difference.removeAll(bSet);
+			assertEquals(union, toSet(a.union(b)));
+			assertEquals(intersection, toSet(a.intersection(b)));
+			assertEquals(difference, toSet(a.difference(b)));
+			assertEquals(HexRegion.of(union.stream().mapToLong(Long::longValue).toArray()), a.union(b));
+			
+			for (int y = -5; y <= 5; y++) {
+				for (int x = -16; x <= 16; x++) {
+					assertEquals(aSet.contains(Coord.pack(y, x)), a.contains(y, x));
+				}
+			}
+		}
+		
+		// Regions of a range query, moved.
+		CoordCheckFunctor open = new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				return true;
+			}
+		};
+		HexRegion range = HexRegion.of(instance.range(new Coord(0, 0), 4, open));
+		assertEquals(hexagon, range.translate(centre.y, centre.x));
+	}
+	
+	private static Set<Long> toSet(HexRegion region) {
+		Set<Long> set = new HashSet<Long>();
+		for (long coord : region.toArray()) {
+			assertTrue(set.add(coord));
+		}
+		return set;
+	}
+	
+	@Test
+	public void testHexPyramid() {
+		System.out.println("getParent, getChildren and HexPyramid");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		
+		// Every hex is a child of its parent, and children of a hex are its parent's.
+		long[] children = new long[7];
+		for (int y = -20; y <= 20; y++) {
+			for (int x = -20; x <= 20; x++) {
+				long hex = Coord.pack(y, x);
+				long parent = instance.getParent(y, x);
+				instance.getChildren(Coord.unpackY(parent), Coord.unpackX(parent), children);
+				assertTrue(Arrays.stream(children).anyMatch(child -> child == hex));
+				assertEquals(children[0], instance.getChildCentre(Coord.unpackY(parent), Coord.unpackX(parent)));
+				instance.getChildren(y, x, children);
+				for (long child : children) {
+					assertEquals(hex, instance.getParent(Coord.unpackY(child), Coord.unpackX(child)));
+				}
+			}
+		}
+		
+		// Sums and counts over areas match summing every hex.
+		Coord centre = new Coord(5, -12);
+		LongHexMap map = new LongHexMap(instance, centre, 60);
+		Random random = new Random(23);
+		for (int i = 0; i < map.size(); i++) {
+			map.setAt(i, random.nextInt(100));
+		}
+		HexPyramid pyramid = new HexPyramid(map, 4);
+		assertEquals(map.size(), pyramid.getCells(0).length);
+		assertTrue(pyramid.getCells(3).length < pyramid.getCells(2).length);
+		long total = Arrays.stream(map.getValues()).sum();
+		assertEquals(total, pyramid.sum(centre, 60));
+		assertEquals(map.size(), pyramid.count(centre, 200));
+		long top = 0;
+		for (long cell : pyramid.getCells(3)) {
+			top += pyramid.getSum(3, Coord.unpackY(cell), Coord.unpackX(cell));
+		}
+		assertEquals(total, top);
+		
+		for (int test = 0; test < 40; test++) {
+			Coord query = new Coord(centre.y + random.nextInt(101) - 50, centre.x + random.nextInt(101) - 50);
+			int radius = random.nextInt(40);
+			long sum = 0;
+			long count = 0;
+			for (int i = 0; i < map.size(); i++) {
+				long coord = map.getCoord(i);
+				if (instance.distance(Coord.unpackY(coord) - query.y, Coord.unpackX(coord) - query.x) <= radius) {
+					sum += map.getAt(i);
+					count++;
+				}
+			}
+			long[] results = new long[2];
+			pyramid.query(query, radius, results);
+			assertEquals("For test (" + query + ", " + radius + ").", sum, results[0]);
+			assertEquals("For test (" + query + ", " + radius + ").", count, results[1]);
+		}
+	}
+	
+	@Test
+	public void testGetOccluders() {
+		System.out.println("getOccluders");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		
+		// A single hex gives its six edges, clockwise, the edge facing hexant 0 centred half a step away.
+		List<Segment> res = instance.getOccluders(new Coord(0, 0), 4, (y, x) -> !(y == 1 && x == 2));
+		assertEquals(6, res.size());
+		Segment first = res.get(0);
+		assertEquals(1.5, (first.pS.y + first.pE.y) / 2, 1E-9);
+		assertEquals(2, (first.pS.x + first.pE.x) / 2, 1E-9);
+		for (int i = 0; i < 6; i++) {
+			assertEquals(res.get(i).pE, res.get((i + 1) % 6).pS);
+		}
+		
+		// A blocked hexagon gives only its outline, 6(2r + 1) edges.
+		Coord centre = new Coord(-2, 3);
+		res = instance.getOccluders(centre, 6, (y, x) -> instance.distance(y - centre.y, x - centre.x) > 2);
+		assertEquals(30, res.size());
+		
+		// Random hexes give exactly the edges between blocked and clear hexes.
+		Random random = new Random(37);
+		Set<Long> blocked = new HashSet<Long>();
+		for (long coord : HexRegion.hexagon(centre, 9).toArray()) {
+			if (random.nextInt(10) < 4) {
+				blocked.add(coord);
+			}
+		}
+		res = instance.getOccluders(centre, 8, (y, x) -> !blocked.contains(Coord.pack(y, x)));
+		int edges = 0;
+		for (long coord : HexRegion.hexagon(centre, 8).toArray()) {
+			if (blocked.contains(coord)) {
+				for (int hexant = 0; hexant < 6; hexant++) {
+					Coord step = instance.getHexantStart(hexant);
+					if (!blocked.contains(Coord.pack(Coord.unpackY(coord) + step.y, Coord.unpackX(coord) + step.x))) {
+						edges++;
+					}
+				}
+			}
+		}
+		assertEquals(edges, res.size());
+	}
+	
+	@Test
+	public void testHexPolygonFactory() {
+		System.out.println("HexPolygonFactory");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		Hexagon size = Hexagon.constructWithRadiusEdge(6);
+		HexPolygonFactory factory = HexPolygonFactory.of(size);
+		assertSame(factory, HexPolygonFactory.of(Hexagon.constructWithRadiusEdge(6)));
+		assertNotSame(factory, HexPolygonFactory.of(Hexagon.constructWithRadiusEdge(7)));
+		
+		// Polygons match the hexagons of the pixel layout.
+		HexPixelConverter converter = new HexPixelConverter(instance, size);
+		Random random = new Random(41);
+		long[] coords = new long[50];
+		for (int i = 0; i < coords.length; i++) {
+			coords[i] = Coord.pack(random.nextInt(41) - 20, random.nextInt(41) - 20);
+		}
+		Polygon[] polygons = factory.getPolygons(coords);
+		for (int i = 0; i < coords.length; i++) {
+			Coord coord = Coord.unpack(coords[i]);
+			Polygon exp = converter.toHexagon(coord).toPolygon();
+			Polygon res = polygons[i];
+			assertEquals(exp.points, res.points);
+			assertEquals(exp.segments, res.segments);
+			assertEquals(exp.boundingBox.yS, res.boundingBox.yS, 1E-9);
+			assertEquals(exp.boundingBox.xE, res.boundingBox.xE, 1E-9);
+			assertEquals(exp.boundingCircle.radius, res.boundingCircle.radius, 1E-9);
+			assertEquals(converter.toPoint(coord), factory.getHexagon(coord).centre);
+		}
+		
+		// Batches built from the cached normals collide as those built from the Polygons.
+		PolygonBatch exp = new PolygonBatch(instance);
+		PolygonBatch res = new PolygonBatch(instance);
+		for (long coord : coords) {
+			exp.add(factory.getPolygon(Coord.unpackY(coord), Coord.unpackX(coord)));
+			factory.addTo(res, Coord.unpackY(coord), Coord.unpackX(coord));
+		}
+		for (int test = 0; test < 20; test++) {
+			Polygon probe = new RegularHexagon(new Point(random.nextInt(200) - 100, random.nextInt(200) - 100), Hexagon.constructWithRadiusEdge(9)).toPolygon();
+			PolygonBatch.Collisions expCollisions = instance.collides(probe, exp);
+			PolygonBatch.Collisions resCollisions = instance.collides(probe, res);
+			assertEquals(expCollisions.hits, resCollisions.hits);
+			for (int i = expCollisions.hits.nextSetBit(0); i >= 0; i = expCollisions.hits.nextSetBit(i + 1)) {
+				assertEquals(expCollisions.getSeparationY(i), resCollisions.getSeparationY(i), 1E-9);
+				assertEquals(expCollisions.getSeparationX(i), resCollisions.getSeparationX(i), 1E-9);
+			}
+		}
+	}
+	
+	@Test
+	public void testArcSampling() {
+		System.out.println("getPointsInArc and getDeltasInArc");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		
+		// Matches one Point at a time, across several hexants, both ways.
+		double[] results = new double[2 * 100];
+		instance.getDeltasInArc(3, 1, 0.37, results, 100);
+		for (int i = 0; i < 100; i++) {
+			Point expected = instance.getDeltaInArc(3, 1, 0.37 * i);
+			assertEquals(expected.y, results[2 * i], 1E-9);
+			assertEquals(expected.x, results[2 * i + 1], 1E-9);
+		}
+		instance.getDeltasInArc(-2, 4, -0.5, results, 100);
+		for (int i = 0; i < 100; i++) {
+			Point expected = instance.getDeltaInArc(-2, 4, -0.5 * i);
+			assertEquals(expected.y, results[2 * i], 1E-9);
+			assertEquals(expected.x, results[2 * i + 1], 1E-9);
+		}
+		
+		// Evenly spaced between two hexants, wrapping past 0.
+		instance.getPointsInArc(4, 5.5, 0.5, Hexagonal2DPlane.DIRECTION_CLOCKWISE, results, 5);
+		double[] hexants = {5.5, 5.75, 0, 0.25, 0.5};
+		for (int i = 0; i < 5; i++) {
+			Point expected = instance.getPointByHexant(4, hexants[i]);
+			assertEquals(expected.y, results[2 * i], 1E-9);
+			assertEquals(expected.x, results[2 * i + 1], 1E-9);
+			assertEquals(4D, instance.distance(results[2 * i], results[2 * i + 1]), 1E-9);
+		}
+		instance.getPointsInArc(4, 0.5, 5.5, Hexagonal2DPlane.DIRECTION_ANTICLOCKWISE, results, 5);
+		for (int i = 0; i < 5; i++) {
+			Point expected = instance.getPointByHexant(4, hexants[4 - i]);
+			assertEquals(expected.y, results[2 * i], 1E-9);
+			assertEquals(expected.x, results[2 * i + 1], 1E-9);
+		}
+		
+		// Equal hexants sample the whole circle, here one Point per hex of the ring.
+		instance.getPointsInArc(2, 0, 0, Hexagonal2DPlane.DIRECTION_CLOCKWISE, results, 13);
+		HexSpiralIterator ring = instance.ring(new Coord(0, 0), 2);
+		for (int i = 0; i < 12; i++) {
+			long expected = ring.nextLong();
+			assertEquals(Coord.unpackY(expected), results[2 * i], 1E-9);
+			assertEquals(Coord.unpackX(expected), results[2 * i + 1], 1E-9);
+		}
+		assertEquals(results[0], results[24], 1E-9);
+		assertEquals(results[1], results[25], 1E-9);
+		
+		try {
+			instance.getPointsInArc(1, 0, 1, Hexagonal2DPlane.DIRECTION_CLOCKWISE, new double[3], 2);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testTransforms() {
+		System.out.println("rotate, reflect and translate");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		Coord pivot = new Coord(3, -4);
+		
+		// Each step moves the neighbours of the pivot one hexant clockwise.
+		for (int steps = -7; steps <= 7; steps++) {
+			long[] packed = new long[6];
+			int[] coords = new int[12];
+			for (int hexant = 0; hexant < 6; hexant++) {
+				Coord step = instance.getHexantStart(hexant);
+				packed[hexant] = Coord.pack(pivot.y + step.y, pivot.x + step.x);
+				coords[2 * hexant] = pivot.y + step.y;
+				coords[2 * hexant + 1] = pivot.x + step.x;
+			}
+			instance.rotate(packed, pivot, steps);
+			instance.rotate(coords, pivot, steps);
+			for (int hexant = 0; hexant < 6; hexant++) {
+				Coord step = instance.getHexantStart(Math.floorMod(hexant + steps, 6));
+				assertEquals(Coord.pack(pivot.y + step.y, pivot.x + step.x), packed[hexant]);
+				assertEquals(pivot.y + step.y, coords[2 * hexant]);
+				assertEquals(pivot.x + step.x, coords[2 * hexant + 1]);
+			}
+		}
+		
+		// Reflections map hexant h to 2a - h.
+		for (int axis = 0; axis < 3; axis++) {
+			long[] packed = new long[6];
+			for (int hexant = 0; hexant < 6; hexant++) {
+				Coord step = instance.getHexantStart(hexant);
+				packed[hexant] = Coord.pack(pivot.y + step.y, pivot.x + step.x);
+			}
+			instance.reflect(packed, pivot, axis);
+			for (int hexant = 0; hexant < 6; hexant++) {
+				Coord step = instance.getHexantStart(Math.floorMod(2 * axis - hexant, 6));
+				assertEquals(Coord.pack(pivot.y + step.y, pivot.x + step.x), packed[hexant]);
+			}
+		}
+		
+		// A stamp keeps its distances from the pivot, and transforms back to itself.
+		Random random = new Random(3);
+		long[] stamp = new long[1000];
+		for (int i = 0; i < stamp.length; i++) {
+			stamp[i] = Coord.pack(random.nextInt(41) - 20, random.nextInt(41) - 20);
+		}
+		long[] copy = stamp.clone();
+		instance.rotate(copy, pivot, 2);
+		for (int i = 0; i < stamp.length; i++) {
+			assertEquals(
+					instance.distance(Coord.unpackY(stamp[i]) - pivot.y, Coord.unpackX(stamp[i]) - pivot.x),
+					instance.distance(Coord.unpackY(copy[i]) - pivot.y, Coord.unpackX(copy[i]) - pivot.x));
+		}
+		instance.rotate(copy, pivot, -2);
+		assertTrue(Arrays.equals(stamp, copy));
+		instance.reflect(copy, pivot, 1);
+		instance.reflect(copy, pivot, 1);
+		assertTrue(Arrays.equals(stamp, copy));
+		instance.translate(copy, 5, -7);
+		assertEquals(Coord.pack(Coord.unpackY(stamp[0]) + 5, Coord.unpackX(stamp[0]) - 7), copy[0]);
+		instance.translate(copy, -5, 7);
+		assertTrue(Arrays.equals(stamp, copy));
+		
+		try {
+			instance.reflect(copy, pivot, 3);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testPixelConverter() {
+		System.out.println("HexPixelConverter");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		Hexagon hexagon = Hexagon.constructWithRadiusVert(10);
+		HexPixelConverter converter = new HexPixelConverter(instance, hexagon);
+		
+		assertEquals(new Point(2 * hexagon.RADIUS_EDGE, 0), converter.toPoint(new Coord(1, 0)));
+		assertEquals(new Point(-hexagon.RADIUS_EDGE, 15), converter.toPoint(new Coord(0, 1)));
+		
+		// Every Point is in the hex with the nearest centre.
+		Random random = new Random(5);
+		int count = Abstract2DPlane.BULK_CHUNK * 3 + 17;
+		double[] points = new double[count * 2];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = (random.nextDouble() - 0.5) * 2000;
+		}
+		long[] packed = new long[count];
+		int[] coords = new int[count * 2];
+		converter.toCoords(points, packed);
+		converter.toCoords(points, coords);
+		for (int i = 0; i < count; i++) {
+			Coord coord = converter.toCoord(new Point(points[2 * i], points[2 * i + 1]));
+			assertEquals(coord.pack(), packed[i]);
+			assertEquals(coord.y, coords[2 * i]);
+			assertEquals(coord.x, coords[2 * i + 1]);
+			Point centre = converter.toPoint(coord);
+			double nearest = Math.hypot(points[2 * i] - centre.y, points[2 * i + 1] - centre.x);
+			for (int hexant = 0; hexant < 6; hexant++) {
+				Coord step = instance.getHexantStart(hexant);
+				Point other = converter.toPoint(new Coord(coord.y + step.y, coord.x + step.x));
+				assertTrue(nearest <= Math.hypot(points[2 * i] - other.y, points[2 * i + 1] - other.x) + 1E-9);
+			}
+		}
+		
+		// Centres convert back to their hexes.
+		double[] centres = new double[count * 2];
+		converter.toPoints(coords, centres);
+		double[] packedCentres = new double[count * 2];
+		converter.toPoints(packed, packedCentres);
+		assertTrue(Arrays.equals(centres, packedCentres));
+		long[] back = new long[count];
+		converter.toCoords(centres, back);
+		assertTrue(Arrays.equals(packed, back));
+		
+		// Vertices match the hexagon of the hex.
+		double[] vertices = new double[12 * count];
+		converter.getVertices(coords, vertices);
+		for (int i = 0; i < 10; i++) {
+			Polygon polygon = converter.toHexagon(new Coord(coords[2 * i], coords[2 * i + 1])).toPolygon();
+			for (int v = 0; v < 6; v++) {
+				assertEquals(polygon.points.get(v).y, vertices[12 * i + 2 * v], 1E-9);
+				assertEquals(polygon.points.get(v).x, vertices[12 * i + 2 * v + 1], 1E-9);
+			}
+		}
+		
+		try {
+			converter.toCoords(new double[3], new long[2]);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	@Test
+	public void testHexMap() {
+		System.out.println("HexMap");
+		
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		Coord centre = new Coord(2, -3);
+		IntHexMap ints = new IntHexMap(instance, centre, 5);
+		assertEquals(3 * 5 * 6 + 1, ints.size());
+		assertEquals(0, ints.getIndex(centre));
+		assertEquals(-1, ints.getIndex(centre.y + 6, centre.x));
+		
+		// Every hex has its own index, which maps back to the hex.
+		Set<Integer> indexes = new HashSet<Integer>();
+		for (int y = -5; y <= 5; y++) {
+			for (int x = -5; x <= 5; x++) {
+				int index = ints.getIndex(centre.y + y, centre.x + x);
+				assertEquals(instance.distance(y, x) <= 5, index >= 0);
+				if (index >= 0) {
+					assertTrue(indexes.add(index));
+					assertEquals(Coord.pack(centre.y + y, centre.x + x), ints.getCoord(index));
+					ints.set(centre.y + y, centre.x + x, y * 100 + x);
+				}
+			}
+		}
+		assertEquals(ints.size(), indexes.size());
+		
+		// Neighbours by hexant.
+		for (int hexant = 0; hexant < 6; hexant++) {
+			Coord step = instance.getHexantStart(hexant);
+			assertEquals(step.y * 100 + step.x, ints.getNeighbour(centre.y, centre.x, hexant));
+			assertEquals(ints.getIndex(centre.y + step.y, centre.x + step.x), ints.getNeighbourIndex(0, hexant));
+		}
+		assertEquals(-1, ints.getNeighbourIndex(ints.getIndex(centre.y + 5, centre.x), 0));
+		try {
+			ints.get(centre.y - 6, centre.x);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		
+		FloatHexMap floats = new FloatHexMap(instance, centre, 1);
+		floats.fill(0.5F);
+		floats.set(centre, 2F);
+		assertEquals(2F, floats.get(centre));
+		assertEquals(0.5F, floats.getNeighbour(centre.y, centre.x, 3));
+		
+		LongHexMap longs = new LongHexMap(instance, centre, 1);
+		longs.set(centre.y + 1, centre.x + 1, Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, longs.getNeighbour(centre.y, centre.x, 1));
+		
+		ObjectHexMap<String> strings = new ObjectHexMap<String>(instance, centre, 1);
+		assertNull(strings.get(centre));
+		strings.set(centre.y, centre.x - 1, "west");
+		assertEquals("west", strings.getNeighbour(centre.y, centre.x, 5));
+	}
+	
+	@Test
+	public void testDistanceField() {
+		System.out.println("distanceField");
+		
+		final Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		Coord centre = new Coord(-5, 9);
+		
+		// On an open plane the field is the distance to the nearest source.
+		CoordCheckFunctor open = new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				return true;
+			}
+		};
+		long[] sources = {Coord.pack(centre.y + 3, centre.x - 2), Coord.pack(centre.y - 4, centre.x - 4)};
+		HexDistanceField field = instance.distanceField(centre, 10, sources, open);
+		for (int index = 0; index < field.getDistances().length; index++) {
+			long delta = instance.getCoordBySpiral(index);
+			int y = centre.y + Coord.unpackY(delta);
+			int x = centre.x + Coord.unpackX(delta);
+			double expected = Math.min(
+					instance.distance(y - Coord.unpackY(sources[0]), x - Coord.unpackX(sources[0])),
+					instance.distance(y - Coord.unpackY(sources[1]), x - Coord.unpackX(sources[1])));
+			assertEquals((int) expected, field.getDistance(y, x));
+		}
+		assertEquals(HexDistanceField.NO_HEXANT, field.getHexant(centre.y + 3, centre.x - 2));
+		assertEquals(HexDistanceField.UNREACHABLE, field.getDistance(centre.y + 11, centre.x));
+		
+		// A region large enough for parallel wavefronts, with scattered walls.
+		final Set<Long> blocked = new HashSet<Long>();
+		Random random = new Random(11);
+		for (int i = 0; i < 20000; i++) {
+			blocked.add(Coord.pack(centre.y + random.nextInt(241) - 120, centre.x + random.nextInt(241) - 120));
+		}
+		CoordCheckFunctor walled = new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				return !blocked.contains(Coord.pack(y, x));
+			}
+		};
+		sources = new long[] {centre.pack(), Coord.pack(centre.y + 50, centre.x - 70)};
+		blocked.remove(sources[0]);
+		blocked.remove(sources[1]);
+		field = instance.distanceField(centre, 120, sources, walled);
+		assertTrue(field.getDistances().length > Abstract2DPlane.BULK_CHUNK * 4);
+		int reached = 0;
+		for (int index = 0; index < field.getDistances().length; index++) {
+			long delta = instance.getCoordBySpiral(index);
+			int y = centre.y + Coord.unpackY(delta);
+			int x = centre.x + Coord.unpackX(delta);
+			int distance = field.getDistance(y, x);
+			if (distance == HexDistanceField.UNREACHABLE) {
+				continue;
+			}
+			reached++;
+			if (distance == 0) {
+				continue;
+			}
+			// Every other reached hex is one more than its nearest neighbour, which it flows to.
+			assertTrue(walled.check(y, x));
+			int nearest = HexDistanceField.UNREACHABLE;
+			for (int hexant = 0; hexant < 6; hexant++) {
+				Coord step = instance.getHexantStart(hexant);
+				nearest = Math.min(nearest, field.getDistance(y + step.y, x + step.x));
+			}
+			assertEquals(nearest + 1, distance);
+			Coord step = instance.getHexantStart(field.getHexant(y, x));
+			assertEquals(distance - 1, field.getDistance(y + step.y, x + step.x));
+		}
+		assertTrue(reached > field.getDistances().length / 2);
+		
+		// Weighted costs, with a cheap road along hexant 0 from the source.
+		final Coord source = centre;
+		CoordCostFunctor road = new CoordCostFunctor() {
+			@Override
+			public int cost(int y, int x) {
+				if (y == source.y + 2 && x == source.x + 3) {
+					return 0;
+				}
+				return (x == source.x && y >= source.y) ? 1 : 4;
+			}
+		};
+		field = instance.distanceFieldByCost(centre, 6, new long[] {source.pack()}, road);
+		assertEquals(0, field.getDistance(source.y, source.x));
+		// Entering the source costs too.
+		assertEquals(5, field.getDistance(source.y + 5, source.x));
+		assertEquals(HexDistanceField.UNREACHABLE, field.getDistance(source.y + 2, source.x + 3));
+		// One step off the road, cutting back onto it diagonally.
+		assertEquals(5, field.getDistance(source.y + 5, source.x + 1));
+		assertEquals(4, field.getHexant(source.y + 5, source.x + 1));
+		for (int index = 1; index < field.getDistances().length; index++) {
+			long delta = instance.getCoordBySpiral(index);
+			int y = centre.y + Coord.unpackY(delta);
+			int x = centre.x + Coord.unpackX(delta);
+			int distance = field.getDistance(y, x);
+			if (distance == HexDistanceField.UNREACHABLE) {
+				continue;
+			}
+			// Each hex costs the cost of the hex it flows to, plus that hex's distance.
+			Coord step = instance.getHexantStart(field.getHexant(y, x));
+			assertEquals(road.cost(y + step.y, x + step.x) + field.getDistance(y + step.y, x + step.x), distance);
+		}
+		
+		// Lambdas choose between the plain and weighted fields.
+		field = new HexDistanceField(instance, centre, 3);
+		field.compute(new long[] {centre.pack()}, (y, x) -> true);
+		assertEquals(3, field.getDistance(centre.y + 3, centre.x));
+		field.computeByCost(new long[] {centre.pack()}, (y, x) -> 2);
+		assertEquals(6, field.getDistance(centre.y + 3, centre.x));
+		assertEquals(2, instance.distanceFieldByCost(centre, 3, new long[] {centre.pack()}, (y, x) -> 2).getDistance(centre.y + 1, centre.x));
+	}
+	
+	@Test
+	public void testHierarchicalPath() {
+		System.out.println("HexHierarchicalPathfinder");
+		
+		final Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		final Coord centre = new Coord(3, -2);
+		final int mapRadius = 30;
+		final Set<Long> blocked = new HashSet<Long>();
+		Random random = new Random(7);
+		for (int i = 0; i < 900; i++) {
+			blocked.add(Coord.pack(centre.y + random.nextInt(61) - 30, centre.x + random.nextInt(61) - 30));
+		}
+		CoordCheckFunctor check = new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				return !blocked.contains(Coord.pack(y, x));
+			}
+		};
+		CoordCheckFunctor inMap = new CoordCheckFunctor() {
+			@Override
+			public boolean check(int y, int x) {
+				return instance.distance(y - centre.y, x - centre.x) <= mapRadius && !blocked.contains(Coord.pack(y, x));
+			}
+		};
+		HexHierarchicalPathfinder pathfinder = new HexHierarchicalPathfinder(instance, centre, mapRadius, 4, check);
+		HexPathfinder exact = new HexPathfinder(instance);
+		
+		// Every hex belongs to the cluster whose centre is within the cluster radius.
+		for (int y = -10; y <= 10; y++) {
+			for (int x = -10; x <= 10; x++) {
+				Coord clusterCentre = pathfinder.getClusterCentre(centre.y + y, centre.x + x);
+				assertTrue(instance.distance(centre.y + y - clusterCentre.y, centre.x + x - clusterCentre.x) <= 4);
+			}
+		}
+		
+		// Paths are found whenever they exist, and are valid.
+		for (int i = 0; i < 100; i++) {
+			long fromDelta = instance.getCoordBySpiral(random.nextInt(Hexagonal2DPlane.spiralOffset(mapRadius + 1)));
+			long toDelta = instance.getCoordBySpiral(random.nextInt(Hexagonal2DPlane.spiralOffset(mapRadius + 1)));
+			Coord from = new Coord(centre.y + Coord.unpackY(fromDelta), centre.x + Coord.unpackX(fromDelta));
+			Coord to = new Coord(centre.y + Coord.unpackY(toDelta), centre.x + Coord.unpackX(toDelta));
+			int[] shortest = exact.findPath(from, to, 4 * mapRadius * mapRadius, inMap);
+			int[] path = pathfinder.findPath(from, to);
+			if (shortest == null) {
+				assertNull(path);
+				continue;
+			}
+			assertNotNull(path);
+			assertTrue(path.length >= shortest.length);
+			assertEquals(from.y, path[0]);
+			assertEquals(from.x, path[1]);
+			assertEquals(to.y, path[path.length - 2]);
+			assertEquals(to.x, path[path.length - 1]);
+			for (int j = 2; j < path.length; j += 2) {
+				assertEquals(1D, instance.distance(path[j] - path[j - 2], path[j + 1] - path[j - 1]));
+				assertTrue(inMap.check(path[j], path[j + 1]));
+			}
+		}
+		
+		// Changing hexes only rebuilds the clusters around them.
+		int builds = pathfinder.getClusterBuilds();
+		Coord wall = new Coord(centre.y + 1, centre.x + 1);
+		blocked.add(wall.pack());
+		pathfinder.invalidate(wall.y, wall.x);
+		blocked.remove(centre.pack());
+		pathfinder.invalidate(centre.y, centre.x);
+		Coord target = new Coord(centre.y + 2, centre.x + 2);
+		blocked.remove(target.pack());
+		pathfinder.invalidate(target.y, target.x);
+		// All in one cluster, so only it and its six neighbours are rebuilt.
+		assertEquals(pathfinder.getClusterCentre(centre.y, centre.x), pathfinder.getClusterCentre(wall.y, wall.x));
+		assertEquals(pathfinder.getClusterCentre(centre.y, centre.x), pathfinder.getClusterCentre(target.y, target.x));
+		int[] path = pathfinder.findPath(centre, target);
+		assertNotNull(path);
+		assertTrue(pathfinder.getClusterBuilds() - builds <= 7);
+		for (int j = 0; j < path.length; j += 2) {
+			assertFalse(path[j] == wall.y && path[j + 1] == wall.x);
+		}
+	}
+	
 	@Test
 	public void testGetPointByHexant() {
 		System.out.println("getPointByHexant");
@@ -698,7 +1844,99 @@ public class Hexagonal2DPlaneTest extends TestCase {
 		res = instance.contains(polygon, point);
 		assertEquals(exp, res);
 	}
-	
+
+	@Test
+	public void testContainsPreparedPolygonPoint() {
+		System.out.println("contains(PreparedPolygon, Point)");
+
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		Polygon[] polygons = new Polygon[] {
+			// Square.
+			new Polygon(
+					new Point(100, 100),
+					new Point(200, 100),
+					new Point(200, 200),
+					new Point(100, 200)
+			),
+			// Comb, with vertical teeth and vertices sharing x.
+			new Polygon(
+					new Point(0, 0),
+					new Point(8, 0),
+					new Point(8, 2),
+					new Point(3, 2),
+					new Point(3, 4),
+					new Point(8, 4),
+					new Point(8, 6),
+					new Point(0, 6)
+			),
+			// Arrow, with sloped edges meeting inside the bounding box.
+			new Polygon(
+					new Point(0, 0),
+					new Point(4, 3),
+					new Point(8, 0),
+					new Point(4, 8)
+			)
+		};
+
+		for (Abstract2DPlane.PredicateMode mode : Abstract2DPlane.PredicateMode.values()) {
+			instance.setPredicateMode(mode);
+			for (Polygon polygon : polygons) {
+				PreparedPolygon prepared = instance.prepare(polygon);
+				// Step over the Polygon in sixteenths, landing on every vertex and edge.
+				double step = (polygon.boundingBox.yE - polygon.boundingBox.yS) / 16;
+				double yS = polygon.boundingBox.yS - 2 * step;
+				double xS = polygon.boundingBox.xS - 2 * step;
+				for (int i = 0; i <= 20; i++) {
+					for (int j = 0; j <= 20; j++) {
+						Point point = new Point(yS + i * step, xS + j * step);
+						int exp = instance.contains(polygon, point);
+						int res = instance.contains(prepared, point);
+						assertEquals("For test (" + mode + ", " + polygon + ", " + point + ").", exp, res);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testContainsBulk() {
+		System.out.println("contains(Polygon, double[], byte[])");
+
+		Hexagonal2DPlane instance = new Hexagonal2DPlane();
+		Polygon polygon = new Polygon(
+				new Point(0, 0),
+				new Point(8, 0),
+				new Point(8, 2),
+				new Point(3, 2),
+				new Point(3, 4),
+				new Point(8, 4),
+				new Point(8, 6),
+				new Point(0, 6)
+		);
+
+		// Enough Points to be split into parallel chunks, on a grid hitting every edge and vertex.
+		int count = Abstract2DPlane.BULK_CHUNK * 3 + 7;
+		double[] points = new double[count * 2];
+		for (int i = 0; i < count; i++) {
+			points[2 * i] = (i % 23) * 0.5 - 1;
+			points[2 * i + 1] = ((i / 23) % 19) * 0.5 - 1;
+		}
+		byte[] results = new byte[count];
+		instance.contains(polygon, points, results);
+
+		for (int i = 0; i < count; i++) {
+			Point point = new Point(points[2 * i], points[2 * i + 1]);
+			assertEquals("For test " + point + ".", instance.contains(polygon, point), results[i]);
+		}
+
+		try {
+			instance.contains(polygon, new double[3], new byte[2]);
+			fail("Expected odd length to be rejected.");
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+
 	@Test
 	public void testContainsSegmentPoint() {
 		System.out.println("contains(Segment, Point)");
@@ -1,5 +1,9 @@
 package darq.math.geometry;
 
+import darq.math.Const;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -127,4 +131,496 @@ public class SquareEuclidean2DPlaneTest {
 		res = instance.collides(p1, p2);
 		assertEquals(String.format(errorFormat, p1, p2, exp, res), exp, res);
 	}
+	
+	/**
+	 * Test of collides(Polygon, PolygonBatch) method, of class Abstract2DPlane.
+	 */
+	@Test
+	public void testCollidesBatch() {
+		System.out.println("collides(Polygon, PolygonBatch)");
+		SquareEuclidean2DPlane instance = new SquareEuclidean2DPlane();
+		String errorFormat = "For test (%s, %s), was expecting %s, but found %s.";
+		
+		Polygon probe = new Polygon(
+				new Point(0D, 0D),
+				new Point(10D, 0D),
+				new Point(10D, 10D),
+				new Point(0D, 10D)
+		);
+		
+		// Grow the batch past its initial capacity.
+		PolygonBatch batch = new PolygonBatch(instance, 2);
+		for (int i = -3; i <= 3; i++) {
+			// Squares, constructed in both directions.
+			batch.add(instance.adjust(probe, 2 * i, 5 * i));
+			batch.add(new Polygon(
+					new Point(4D * i, 3D * i),
+					new Point(4D * i, 3D * i + 6),
+					new Point(4D * i + 6, 3D * i + 6),
+					new Point(4D * i + 6, 3D * i)
+			));
+			// Triangles.
+			batch.add(new Polygon(
+					new Point(5D, 4D * i),
+					new Point(-2D, 4D * i + 3),
+					new Point(-1D, 4D * i - 2)
+			));
+		}
+		
+		PolygonBatch.Collisions collisions = instance.collides(probe, batch);
+		for (int i = 0; i < batch.size(); i++) {
+			Polygon polygon = batch.get(i);
+			Segment exp = instance.collides(probe, polygon);
+			Segment res = collisions.getSeparation(i);
+			assertEquals(String.format(errorFormat, probe, polygon, exp, res), exp, res);
+			assertEquals(exp != null, collisions.collides(i));
+		}
+		
+		// Reuse the results for a probe that touches nothing.
+		probe = instance.adjust(probe, 1000, 1000);
+		collisions = instance.collides(probe, batch, collisions);
+		assertTrue(collisions.hits.isEmpty());
+	}
+	
+	/**
+	 * Test of getContacts method, of class Abstract2DPlane.
+	 */
+	@Test
+	public void testGetContacts() {
+		System.out.println("getContacts");
+		SquareEuclidean2DPlane instance = new SquareEuclidean2DPlane();
+		Polygon p1;
+		Polygon p2;
+		ContactManifold res;
+		String errorFormat = "For test (%s, %s), was expecting %s, but found %s.";
+		
+		p1 = new Polygon(
+				new Point(0D, 0D),
+				new Point(10D, 0D),
+				new Point(10D, 10D),
+				new Point(0D, 10D)
+		);
+		p2 = new Polygon(
+				new Point(0D, 20D),
+				new Point(10D, 20D),
+				new Point(10D, 30D),
+				new Point(0D, 30D)
+		);
+		res = instance.getContacts(p1, p2);
+		assertNull(String.format(errorFormat, p1, p2, null, res), res);
+		
+		// Overlapping side by side.
+		p2 = new Polygon(
+				new Point(0D, 5D),
+				new Point(10D, 5D),
+				new Point(10D, 15D),
+				new Point(0D, 15D)
+		);
+		res = instance.getContacts(p1, p2);
+		assertEquals(String.format(errorFormat, p1, p2, instance.collides(p1, p2), res), instance.collides(p1, p2), res.separation);
+		assertContacts(res, new Point[] {new Point(0, 5), new Point(10, 5)}, new double[] {5, 5});
+		
+		// Small box sinking into the top of a larger box, reverse construction.
+		p2 = new Polygon(
+				new Point(8D, 4D),
+				new Point(12D, 4D),
+				new Point(12D, 6D),
+				new Point(8D, 6D)
+		);
+		res = instance.getContacts(p1, p2);
+		assertEquals(new Segment(new Point(0, 0), new Point(2, 0)), res.separation);
+		assertContacts(res, new Point[] {new Point(8, 4), new Point(8, 6)}, new double[] {2, 2});
+		
+		// Tilted box, only one corner inside.
+		p2 = new Polygon(
+				new Point(9D, 5D),
+				new Point(12D, 8D),
+				new Point(15D, 5D),
+				new Point(12D, 2D)
+		);
+		res = instance.getContacts(p1, p2);
+		assertEquals(new Segment(new Point(0, 0), new Point(1, 0)), res.separation);
+		assertContacts(res, new Point[] {new Point(9, 5)}, new double[] {1});
+	}
+	
+	/**
+	 * Test of collides method, of class SeparatingAxisCache.
+	 */
+	@Test
+	public void testSeparatingAxisCache() {
+		System.out.println("SeparatingAxisCache.collides");
+		SquareEuclidean2DPlane instance = new SquareEuclidean2DPlane();
+		SeparatingAxisCache cache = new SeparatingAxisCache(instance, 2);
+		String errorFormat = "For test (%s, %s), was expecting %s, but found %s.";
+		
+		Polygon p1 = new Polygon(
+				new Point(0D, 0D),
+				new Point(10D, 0D),
+				new Point(10D, 10D),
+				new Point(0D, 10D)
+		);
+		Polygon triangle = new Polygon(
+				new Point(0D, 0D),
+				new Point(4D, 2D),
+				new Point(0D, 4D)
+		);
+		
+		// Move the triangle through the square, and out the other side.
+		for (int step = -20; step <= 20; step++) {
+			Polygon p2 = instance.adjust(triangle, 3, step);
+			Segment exp = instance.collides(p1, p2);
+			// Test twice, the second test uses the cached axis.
+			for (int i = 0; i < 2; i++) {
+				Segment res = cache.collides(1, p1, 2, p2);
+				assertEquals(String.format(errorFormat, p1, p2, exp, res), exp, res);
+			}
+			cache.tick();
+		}
+		
+		// Pairs that are no longer tested are evicted.
+		cache.clear();
+		// Bounds overlap the square, but the diagonal edge separates them.
+		Polygon p2 = new Polygon(
+				new Point(11.5D, 9D),
+				new Point(9D, 11.5D),
+				new Point(12D, 12D)
+		);
+		assertNull(cache.collides(1, p1, 2, p2));
+		assertEquals(1, cache.size());
+		cache.tick();
+		cache.tick();
+		assertEquals(1, cache.size());
+		cache.tick();
+		assertEquals(0, cache.size());
+		
+		// A pair keeps its axis across ticks, while one of its Polygons is replaced as it moves.
+		cache.clear();
+		long hits = cache.getHits();
+		assertNull(cache.collides(1, p1, 2, p2));
+		for (int step = 1; step <= 5; step++) {
+			cache.tick();
+			assertNull(cache.collides(1, p1, 2, instance.adjust(p2, 0.1 * step, 0.1 * step)));
+		}
+		assertEquals(hits + 5, cache.getHits());
+		assertEquals(1, cache.size());
+		// The same Polygons under other ids are another pair.
+		assertNull(cache.collides(2, p1, 1, p2));
+		assertEquals(2, cache.size());
+	}
+	
+	/**
+	 * Test of the overlap, containment and union operations,
+	 * of classes AxisAlignedBoundingBox and Circle.
+	 */
+	@Test
+	public void testBoundingVolumes() {
+		System.out.println("bounding volumes");
+		AxisAlignedBoundingBox box1 = new AxisAlignedBoundingBox(0, 0, 10, 10);
+		AxisAlignedBoundingBox box2 = new AxisAlignedBoundingBox(10, 5, 20, 15);
+		AxisAlignedBoundingBox box3 = new AxisAlignedBoundingBox(2, 2, 4, 4);
+		AxisAlignedBoundingBox box4 = new AxisAlignedBoundingBox(10.5, 0, 20, 10);
+		
+		assertTrue(box1.overlaps(box2));
+		assertTrue(box2.overlaps(box1));
+		assertTrue(box1.overlaps(box3));
+		assertFalse(box1.overlaps(box4));
+		assertTrue(box1.contains(box3));
+		assertFalse(box3.contains(box1));
+		assertFalse(box1.contains(box2));
+		assertTrue(box1.contains(new Point(10, 0)));
+		assertFalse(box1.contains(new Point(10, -0.5)));
+		
+		AxisAlignedBoundingBox union = box1.union(box2);
+		assertTrue(union.contains(box1));
+		assertTrue(union.contains(box2));
+		assertEquals(0, union.yS, Const.EPSILON);
+		assertEquals(0, union.xS, Const.EPSILON);
+		assertEquals(20, union.yE, Const.EPSILON);
+		assertEquals(15, union.xE, Const.EPSILON);
+		
+		Circle circle1 = new Circle(new Point(0, 0), 5);
+		Circle circle2 = new Circle(new Point(6, 8), 5);
+		Circle circle3 = new Circle(new Point(6, 8), 4.5);
+		Circle circle4 = new Circle(new Point(1, 1), 2);
+		
+		assertTrue(circle1.overlaps(circle2));
+		assertFalse(circle1.overlaps(circle3));
+		assertTrue(circle1.contains(circle4));
+		assertFalse(circle4.contains(circle1));
+		assertTrue(circle1.contains(new Point(3, 4)));
+		assertFalse(circle1.contains(new Point(3, 4.5)));
+		
+		Circle circleU = circle1.union(circle2);
+		assertEquals(10, circleU.radius, Const.EPSILON);
+		assertEquals(new Point(3, 4), circleU.centre);
+		assertTrue(circleU.contains(circle1));
+		assertTrue(circleU.contains(circle2));
+		assertSame(circle1, circle1.union(circle4));
+		
+		// Polygons cache their bounds.
+		Polygon polygon = new Polygon(
+				new Point(0D, 0D),
+				new Point(10D, 0D),
+				new Point(10D, 10D),
+				new Point(0D, 10D)
+		);
+		assertTrue(polygon.boundingBox.contains(box3));
+		assertEquals(new Point(5, 5), polygon.boundingCircle.centre);
+		assertEquals(Math.sqrt(50), polygon.boundingCircle.radius, Const.EPSILON);
+	}
+	
+	/**
+	 * Test of collides(Shape, Shape) method, of class Abstract2DPlane.
+	 */
+	@Test
+	public void testCollidesShapes() {
+		System.out.println("collides(Shape, Shape)");
+		SquareEuclidean2DPlane instance = new SquareEuclidean2DPlane();
+		Shape s1;
+		Shape s2;
+		Segment exp;
+		Segment res;
+		String errorFormat = "For test (%s, %s), was expecting %s, but found %s.";
+		
+		// Hexagons and boxes agree with the generic Separating Axis Theorem.
+		Hexagon small = Hexagon.constructWithRadiusEdge(1);
+		Hexagon large = Hexagon.constructWithRadiusVert(3);
+		for (int y = -5; y <= 5; y++) {
+			for (int x = -5; x <= 5; x++) {
+				RegularHexagon h1 = new RegularHexagon(new Point(0.5, 0.25), large);
+				RegularHexagon h2 = new RegularHexagon(new Point(y * 0.75, x * 0.75), small);
+				exp = instance.collides(h1.toPolygon(), h2.toPolygon());
+				res = instance.collides((Shape) h1, (Shape) h2);
+				assertEquals(String.format(errorFormat, h1, h2, exp, res), exp, res);
+				
+				AxisAlignedBoundingBox b1 = new AxisAlignedBoundingBox(-1, -2, 2, 3);
+				AxisAlignedBoundingBox b2 = new AxisAlignedBoundingBox(y * 0.5, x * 0.75, y * 0.5 + 2, x * 0.75 + 1);
+				exp = instance.collides(b1.toPolygon(), b2.toPolygon());
+				res = instance.collides((Shape) b1, (Shape) b2);
+				assertEquals(String.format(errorFormat, b1, b2, exp, res), exp, res);
+			}
+		}
+		
+		// Circles against hexagons and boxes agree with circles against their Polygons,
+		// the centres kept off the lines where two edges are equally near.
+		for (int y = -20; y <= 20; y++) {
+			for (int x = -20; x <= 20; x++) {
+				Circle c = new Circle(new Point(0.513 + y * 0.25, 0.257 + x * 0.25), 1.5);
+				RegularHexagon h = new RegularHexagon(new Point(0.5, 0.25), large);
+				exp = instance.collides(c, h.toPolygon());
+				res = instance.collides((Shape) c, (Shape) h);
+				assertEquals(String.format(errorFormat, c, h, exp, res), exp, res);
+				exp = instance.collides(h.toPolygon(), c);
+				res = instance.collides((Shape) h, (Shape) c);
+				assertEquals(String.format(errorFormat, h, c, exp, res), exp, res);
+				
+				AxisAlignedBoundingBox b = new AxisAlignedBoundingBox(-1, -2, 2, 3);
+				exp = instance.collides(c, b.toPolygon());
+				res = instance.collides((Shape) c, (Shape) b);
+				assertEquals(String.format(errorFormat, c, b, exp, res), exp, res);
+				exp = instance.collides(b.toPolygon(), c);
+				res = instance.collides((Shape) b, (Shape) c);
+				assertEquals(String.format(errorFormat, b, c, exp, res), exp, res);
+			}
+		}
+		
+		// Circles.
+		s1 = new Circle(new Point(0, 0), 5);
+		s2 = new Circle(new Point(6, 8), 6);
+		exp = new Segment(new Point(0, 0), new Point(0.6, 0.8));
+		res = instance.collides(s1, s2);
+		assertEquals(String.format(errorFormat, s1, s2, exp, res), exp, res);
+		
+		s2 = new Circle(new Point(6, 8), 4);
+		exp = null;
+		res = instance.collides(s1, s2);
+		assertEquals(String.format(errorFormat, s1, s2, exp, res), exp, res);
+		
+		// Circles and Polygons.
+		s1 = new Polygon(
+				new Point(0D, 0D),
+				new Point(10D, 0D),
+				new Point(10D, 10D),
+				new Point(0D, 10D)
+		);
+		s2 = new Circle(new Point(5, 11), 2);
+		exp = new Segment(new Point(0, 0), new Point(0, 1));
+		res = instance.collides(s1, s2);
+		assertEquals(String.format(errorFormat, s1, s2, exp, res), exp, res);
+		exp = new Segment(new Point(0, 0), new Point(0, -1));
+		res = instance.collides(s2, s1);
+		assertEquals(String.format(errorFormat, s2, s1, exp, res), exp, res);
+		
+		// Centre inside the Polygon.
+		s2 = new Circle(new Point(5, 9), 2);
+		exp = new Segment(new Point(0, 0), new Point(0, 3));
+		res = instance.collides(s1, s2);
+		assertEquals(String.format(errorFormat, s1, s2, exp, res), exp, res);
+		
+		// Past a corner.
+		s2 = new Circle(new Point(13, 14), 5);
+		exp = new Segment(new Point(0, 0), new Point(0, 0));
+		res = instance.collides(s1, s2);
+		assertEquals(String.format(errorFormat, s1, s2, exp, res), exp, res);
+		
+		s2 = new Circle(new Point(13, 14), 4.5);
+		exp = null;
+		res = instance.collides(s1, s2);
+		assertEquals(String.format(errorFormat, s1, s2, exp, res), exp, res);
+		
+		// Circles and boxes.
+		s1 = new AxisAlignedBoundingBox(0, 0, 10, 10);
+		s2 = new Circle(new Point(-1, 5), 2);
+		exp = new Segment(new Point(0, 0), new Point(-1, 0));
+		res = instance.collides(s1, s2);
+		assertEquals(String.format(errorFormat, s1, s2, exp, res), exp, res);
+		
+		// Circles and concave Polygons, rejected as by the Polygon kernels.
+		s1 = new Polygon(
+				new Point(0D, 0D),
+				new Point(4D, 0D),
+				new Point(4D, 4D),
+				new Point(2D, 1D),
+				new Point(0D, 4D)
+		);
+		s2 = new Circle(new Point(3, 2), 0.5);
+		try {
+			instance.collides(s2, s1);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			instance.collides(s1, s2);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		
+		// Unless their bounds do not overlap.
+		s2 = new Circle(new Point(10, 10), 0.5);
+		exp = null;
+		res = instance.collides(s1, s2);
+		assertEquals(String.format(errorFormat, s1, s2, exp, res), exp, res);
+	}
+	
+	@Test
+	public void testCoordGeometry() {
+		System.out.println("Coord geometry");
+		SquareEuclidean2DPlane instance = new SquareEuclidean2DPlane();
+		String errorFormat = "For test (%s, %s), was expecting %s, but found %s.";
+		
+		// Products beyond the precision of a double, cross product of -1.
+		int n = Abstract2DPlane.COORD_LIMIT - 2;
+		Coord s = new Coord(0, 0);
+		Coord e = new Coord(n + 1, n);
+		Coord p = new Coord(n, n - 1);
+		assertEquals(-1, instance.compare(p, s, e));
+		assertEquals(1, instance.compare(p, e, s));
+		assertEquals(0, instance.compare(new Coord(2 * n + 2, 2 * n), s, e));
+		
+		long[] u = instance.collidesAt(new Coord(0, 0), new Coord(4, 4), new Coord(0, 4), new Coord(4, 0));
+		assertArrayEquals(new long[] {16, 16, 32}, u);
+		assertNull(instance.collidesAt(new Coord(0, 0), new Coord(4, 4), new Coord(1, 0), new Coord(5, 4)));
+		
+		// Comb, matching contains(Polygon, Point) on every lattice point.
+		Coord[] comb = new Coord[] {
+			new Coord(0, 0),
+			new Coord(8, 0),
+			new Coord(8, 2),
+			new Coord(3, 2),
+			new Coord(3, 4),
+			new Coord(8, 4),
+			new Coord(8, 6),
+			new Coord(0, 6)
+		};
+		Point[] combPoints = new Point[comb.length];
+		for (int i = 0; i < comb.length; i++) {
+			combPoints[i] = comb[i].toPoint();
+		}
+		Polygon polygon = new Polygon(combPoints);
+		for (int y = -1; y <= 9; y++) {
+			for (int x = -1; x <= 7; x++) {
+				Coord point = new Coord(y, x);
+				int exp = instance.contains(polygon, point.toPoint());
+				int res = instance.contains(comb, point);
+				assertEquals(String.format(errorFormat, "comb", point, exp, res), exp, res);
+			}
+		}
+		
+		// Collisions, matching collides(Polygon, Polygon).
+		Coord[] square = new Coord[] {
+			new Coord(0, 0),
+			new Coord(10, 0),
+			new Coord(10, 10),
+			new Coord(0, 10)
+		};
+		Coord[][] others = new Coord[][] {
+			{new Coord(8, 3), new Coord(14, 3), new Coord(14, 7), new Coord(8, 7)},
+			{new Coord(10, 3), new Coord(14, 3), new Coord(14, 7), new Coord(10, 7)},
+			{new Coord(11, 3), new Coord(14, 3), new Coord(14, 7), new Coord(11, 7)},
+			{new Coord(5, 9), new Coord(12, 16), new Coord(5, 16)}
+		};
+		for (Coord[] other : others) {
+			Point[] otherPoints = new Point[other.length];
+			for (int i = 0; i < other.length; i++) {
+				otherPoints[i] = other[i].toPoint();
+			}
+			Segment exp = instance.collides(new Polygon(square[0].toPoint(), square[1].toPoint(), square[2].toPoint(), square[3].toPoint()), new Polygon(otherPoints));
+			Segment res = instance.collides(square, other);
+			assertEquals(String.format(errorFormat, Arrays.toString(square), Arrays.toString(other), exp, res), exp, res);
+		}
+	}
+	
+	@Test
+	public void testGetOccluders() {
+		System.out.println("getOccluders");
+		SquareEuclidean2DPlane instance = new SquareEuclidean2DPlane();
+		
+		// A single tile gives its four sides, clockwise.
+		List<Segment> res = instance.getOccluders(new Coord(0, 0), 5, (y, x) -> !(y == 2 && x == 3));
+		assertEquals(4, res.size());
+		assertTrue(res.contains(new Segment(new Point(2.5, 2.5), new Point(2.5, 3.5))));
+		assertTrue(res.contains(new Segment(new Point(2.5, 3.5), new Point(1.5, 3.5))));
+		assertTrue(res.contains(new Segment(new Point(1.5, 3.5), new Point(1.5, 2.5))));
+		assertTrue(res.contains(new Segment(new Point(1.5, 2.5), new Point(2.5, 2.5))));
+		
+		// A rectangle gives one Segment per side, and nothing inside.
+		res = instance.getOccluders(new Coord(0, 0), 5, (y, x) -> y < 0 || y > 2 || x < 0 || x > 4);
+		assertEquals(4, res.size());
+		assertTrue(res.contains(new Segment(new Point(2.5, -0.5), new Point(2.5, 4.5))));
+		assertTrue(res.contains(new Segment(new Point(-0.5, -0.5), new Point(2.5, -0.5))));
+		
+		// Random tiles give exactly the edges between blocked and clear tiles, in fewer Segments.
+		Random random = new Random(31);
+		boolean[][] blocked = new boolean[23][23];
+		for (boolean[] row : blocked) {
+			for (int x = 0; x < row.length; x++) {
+				row[x] = random.nextInt(10) < 4;
+			}
+		}
+		res = instance.getOccluders(new Coord(11, 11), 10, (y, x) -> !blocked[y][x]);
+		int edges = 0;
+		for (int y = 1; y < 22; y++) {
+			for (int x = 1; x < 22; x++) {
+				if (blocked[y][x]) {
+					edges += (blocked[y + 1][x] ? 0 : 1) + (blocked[y - 1][x] ? 0 : 1) + (blocked[y][x + 1] ? 0 : 1) + (blocked[y][x - 1] ? 0 : 1);
+				}
+			}
+		}
+		double length = 0;
+		for (Segment segment : res) {
+			assertTrue(segment.pS.y == segment.pE.y || segment.pS.x == segment.pE.x);
+			length += instance.distance(segment.pS, segment.pE);
+		}
+		assertEquals(edges, length, Const.EPSILON);
+		assertTrue(res.size() < edges);
+	}
+	
+	private void assertContacts(ContactManifold manifold, Point[] points, double[] depths) {
+		assertEquals(manifold.toString(), points.length, manifold.points.size());
+		for (int i = 0; i < points.length; i++) {
+			int index = manifold.points.indexOf(points[i]);
+			assertTrue("Missing contact " + points[i] + " in " + manifold, index >= 0);
+			assertEquals(manifold.toString(), depths[i], manifold.getDepth(index), Const.EPSILON);
+		}
+	}
 }